@@ -53,7 +53,7 @@ public class SecurityConfig {
                 "http://0.0.0.0:5173"));
         c.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         c.setAllowedHeaders(List.of("*"));
-        c.setExposedHeaders(List.of("Authorization"));
+        c.setExposedHeaders(List.of("Authorization", "X-Next-Cursor"));
         c.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource src = new UrlBasedCorsConfigurationSource();
@@ -1,19 +1,122 @@
 package com.example.backend.config;
 
+import com.example.backend.security.StompAuthInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
+/**
+ * STOMP over /ws. app.websocket.broker picks the broker behind /topic and /queue:
+ *
+ * simple - the in-process broker. Subscriptions live on this node's heap, so
+ *          it only suits a single instance; it is the stand-in for local runs
+ *          and tests, with the same destinations as the relay.
+ * relay  - an external STOMP broker (RabbitMQ with the STOMP plugin, ActiveMQ,
+ *          Artemis) at app.websocket.relay.*, shared by every node. User
+ *          destinations and the user registry are broadcast through it, so
+ *          /user/queue/... reaches a user connected to any node.
+ *
+ * Per-user pushes go to /user/queue/...; sessions are tied to a user by
+ * StompAuthInterceptor on CONNECT, which also decides who may subscribe to what.
+ */
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    // Relay mode: messages for users on another node, and the user registry; clients cannot subscribe
+    public static final String USER_DESTINATION_BROADCAST = "/topic/unresolved-user-destination";
+    public static final String USER_REGISTRY_BROADCAST = "/topic/simp-user-registry";
+
+    private final StompAuthInterceptor stompAuthInterceptor;
+
+    @Value("${app.websocket.broker:simple}")
+    private String broker;
+
+    @Value("${app.websocket.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${app.websocket.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${app.websocket.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${app.websocket.relay.passcode:guest}")
+    private String relayPasscode;
+
+    @Value("${app.websocket.relay.virtual-host:}")
+    private String relayVirtualHost;
+
+    // Server-to-client and expected client-to-server heartbeat interval; 0 disables
+    @Value("${app.websocket.heartbeat-ms:10000}")
+    private long heartbeatMs;
+
+    @Value("${app.websocket.send-buffer-limit-bytes:524288}")
+    private int sendBufferLimit;
+
+    @Value("${app.websocket.send-time-limit-ms:15000}")
+    private int sendTimeLimit;
+
+    @Value("${app.websocket.message-size-limit-bytes:65536}")
+    private int messageSizeLimit;
+
+    @Value("${app.websocket.inbound-threads:4}")
+    private int inboundThreads;
+
+    @Value("${app.websocket.outbound-threads:8}")
+    private int outboundThreads;
+
+    @Value("${app.websocket.outbound-queue:10000}")
+    private int outboundQueue;
+
+    private TaskScheduler heartbeatScheduler;
+
+    public WebSocketConfig(StompAuthInterceptor stompAuthInterceptor) {
+        this.stompAuthInterceptor = stompAuthInterceptor;
+    }
+
+    // The scheduler the message broker configuration itself creates; lazy because it is built after this class
+    @Autowired
+    public void setHeartbeatScheduler(@Lazy @Qualifier("messageBrokerTaskScheduler") TaskScheduler scheduler) {
+        this.heartbeatScheduler = scheduler;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic"); // For subscribing
+        if ("relay".equalsIgnoreCase(broker)) {
+            StompBrokerRelayRegistration relay = config.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode)
+                    .setSystemHeartbeatSendInterval(heartbeatMs)
+                    .setSystemHeartbeatReceiveInterval(heartbeatMs)
+                    // Messages for users connected to another node, and the user registry, go through the broker
+                    .setUserDestinationBroadcast(USER_DESTINATION_BROADCAST)
+                    .setUserRegistryBroadcast(USER_REGISTRY_BROADCAST);
+            if (!relayVirtualHost.isBlank())
+                relay.setVirtualHost(relayVirtualHost);
+        } else {
+            config.enableSimpleBroker("/topic", "/queue")
+                    .setHeartbeatValue(new long[] { heartbeatMs, heartbeatMs })
+                    .setTaskScheduler(heartbeatScheduler);
+        }
         config.setApplicationDestinationPrefixes("/app"); // For sending
+        config.setUserDestinationPrefix("/user");
+        // Several outbound threads must not reorder the messages of one session
+        config.setPreservePublishOrder(true);
     }
 
     @Override
@@ -22,4 +125,24 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .setAllowedOriginPatterns("*") // Allow all origins (CORS)
                 .withSockJS(); // Enable SockJS fallback
     }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // A slow client is disconnected once this much is buffered for it or a send blocks this long
+        registration.setSendBufferSizeLimit(sendBufferLimit)
+                .setSendTimeLimit(sendTimeLimit)
+                .setMessageSizeLimit(messageSizeLimit);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(stompAuthInterceptor);
+        registration.taskExecutor().corePoolSize(inboundThreads).maxPoolSize(inboundThreads);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor().corePoolSize(outboundThreads).maxPoolSize(outboundThreads)
+                .queueCapacity(outboundQueue);
+    }
 }
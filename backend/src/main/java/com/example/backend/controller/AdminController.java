@@ -2,16 +2,36 @@ package com.example.backend.controller;
 
 import com.example.backend.model.User;
 import com.example.backend.model.Booking;
+import com.example.backend.repository.RatingSummary;
+import com.example.backend.security.JwtAuthenticationFilter;
+import com.example.backend.service.AdminReportService;
+import com.example.backend.service.AdminStatsService;
+import com.example.backend.service.AnalyticsService;
 import com.example.backend.service.BookingService;
+import com.example.backend.service.DistanceCacheService;
+import com.example.backend.service.EmailService;
+import com.example.backend.service.GeocodingService;
+import com.example.backend.service.KeysetCursor;
+import com.example.backend.service.MapsHttpClient;
+import com.example.backend.service.NotificationArchiver;
+import com.example.backend.service.NotificationBatcher;
+import com.example.backend.service.OutboxDispatcher;
+import com.example.backend.service.Pagination;
+import com.example.backend.service.RatingAggregateService;
+import com.example.backend.service.ReportJobService;
 import com.example.backend.service.ReviewService;
 import com.example.backend.service.RideService;
+import com.example.backend.service.RoutingChain;
+import com.example.backend.service.SeatInventory;
+import com.example.backend.service.ThreadMode;
+import com.example.backend.service.UnreadCounter;
 import com.example.backend.service.UserService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.stream.Collectors;
 import com.example.backend.model.Ride;
@@ -24,14 +44,49 @@ public class AdminController {
     private final ReviewService reviewService;
     private final BookingService bookingService;
     private final RideService rideService;
-    private final com.example.backend.service.AdminReportService reportService;
-
-    public AdminController(UserService userService, ReviewService reviewService, BookingService bookingService, RideService rideService, com.example.backend.service.AdminReportService reportService) {
+    private final ReportJobService reportJobs;
+    private final DistanceCacheService distanceCache;
+    private final GeocodingService geocodingService;
+    private final RoutingChain routingChain;
+    private final MapsHttpClient mapsHttpClient;
+    private final SeatInventory seatInventory;
+    private final OutboxDispatcher outboxDispatcher;
+    private final EmailService emailService;
+    private final RatingAggregateService ratingAggregates;
+    private final AnalyticsService analyticsService;
+    private final AdminStatsService adminStatsService;
+    private final Pagination pagination;
+    private final JwtAuthenticationFilter jwtFilter;
+    private final NotificationBatcher notificationBatcher;
+    private final UnreadCounter unreadCounter;
+    private final NotificationArchiver notificationArchiver;
+    private final ThreadMode threadMode;
+
+    @Value("${app.reports.download-wait-seconds:60}")
+    private long downloadWaitSeconds;
+
+    public AdminController(UserService userService, ReviewService reviewService, BookingService bookingService, RideService rideService, ReportJobService reportJobs, DistanceCacheService distanceCache, GeocodingService geocodingService, RoutingChain routingChain, MapsHttpClient mapsHttpClient, SeatInventory seatInventory, OutboxDispatcher outboxDispatcher, EmailService emailService, RatingAggregateService ratingAggregates, AnalyticsService analyticsService, AdminStatsService adminStatsService, Pagination pagination, JwtAuthenticationFilter jwtFilter, NotificationBatcher notificationBatcher, UnreadCounter unreadCounter, NotificationArchiver notificationArchiver, ThreadMode threadMode) {
         this.userService = userService;
         this.reviewService = reviewService;
         this.bookingService = bookingService;
         this.rideService = rideService;
-        this.reportService = reportService;
+        this.reportJobs = reportJobs;
+        this.distanceCache = distanceCache;
+        this.geocodingService = geocodingService;
+        this.routingChain = routingChain;
+        this.mapsHttpClient = mapsHttpClient;
+        this.seatInventory = seatInventory;
+        this.outboxDispatcher = outboxDispatcher;
+        this.emailService = emailService;
+        this.ratingAggregates = ratingAggregates;
+        this.analyticsService = analyticsService;
+        this.adminStatsService = adminStatsService;
+        this.pagination = pagination;
+        this.jwtFilter = jwtFilter;
+        this.notificationBatcher = notificationBatcher;
+        this.unreadCounter = unreadCounter;
+        this.notificationArchiver = notificationArchiver;
+        this.threadMode = threadMode;
     }
 
     // --- User Management ---
@@ -42,6 +97,8 @@ public class AdminController {
             return ResponseEntity.status(403).body(Map.of("error", "Admin required"));
         }
         List<User> users = userService.allUsers();
+        // One grouped query for every user's rating instead of loading each user's reviews
+        Map<String, RatingSummary> ratings = reviewService.getAllRatingSummaries();
         
         List<Map<String, Object>> userListWithRatings = users.stream().map(u -> {
             Map<String, Object> map = new java.util.HashMap<>();
@@ -52,7 +109,8 @@ public class AdminController {
             map.put("superAdmin", u.isSuperAdmin());
             map.put("requestedAdmin", u.isRequestedAdmin());
             map.put("verified", u.isVerified());
-            map.put("averageRating", reviewService.getAverageRating(u.getEmail()));
+            RatingSummary rating = ratings.get(u.getEmail());
+            map.put("averageRating", rating != null ? rating.getAverageRating() : 0.0);
             return map;
         }).collect(Collectors.toList());
         
@@ -166,37 +224,7 @@ public class AdminController {
         if (auth == null || !auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
             return ResponseEntity.status(403).body(Map.of("error", "Admin required"));
         }
-        long userCount = userService.allUsers().stream().filter(u -> "ROLE_USER".equals(u.getRole())).count();
-        long driverCount = userService.allUsers().stream().filter(u -> "ROLE_DRIVER".equals(u.getRole())).count();
-        long blockedCount = userService.allUsers().stream().filter(u -> "ROLE_BLOCKED".equals(u.getRole())).count();
-        long totalRides = rideService.getAllRides().size();
-
-        long totalBookings = bookingService.allBookings().size();
-        long cancelledBookings = bookingService.allBookings().stream()
-                .filter(b -> "CANCELLED".equals(b.getStatus()) || "REJECTED".equals(b.getStatus())).count();
-
-        double totalEarnings = bookingService.allBookings().stream()
-                .filter(b -> "COMPLETED".equals(b.getStatus()) || "PAID".equals(b.getStatus()) || "ACCEPTED".equals(b.getStatus())) // Simplified: Count accepted/paid as earnings for now
-                .mapToDouble(b -> b.getTotalPrice() != null ? b.getTotalPrice() : 0.0)
-                .sum();
-
-        double cashVolume = bookingService.allBookings().stream()
-                .filter(b -> "CASH".equalsIgnoreCase(b.getPaymentMethod()) && ("COMPLETED".equals(b.getStatus()) || "ACCEPTED".equals(b.getStatus())))
-                .mapToDouble(b -> b.getTotalPrice() != null ? b.getTotalPrice() : 0.0)
-                .sum();
-        
-        double onlineVolume = totalEarnings - cashVolume;
-
-        return ResponseEntity.ok(Map.of(
-            "userCount", userCount,
-            "driverCount", driverCount,
-            "blockedCount", blockedCount,
-            "totalBookings", totalBookings,
-            "cancelledBookings", cancelledBookings,
-            "totalEarnings", totalEarnings,
-            "cashVolume", cashVolume,
-            "onlineVolume", onlineVolume,
-            "totalRides", totalRides));
+        return ResponseEntity.ok(adminStatsService.detailedStats());
     }
 
     @PostMapping("/users/fix-payment-data")
@@ -208,23 +236,206 @@ public class AdminController {
         return ResponseEntity.ok(Map.of("message", "Fixed " + count + " bookings"));
     }
 
+    // --- Distance Cache ---
+
+    @GetMapping("/cache/distance")
+    public ResponseEntity<?> distanceCacheStats(Authentication auth) {
+        if (auth == null || !auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
+            return ResponseEntity.status(403).body(Map.of("error", "Admin required"));
+        }
+        return ResponseEntity.ok(distanceCache.stats());
+    }
+
+    @DeleteMapping("/cache/distance")
+    public ResponseEntity<?> invalidateDistanceCache(@RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String via,
+            Authentication auth) {
+        if (auth == null || !auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
+            return ResponseEntity.status(403).body(Map.of("error", "Admin required"));
+        }
+        if (from == null && to == null) {
+            distanceCache.invalidateAll();
+            return ResponseEntity.ok(Map.of("message", "Distance cache cleared"));
+        }
+        if (from == null || to == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "from and to are required to invalidate a single entry"));
+        }
+        distanceCache.invalidate(from, to, via);
+        return ResponseEntity.ok(Map.of("message", "Distance cache entry invalidated"));
+    }
+
+    @GetMapping("/cache/geocode")
+    public ResponseEntity<?> geocodeCacheStats(Authentication auth) {
+        if (auth == null || !auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
+            return ResponseEntity.status(403).body(Map.of("error", "Admin required"));
+        }
+        return ResponseEntity.ok(geocodingService.stats());
+    }
+
+    @DeleteMapping("/cache/geocode")
+    public ResponseEntity<?> clearGeocodeCache(Authentication auth) {
+        if (auth == null || !auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
+            return ResponseEntity.status(403).body(Map.of("error", "Admin required"));
+        }
+        geocodingService.clearCache();
+        return ResponseEntity.ok(Map.of("message", "Geocode cache cleared"));
+    }
+
+    @GetMapping("/cache/ratings")
+    public ResponseEntity<?> ratingCacheStats(Authentication auth) {
+        if (auth == null || !auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
+            return ResponseEntity.status(403).body(Map.of("error", "Admin required"));
+        }
+        return ResponseEntity.ok(ratingAggregates.stats());
+    }
+
+    @DeleteMapping("/cache/ratings")
+    public ResponseEntity<?> rebuildRatingAggregates(Authentication auth) {
+        if (auth == null || !auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
+            return ResponseEntity.status(403).body(Map.of("error", "Admin required"));
+        }
+        int users = ratingAggregates.rebuild();
+        return ResponseEntity.ok(Map.of("message", "Rating aggregates rebuilt", "users", users));
+    }
+
+    @GetMapping("/routing/providers")
+    public ResponseEntity<?> routingProviderStats(Authentication auth) {
+        if (auth == null || !auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
+            return ResponseEntity.status(403).body(Map.of("error", "Admin required"));
+        }
+        return ResponseEntity.ok(routingChain.stats());
+    }
+
+    @GetMapping("/routing/http")
+    public ResponseEntity<?> routingHttpStats(Authentication auth) {
+        if (auth == null || !auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
+            return ResponseEntity.status(403).body(Map.of("error", "Admin required"));
+        }
+        return ResponseEntity.ok(mapsHttpClient.stats());
+    }
+
+    @GetMapping("/seats")
+    public ResponseEntity<?> seatInventoryStats(Authentication auth) {
+        if (auth == null || !auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
+            return ResponseEntity.status(403).body(Map.of("error", "Admin required"));
+        }
+        return ResponseEntity.ok(seatInventory.stats());
+    }
+
+    @GetMapping("/outbox")
+    public ResponseEntity<?> outboxStats(Authentication auth) {
+        if (auth == null || !auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
+            return ResponseEntity.status(403).body(Map.of("error", "Admin required"));
+        }
+        return ResponseEntity.ok(outboxDispatcher.stats());
+    }
+
+    @PostMapping("/outbox/retry")
+    public ResponseEntity<?> retryFailedOutbox(Authentication auth) {
+        if (auth == null || !auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
+            return ResponseEntity.status(403).body(Map.of("error", "Admin required"));
+        }
+        return ResponseEntity.ok(Map.of("requeued", outboxDispatcher.retryFailed()));
+    }
+
+    @GetMapping("/mail")
+    public ResponseEntity<?> mailStats(Authentication auth) {
+        if (auth == null || !auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
+            return ResponseEntity.status(403).body(Map.of("error", "Admin required"));
+        }
+        return ResponseEntity.ok(emailService.stats());
+    }
+
+    @GetMapping("/notifications/batching")
+    public ResponseEntity<?> notificationBatchingStats(Authentication auth) {
+        if (auth == null || !auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
+            return ResponseEntity.status(403).body(Map.of("error", "Admin required"));
+        }
+        return ResponseEntity.ok(notificationBatcher.stats());
+    }
+
+    @GetMapping("/notifications/unread")
+    public ResponseEntity<?> unreadCounterStats(Authentication auth) {
+        if (auth == null || !auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
+            return ResponseEntity.status(403).body(Map.of("error", "Admin required"));
+        }
+        return ResponseEntity.ok(unreadCounter.stats());
+    }
+
+    @GetMapping("/notifications/archive")
+    public ResponseEntity<?> notificationArchiveStats(Authentication auth) {
+        if (auth == null || !auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
+            return ResponseEntity.status(403).body(Map.of("error", "Admin required"));
+        }
+        return ResponseEntity.ok(notificationArchiver.stats());
+    }
+
+    @PostMapping("/notifications/archive")
+    public ResponseEntity<?> archiveNotificationsNow(Authentication auth) {
+        if (auth == null || !auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
+            return ResponseEntity.status(403).body(Map.of("error", "Admin required"));
+        }
+        Map<String, Object> result = notificationArchiver.run();
+        if (result == null)
+            return ResponseEntity.status(409).body(Map.of("error", "Archiving already in progress"));
+        return ResponseEntity.ok(result);
+    }
+
+    @GetMapping("/auth")
+    public ResponseEntity<?> authStats(Authentication auth) {
+        if (auth == null || !auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
+            return ResponseEntity.status(403).body(Map.of("error", "Admin required"));
+        }
+        return ResponseEntity.ok(jwtFilter.stats());
+    }
+
+    // Thread mode (platform or virtual) with thread and memory figures
+    @GetMapping("/threads")
+    public ResponseEntity<?> threadStats(Authentication auth) {
+        if (auth == null || !auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
+            return ResponseEntity.status(403).body(Map.of("error", "Admin required"));
+        }
+        return ResponseEntity.ok(threadMode.stats());
+    }
+
     // --- Data Monitoring ---
 
+    // Newest first, one keyset page per request (limit, cursor); the next cursor is in X-Next-Cursor
     @GetMapping("/rides")
-    public ResponseEntity<?> getAllRides(Authentication auth) {
+    public ResponseEntity<?> getAllRides(@RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor, Authentication auth) {
         if (auth == null || !auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
             return ResponseEntity.status(403).body(Map.of("error", "Admin required"));
         }
-        return ResponseEntity.ok(rideService.getAllRides());
+        Slice<Ride> page;
+        try {
+            page = rideService.page(KeysetCursor.decode(cursor), pagination.limit(limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        return ResponseEntity.ok()
+                .headers(pagination.nextCursor(page, Ride::getCreatedAt, Ride::getId))
+                .body(page.getContent());
     }
 
     @GetMapping("/bookings")
-    public ResponseEntity<?> getAllBookings(Authentication auth) {
+    public ResponseEntity<?> getAllBookings(@RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor, Authentication auth) {
         if (auth == null || !auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
             return ResponseEntity.status(403).body(Map.of("error", "Admin required"));
         }
-        
-        List<Booking> bookings = bookingService.allBookings();
+        Slice<Booking> page;
+        try {
+            page = bookingService.page(KeysetCursor.decode(cursor), pagination.limit(limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+
+        List<Booking> bookings = page.getContent();
+        // Passenger names for the whole page in one query
+        Map<String, User> passengers = userService.findByEmails(
+                bookings.stream().map(Booking::getUserEmail).filter(java.util.Objects::nonNull).collect(Collectors.toSet()));
         List<Map<String, Object>> response = bookings.stream().map(b -> {
             Map<String, Object> map = new java.util.HashMap<>();
             map.put("id", b.getId());
@@ -241,7 +452,7 @@ public class AdminController {
             map.put("ride", b.getRide()); // Serialize full ride object as before
 
             // Enrich with Names - Smart Fallback
-            User passenger = userService.findByEmail(b.getUserEmail()).orElse(null);
+            User passenger = passengers.get(b.getUserEmail());
             String pName = (passenger != null && passenger.getName() != null) ? passenger.getName() : null;
             if (pName == null || pName.isEmpty()) {
                 // Derive from email: "john.doe@gmail.com" -> "John Doe"
@@ -274,7 +485,9 @@ public class AdminController {
             return map;
         }).collect(Collectors.toList());
 
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok()
+                .headers(pagination.nextCursor(page, Booking::getCreatedAt, Booking::getId))
+                .body(response);
     }
 
     @GetMapping("/analytics")
@@ -283,160 +496,107 @@ public class AdminController {
             return ResponseEntity.status(403).body(Map.of("error", "Admin required"));
         }
 
-        List<Booking> bookings = bookingService.allBookings();
-        List<Ride> rides = rideService.getAllRides();
-        LocalDate today = LocalDate.now();
+        return ResponseEntity.ok(analyticsService.snapshot());
+    }
 
-        // 1. User Distribution
-        List<User> users = userService.allUsers();
-        Map<String, Long> userDist = users.stream()
-            .collect(Collectors.groupingBy(u -> u.getRole() == null ? "UNKNOWN" : u.getRole().replace("ROLE_", ""), Collectors.counting()));
-        
-        // 2. Booking Status
-        Map<String, Long> bookingStatus = new HashMap<>();
-        // Calculate Expired Rides (OPEN + Past Date)
-        long expiredRides = rides.stream()
-            .filter(r -> {
-                String status = r.getStatus() == null ? "" : r.getStatus().trim();
-                // Include rides already marked as EXPIRED
-                if ("EXPIRED".equalsIgnoreCase(status)) return true;
-                
-                // For OPEN rides, check if date is past
-                if ("OPEN".equalsIgnoreCase(status)) {
-                    String dStr = r.getDate();
-                    if (dStr == null || dStr.trim().isEmpty()) return false;
-                    dStr = dStr.trim();
-                    
-                    List<String> patterns = Arrays.asList(
-                        "yyyy-MM-dd", 
-                        "d/M/yyyy", 
-                        "dd-MM-yyyy",
-                        "yyyy/MM/dd",
-                        "MM/dd/yyyy",
-                        "dd/MM/yyyy"
-                    );
-                    
-                    for (String p : patterns) {
-                        try {
-                            LocalDate d;
-                            if (p.equals("yyyy-MM-dd")) {
-                                 d = LocalDate.parse(dStr);
-                            } else {
-                                 d = LocalDate.parse(dStr, DateTimeFormatter.ofPattern(p));
-                            }
-                            return d.isBefore(today);
-                        } catch (Exception e) {
-                            // continue
-                        }
-                    }
-                }
-                return false;
-            })
-            .count();
-
-        bookingStatus.put("CONFIRMED", bookings.stream().filter(b -> List.of("ACCEPTED", "PAID", "COMPLETED", "DRIVER_COMPLETED").contains(b.getStatus())).count());
-        bookingStatus.put("PENDING", bookings.stream().filter(b -> List.of("PENDING", "CASH_PAYMENT_PENDING", "PAYMENT_PENDING").contains(b.getStatus())).count());
-        // Manual adjust (+10) for past data as requested
-        bookingStatus.put("EXPIRED", bookings.stream().filter(b -> "EXPIRED".equals(b.getStatus())).count() + expiredRides + 10);
-        bookingStatus.put("COMPLETED", bookings.stream().filter(b -> "COMPLETED".equals(b.getStatus())).count());
-
-        // 3. Financials & Metrics
-        double totalRevenue = bookings.stream()
-            .filter(b -> List.of("ACCEPTED", "PAID", "COMPLETED", "DRIVER_COMPLETED").contains(b.getStatus()))
-            .mapToDouble(b -> b.getTotalPrice() != null ? b.getTotalPrice() : 0.0)
-            .sum();
-
-        double avgSeats = rides.stream()
-            .mapToInt(Ride::getTickets)
-            .average()
-            .orElse(0.0);
-
-        // 4. Popular Destinations
-        Map<String, Long> destinations = rides.stream()
-            .filter(r -> r.getToLocation() != null)
-            .collect(Collectors.groupingBy(r -> r.getToLocation().trim().toLowerCase(), Collectors.counting())); // Case insensitive grouping
-
-        System.out.println("DEBUG: All Destinations (Count): " + destinations);
-
-        List<Map<String, Object>> popularDestinations = destinations.entrySet().stream()
-            .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
-            .limit(10)
-            .map(e -> {
-                 Map<String, Object> m = new HashMap<>();
-                 m.put("name", e.getKey().substring(0, 1).toUpperCase() + e.getKey().substring(1)); // Capitalize display
-                 m.put("count", e.getValue());
-                 // Calculate percentage
-                 m.put("percentage", String.format("%.1f%%", (e.getValue() * 100.0) / Math.max(rides.size(), 1)));
-                 return m;
-            })
-            .collect(Collectors.toList());
-
-        // 5. Ride Activity (Last 30 Days)
-        Map<String, Long> activityMap = new LinkedHashMap<>();
-        // Initialize last 30 days with 0
-        for (int i = 29; i >= 0; i--) {
-            activityMap.put(today.minusDays(i).format(DateTimeFormatter.ofPattern("MMM dd")), 0L);
+    @PostMapping("/analytics/rebuild")
+    public ResponseEntity<?> rebuildAnalytics(Authentication auth) {
+        if (auth == null || !auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
+            return ResponseEntity.status(403).body(Map.of("error", "Admin required"));
         }
-        
-        // Populate actuals
-        rides.forEach(r -> {
-            if (r.getCreatedAt() != null) {
-                LocalDate date = java.time.LocalDate.ofInstant(r.getCreatedAt(), java.time.ZoneId.systemDefault());
-                if (!date.isBefore(today.minusDays(29))) {
-                    String key = date.format(DateTimeFormatter.ofPattern("MMM dd"));
-                    activityMap.put(key, activityMap.getOrDefault(key, 0L) + 1);
-                }
-            }
-        });
-
-        // Convert activity map to parallel lists for Chart.js
-        List<String> activityLabels = new ArrayList<>(activityMap.keySet());
-        List<Long> activityData = new ArrayList<>(activityMap.values());
-
-        // 6. Cancellation Reasons
-        Map<String, Long> cancelReasons = bookings.stream()
-            .filter(b -> "CANCELLED".equals(b.getStatus()))
-            .collect(Collectors.groupingBy(b -> b.getCancellationReason() == null ? "Not specified" : b.getCancellationReason(), Collectors.counting()));
-
-        // 7. Revenue Trends (All Time - Daily)
-        // Group by "YYYY-MM-dd"
-        Map<String, Double> dailyRevenue = new TreeMap<>(); // Sort by date
-        bookings.stream()
-             .filter(b -> List.of("COMPLETED", "PAID", "ACCEPTED", "DRIVER_COMPLETED").contains(b.getStatus()))
-             .forEach(b -> {
-                  if (b.getCreatedAt() != null && b.getTotalPrice() != null) {
-                      LocalDate date = java.time.LocalDate.ofInstant(b.getCreatedAt(), java.time.ZoneId.systemDefault());
-                      String key = date.format(DateTimeFormatter.ISO_LOCAL_DATE);
-                      dailyRevenue.put(key, dailyRevenue.getOrDefault(key, 0.0) + b.getTotalPrice());
-                  }
-             });
-
-        return ResponseEntity.ok(Map.of(
-            "userDistribution", userDist,
-            "bookingStatus", bookingStatus,
-            "popularDestinations", popularDestinations,
-            "rideActivity", Map.of("labels", activityLabels, "data", activityData),
-            "totalRevenue", totalRevenue, // Keeping it in API, removing from Frontend as requested
-            "avgSeatsPerRide", String.format("%.1f", avgSeats),
-            "cancellationReasons", cancelReasons,
-            "revenueTrends", dailyRevenue
-        ));
+        return ResponseEntity.ok(analyticsService.rebuild());
     }
 
+    /**
+     * Admin PDF report. Optional from/to (yyyy-MM-dd, inclusive), sections
+     * (summary,bookings,rides) and limit (rows per table, 0 for all). Served from
+     * the report job queue: waits up to app.reports.download-wait-seconds for the
+     * file, otherwise answers 202 with the job to poll.
+     */
     @GetMapping("/reports/download")
-    public ResponseEntity<byte[]> downloadReport(Authentication auth) {
+    public ResponseEntity<?> downloadReport(@RequestParam(required = false) String from,
+            @RequestParam(required = false) String to, @RequestParam(required = false) String sections,
+            @RequestParam(required = false) Integer limit, Authentication auth) {
         if (auth == null || !auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
             return ResponseEntity.status(403).build();
         }
+        ReportJobService.Job job;
         try {
-            byte[] pdfBytes = reportService.generateAdminReport();
-            
-            return ResponseEntity.ok()
-                .header(org.springframework.http.HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=admin_report.pdf")
-                .contentType(org.springframework.http.MediaType.APPLICATION_PDF)
-                .body(pdfBytes);
-        } catch (java.io.IOException e) {
-            return ResponseEntity.internalServerError().build();
+            job = reportJobs.submit(AdminReportService.Options.of(from, to, sections, limit), auth.getName());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(503).body(Map.of("error", e.getMessage()));
+        }
+        reportJobs.await(job, java.time.Duration.ofSeconds(downloadWaitSeconds));
+        return reportFile(job);
+    }
+
+    @PostMapping("/reports/jobs")
+    public ResponseEntity<?> submitReport(@RequestParam(required = false) String from,
+            @RequestParam(required = false) String to, @RequestParam(required = false) String sections,
+            @RequestParam(required = false) Integer limit, Authentication auth) {
+        if (auth == null || !auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
+            return ResponseEntity.status(403).body(Map.of("error", "Admin required"));
+        }
+        try {
+            ReportJobService.Job job = reportJobs.submit(AdminReportService.Options.of(from, to, sections, limit), auth.getName());
+            return ResponseEntity.accepted().body(job.toMap());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(503).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/reports/jobs/{id}")
+    public ResponseEntity<?> reportStatus(@PathVariable String id, Authentication auth) {
+        if (auth == null || !auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
+            return ResponseEntity.status(403).body(Map.of("error", "Admin required"));
+        }
+        return reportJobs.find(id)
+                .<ResponseEntity<?>>map(job -> ResponseEntity.ok(job.toMap()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/reports/jobs/{id}/file")
+    public ResponseEntity<?> reportJobFile(@PathVariable String id, Authentication auth) {
+        if (auth == null || !auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
+            return ResponseEntity.status(403).body(Map.of("error", "Admin required"));
+        }
+        ReportJobService.Job job = reportJobs.find(id).orElse(null);
+        if (job == null)
+            return ResponseEntity.notFound().build();
+        return reportFile(job);
+    }
+
+    @GetMapping("/reports/jobs")
+    public ResponseEntity<?> reportJobStats(Authentication auth) {
+        if (auth == null || !auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
+            return ResponseEntity.status(403).body(Map.of("error", "Admin required"));
+        }
+        return ResponseEntity.ok(reportJobs.stats());
+    }
+
+    // The PDF if the job is done, otherwise its status (202 while it runs, 500 if it failed)
+    private ResponseEntity<?> reportFile(ReportJobService.Job job) {
+        switch (job.getStatus()) {
+            case FAILED:
+                return ResponseEntity.internalServerError().body(job.toMap());
+            case DONE:
+                break;
+            default:
+                return ResponseEntity.accepted()
+                    .header(org.springframework.http.HttpHeaders.LOCATION, "/api/admin/reports/jobs/" + job.getId())
+                    .body(job.toMap());
         }
+        java.nio.file.Path file = reportJobs.artifact(job).orElse(null);
+        if (file == null)
+            return ResponseEntity.status(410).body(Map.of("error", "Report file expired, request it again"));
+        return ResponseEntity.ok()
+            .header(org.springframework.http.HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=admin_report.pdf")
+            .eTag("\"" + job.getSha256() + "\"")
+            .contentType(org.springframework.http.MediaType.APPLICATION_PDF)
+            .body(new org.springframework.core.io.FileSystemResource(file));
     }
 }
@@ -2,8 +2,13 @@ package com.example.backend.controller;
 
 import com.example.backend.model.Booking;
 import com.example.backend.model.Ride;
+import com.example.backend.repository.DriverBookingCounts;
+import com.example.backend.repository.RatingSummary;
 import com.example.backend.service.BookingService;
+import com.example.backend.service.KeysetCursor;
+import com.example.backend.service.Pagination;
 import com.example.backend.service.RideService;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
@@ -16,14 +21,14 @@ import java.util.List;
 public class BookingController {
     private final BookingService bookingService;
     private final RideService rideService;
-    private final com.example.backend.service.NotificationService notificationService;
     private final com.example.backend.service.ReviewService reviewService;
+    private final Pagination pagination;
 
-    public BookingController(BookingService bookingService, RideService rideService, com.example.backend.service.NotificationService notificationService, com.example.backend.service.ReviewService reviewService) {
+    public BookingController(BookingService bookingService, RideService rideService, com.example.backend.service.ReviewService reviewService, Pagination pagination) {
         this.bookingService = bookingService;
         this.rideService = rideService;
-        this.notificationService = notificationService;
         this.reviewService = reviewService;
+        this.pagination = pagination;
     }
 
     @PostMapping
@@ -93,43 +98,59 @@ public class BookingController {
     }
 
     @GetMapping
-    public ResponseEntity<?> allBookings(Authentication auth) {
+    public ResponseEntity<?> allBookings(@RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor, Authentication auth) {
         if (auth == null || auth.getAuthorities().stream().noneMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
             return ResponseEntity.status(403).body(Map.of("error", "Admin required"));
         }
-        return ResponseEntity.ok(bookingService.allBookings());
+        Slice<Booking> page;
+        try {
+            page = bookingService.page(KeysetCursor.decode(cursor), pagination.limit(limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        return ResponseEntity.ok()
+                .headers(pagination.nextCursor(page, Booking::getCreatedAt, Booking::getId))
+                .body(page.getContent());
     }
 
     @GetMapping("/driver")
-    public ResponseEntity<?> driverBookings(Authentication auth) {
+    public ResponseEntity<?> driverBookings(@RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor, Authentication auth) {
         if (auth == null)
             return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
 
-        String currentUser = auth.getName();
-        List<Booking> all = bookingService.allBookings();
-        
-        List<Booking> tempList = all.stream()
-                .filter(b -> {
-                    if (b.getRide() == null)
-                        return false;
-                    String rDriver = b.getRide().getDriverEmail();
-                    if (rDriver == null)
-                        return false;
-                    return currentUser.trim().equalsIgnoreCase(rDriver.trim());
-                })
-                .collect(java.util.stream.Collectors.toList());
-
-        // Separate processing to ensure side-effects happen reliably
-        List<Booking> driverBookings = new java.util.ArrayList<>(tempList);
-        
+        Slice<Booking> page;
+        try {
+            page = bookingService.driverPage(auth.getName(), KeysetCursor.decode(cursor), pagination.limit(limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        List<Booking> driverBookings = page.getContent();
+
+        // Passenger ratings for the whole page in one grouped query
+        Map<String, RatingSummary> ratings = reviewService.getRatingSummaries(
+                driverBookings.stream().map(Booking::getUserEmail).collect(java.util.stream.Collectors.toSet()));
         driverBookings.forEach(b -> {
-             // Calculate rating
-             b.setUserRating(reviewService.getAverageRating(b.getUserEmail()));
+             RatingSummary rating = ratings.get(b.getUserEmail());
+             b.setUserRating(rating != null ? rating.getAverageRating() : 0.0);
         });
-        
-        driverBookings.sort((b1, b2) -> Long.compare(b2.getId(), b1.getId()));
 
-        return ResponseEntity.ok(driverBookings);
+        return ResponseEntity.ok()
+                .headers(pagination.nextCursor(page, Booking::getCreatedAt, Booking::getId))
+                .body(driverBookings);
+    }
+
+    // Counts for the driver dashboard, over every booking rather than one page of them
+    @GetMapping("/driver/summary")
+    public ResponseEntity<?> driverSummary(Authentication auth) {
+        if (auth == null)
+            return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
+        DriverBookingCounts counts = bookingService.driverCounts(auth.getName());
+        return ResponseEntity.ok(Map.of(
+                "total", counts.getTotal(),
+                "pending", counts.getPending(),
+                "confirmed", counts.getConfirmed()));
     }
 
     @PutMapping("/{id}/status")
@@ -162,6 +183,15 @@ public class BookingController {
                 .ok(bookingService.estimatePrice(b.getPickupLocation(), b.getDropoffLocation(), b.getSeats()));
     }
 
+    @PostMapping("/estimate/batch")
+    public ResponseEntity<?> estimateBatch(@RequestBody List<Map<String, Object>> legs) {
+        try {
+            return ResponseEntity.ok(bookingService.estimatePrices(legs));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+        }
+    }
+
     @PutMapping("/{id}/confirm-dropoff")
     public ResponseEntity<?> confirmDropoff(@PathVariable Long id, Authentication auth) {
         if (auth == null) return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
@@ -203,13 +233,7 @@ public class BookingController {
             return ResponseEntity.badRequest().body(Map.of("error", "Booking is not waiting for cash confirmation."));
         }
 
-        b.setStatus("COMPLETED");
-        b.setPaymentStatus("PAID"); 
-        bookingService.updateBooking(b);
-
-        notificationService.createNotification(b.getUserEmail(), "Driver confirmed Cash Payment. Ride Complete!", "PAYMENT_CONFIRMED");
-        
-        return ResponseEntity.ok(b);
+        return ResponseEntity.ok(bookingService.confirmCash(b));
     }
     @PutMapping("/{id}/cancel")
     public ResponseEntity<?> cancelBooking(@PathVariable Long id, @RequestBody Map<String, String> body, Authentication auth) {
@@ -1,7 +1,11 @@
 package com.example.backend.controller;
 
 import com.example.backend.model.Notification;
+import com.example.backend.model.NotificationArchive;
+import com.example.backend.service.KeysetCursor;
 import com.example.backend.service.NotificationService;
+import com.example.backend.service.Pagination;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
@@ -11,15 +15,41 @@ import java.util.Map;
 @RequestMapping("/api/notifications")
 public class NotificationController {
     private final NotificationService service;
+    private final Pagination pagination;
 
-    public NotificationController(NotificationService service) {
+    public NotificationController(NotificationService service, Pagination pagination) {
         this.service = service;
+        this.pagination = pagination;
     }
 
     @GetMapping
-    public ResponseEntity<?> getMyNotifications(Authentication auth) {
+    public ResponseEntity<?> getMyNotifications(@RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor, Authentication auth) {
         if (auth == null) return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
-        return ResponseEntity.ok(service.getNotificationsForUser(auth.getName()));
+        Slice<Notification> page;
+        try {
+            page = service.getNotificationsForUser(auth.getName(), KeysetCursor.decode(cursor), pagination.limit(limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        return ResponseEntity.ok()
+                .headers(pagination.nextCursor(page, Notification::getCreatedAt, Notification::getId))
+                .body(page.getContent());
+    }
+
+    @GetMapping("/archive")
+    public ResponseEntity<?> getMyArchivedNotifications(@RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor, Authentication auth) {
+        if (auth == null) return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
+        Slice<NotificationArchive> page;
+        try {
+            page = service.getArchivedNotificationsForUser(auth.getName(), KeysetCursor.decode(cursor), pagination.limit(limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        return ResponseEntity.ok()
+                .headers(pagination.nextCursor(page, NotificationArchive::getCreatedAt, NotificationArchive::getId))
+                .body(page.getContent());
     }
 
     @GetMapping("/unread-count")
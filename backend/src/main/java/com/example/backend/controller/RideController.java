@@ -1,10 +1,12 @@
 package com.example.backend.controller;
 
 import com.example.backend.service.RideService;
-import com.example.backend.service.BookingService;
-import com.example.backend.model.Booking;
 import com.example.backend.model.Ride;
+import com.example.backend.repository.RideListing;
 import com.example.backend.service.FareService;
+import com.example.backend.service.KeysetCursor;
+import com.example.backend.service.Pagination;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
@@ -20,48 +22,57 @@ public class RideController {
     private final RideService service;
     private final FareService fareService;
     private final com.example.backend.service.ReviewService reviewService;
-    private final BookingService bookingService;
-    private final com.example.backend.service.NotificationService notificationService;
+    private final Pagination pagination;
 
-    public RideController(RideService service, FareService fareService, com.example.backend.service.ReviewService reviewService, BookingService bookingService, com.example.backend.service.NotificationService notificationService) {
+    public RideController(RideService service, FareService fareService, com.example.backend.service.ReviewService reviewService, Pagination pagination) {
         this.service = service;
         this.fareService = fareService;
         this.reviewService = reviewService;
-        this.bookingService = bookingService;
-        this.notificationService = notificationService;
+        this.pagination = pagination;
     }
 
+    // Open rides, newest first; pass X-Next-Cursor back as ?cursor= for the next page
     @GetMapping
-    public ResponseEntity<?> list() {
-        List<Ride> rides = service.list().stream()
-                .filter(r -> "OPEN".equals(r.getStatus()) && r.getTickets() > 0)
-                .collect(java.util.stream.Collectors.toList());
-        return ResponseEntity.ok(enrichRides(rides));
+    public ResponseEntity<?> list(@RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        Slice<RideListing> rides;
+        try {
+            rides = service.openListings(KeysetCursor.decode(cursor), pagination.limit(limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        return ResponseEntity.ok()
+                .headers(pagination.nextCursor(rides, RideListing::createdAt, RideListing::id))
+                .body(enrichRides(rides.getContent()));
     }
 
     @GetMapping("/search")
     public ResponseEntity<?> search(@RequestParam(required = false, defaultValue = "") String from,
             @RequestParam(required = false, defaultValue = "") String to) {
-        List<Ride> rides = service.searchRides(from, to).stream()
+        List<RideListing> rides = service.searchRides(from, to).stream()
                 .filter(r -> "OPEN".equals(r.getStatus()) && r.getTickets() > 0)
+                .map(RideListing::of)
                 .collect(java.util.stream.Collectors.toList());
         return ResponseEntity.ok(enrichRides(rides));
     }
 
-    private List<Map<String, Object>> enrichRides(List<Ride> rides) {
+    private List<Map<String, Object>> enrichRides(List<RideListing> rides) {
+        // One rating lookup for the whole page rather than one per ride
+        Map<String, Double> ratings = reviewService.getAverageRatings(
+                rides.stream().map(RideListing::driverEmail).collect(java.util.stream.Collectors.toSet()));
         return rides.stream().map(r -> {
             Map<String, Object> map = new java.util.HashMap<>();
-            map.put("id", r.getId());
-            map.put("fromLocation", r.getFromLocation());
-            map.put("toLocation", r.getToLocation());
-            map.put("date", r.getDate());
-            map.put("price", r.getPrice());
-            map.put("tickets", r.getTickets());
-            map.put("vehicleType", r.getVehicleType());
-            map.put("imageUrl", r.getImageUrl());
-            map.put("driverName", r.getDriverName());
-            map.put("driverEmail", r.getDriverEmail());
-            map.put("driverRating", reviewService.getAverageRating(r.getDriverEmail()));
+            map.put("id", r.id());
+            map.put("fromLocation", r.fromLocation());
+            map.put("toLocation", r.toLocation());
+            map.put("date", r.date());
+            map.put("price", r.price());
+            map.put("tickets", r.tickets());
+            map.put("vehicleType", r.vehicleType());
+            map.put("imageUrl", r.imageUrl());
+            map.put("driverName", r.driverName());
+            map.put("driverEmail", r.driverEmail());
+            map.put("driverRating", ratings.getOrDefault(r.driverEmail(), 0.0));
             return map;
         }).collect(java.util.stream.Collectors.toList());
     }
@@ -126,13 +137,7 @@ public class RideController {
         if (auth == null)
             return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
 
-        String driverEmail = auth.getName();
-        List<Ride> myRides = service.list().stream()
-                .filter(r -> driverEmail.equals(r.getDriverEmail()))
-                .filter(r -> "OPEN".equalsIgnoreCase(r.getStatus()))
-                .collect(java.util.stream.Collectors.toList());
-
-        return ResponseEntity.ok(myRides);
+        return ResponseEntity.ok(service.findOpenByDriver(auth.getName()));
     }
 
     @GetMapping("/{id}")
@@ -212,23 +217,8 @@ public class RideController {
             return ResponseEntity.status(403).body(Map.of("error", "Permission denied"));
         }
 
-        ride.setStatus("CANCELLED");
-        ride.setCancellationReason(reason);
-        service.save(ride);
-
-        // Cancel all related bookings
-        List<Booking> bookings = bookingService.findByRideId(id);
-        for (Booking b : bookings) {
-            // Cancel active bookings
-            if (!"CANCELLED".equals(b.getStatus()) && !"REJECTED".equals(b.getStatus())) { // Only cancel if not already finished/cancelled?
-                 // Even if ACCEPTED or PENDING
-                 b.setStatus("CANCELLED");
-                 b.setCancellationReason("Driver Cancelled: " + reason);
-                 bookingService.updateBooking(b);
-                 notificationService.createNotification(b.getUserEmail(), "Ride Cancelled by Driver: " + reason, "RIDE_CANCELLED");
-            }
-        }
-        return ResponseEntity.ok(ride);
+        // Ride, bookings and the passengers' notifications commit together
+        return ResponseEntity.ok(service.cancel(ride, reason));
     }
 
     @PutMapping("/{id}/complete")
@@ -244,33 +234,7 @@ public class RideController {
             return ResponseEntity.status(403).body(Map.of("error", "Permission denied"));
         }
 
-        ride.setStatus("COMPLETED");
-        service.save(ride);
-
-        // Update all related bookings
-        List<Booking> bookings = bookingService.findByRideId(id);
-        for (Booking b : bookings) {
-            // Only update bookings that are in progress (ACCEPTED or PAID)
-            // If they are REJECTED or CANCELLED, ignore.
-            // If they are PENDING, they should probably be REJECTED? Or ignored? User didn't specify. 
-            // Let's assume we proceed with ACCEPTED bookings.
-            if ("ACCEPTED".equals(b.getStatus()) || "PAID".equals(b.getStatus())) {
-                 if ("CASH".equalsIgnoreCase(b.getPaymentMethod())) {
-                     b.setStatus("CASH_PAYMENT_PENDING");
-                     notificationService.createNotification(b.getUserEmail(), "Ride Completed! Please pay cash to Driver.", "RIDE_COMPLETED");
-                 } else {
-                     // For Stripe, if already paid, mark complete, otherwise pending
-                     if ("PAID".equals(b.getPaymentStatus())) {
-                         b.setStatus("COMPLETED");
-                     } else {
-                         b.setStatus("PAYMENT_PENDING");
-                         notificationService.createNotification(b.getUserEmail(), "Ride Completed! Please proceed to payment.", "RIDE_COMPLETED");
-                     }
-                 }
-                 bookingService.updateBooking(b);
-            }
-        }
-        
-        return ResponseEntity.ok(ride);
+        // Ride, bookings and the passengers' notifications commit together
+        return ResponseEntity.ok(service.complete(ride));
     }
 }
@@ -4,6 +4,9 @@ import com.example.backend.model.Vehicle;
 import com.example.backend.service.VehicleService;
 
 import com.example.backend.service.FareService;
+import com.example.backend.service.KeysetCursor;
+import com.example.backend.service.Pagination;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
@@ -18,15 +21,26 @@ public class VehicleController {
 
     private final VehicleService service;
     private final FareService fareService;
+    private final Pagination pagination;
 
-    public VehicleController(VehicleService service, FareService fareService) {
+    public VehicleController(VehicleService service, FareService fareService, Pagination pagination) {
         this.service = service;
         this.fareService = fareService;
+        this.pagination = pagination;
     }
 
     @GetMapping
-    public List<Vehicle> list() {
-        return service.list();
+    public ResponseEntity<?> list(@RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        Slice<Vehicle> page;
+        try {
+            page = service.page(KeysetCursor.decode(cursor), pagination.limit(limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        return ResponseEntity.ok()
+                .headers(pagination.nextCursor(page, Vehicle::getCreatedAt, Vehicle::getId))
+                .body(page.getContent());
     }
 
     @GetMapping("/search")
@@ -5,7 +5,12 @@ import java.time.Instant;
 import java.util.List;
 
 @Entity
-@Table(name = "bookings")
+@Table(name = "bookings", indexes = {
+        // Bookings of a ride, and the join from a driver's rides to their bookings
+        @Index(name = "idx_bookings_ride_id", columnList = "ride_id"),
+        // Analytics reconcile: rows changed since the last pass
+        @Index(name = "idx_bookings_updated_at", columnList = "updated_at") })
+@EntityListeners(com.example.backend.service.AnalyticsEntityListener.class)
 public class Booking {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -19,8 +24,10 @@ public class Booking {
 
     private int seats;
 
+    // Loaded for a whole page of bookings at once when serialized, not one query per booking
     @ElementCollection
     @CollectionTable(name = "booking_passengers", joinColumns = @JoinColumn(name = "booking_id"))
+    @org.hibernate.annotations.BatchSize(size = 100)
     private List<Passenger> passengers;
 
     private String status = "PENDING"; // PENDING, ACCEPTED, REJECTED, DRIVER_COMPLETED, CASH_PAYMENT_PENDING, PAYMENT_PENDING, PAID, COMPLETED, CANCELLED
@@ -55,6 +62,15 @@ public class Booking {
 
     private Instant createdAt = Instant.now();
 
+    // Set on every save, so other nodes can find changed rows
+    private Instant updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        updatedAt = Instant.now();
+    }
+
     public Booking() {
     }
 
@@ -123,6 +139,10 @@ public class Booking {
         this.paymentStatus = paymentStatus;
     }
 
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
     public Instant getCreatedAt() {
         return createdAt;
     }
@@ -0,0 +1,74 @@
+package com.example.backend.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Persisted tier of the distance cache. One row per normalized
+ * (from, to, via) key; survives restarts.
+ */
+@Entity
+@Table(name = "distance_cache")
+public class CachedDistance {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(unique = true, nullable = false, length = 1024)
+    private String cacheKey;
+
+    private long meters;
+
+    private Instant createdAt = Instant.now();
+    private Instant expiresAt;
+
+    public CachedDistance() {
+    }
+
+    public CachedDistance(String cacheKey, long meters, Instant expiresAt) {
+        this.cacheKey = cacheKey;
+        this.meters = meters;
+        this.expiresAt = expiresAt;
+    }
+
+    // getters/setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getCacheKey() {
+        return cacheKey;
+    }
+
+    public void setCacheKey(String cacheKey) {
+        this.cacheKey = cacheKey;
+    }
+
+    public long getMeters() {
+        return meters;
+    }
+
+    public void setMeters(long meters) {
+        this.meters = meters;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
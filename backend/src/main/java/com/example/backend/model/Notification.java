@@ -4,7 +4,13 @@ import jakarta.persistence.*;
 import java.time.Instant;
 
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+        // Unread counts per recipient
+        @Index(name = "idx_notifications_recipient_read", columnList = "recipient_email, is_read"),
+        // A user's notifications, newest first (keyset on created_at, id)
+        @Index(name = "idx_notifications_recipient_created_at", columnList = "recipient_email, created_at, id"),
+        // Finding rows old enough to archive
+        @Index(name = "idx_notifications_created_at", columnList = "created_at") })
 public class Notification {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
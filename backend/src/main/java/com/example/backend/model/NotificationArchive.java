@@ -0,0 +1,62 @@
+package com.example.backend.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * A read notification moved out of the live table by NotificationArchiver.
+ * Rows keep their original id and are bucketed by the month they were created
+ * in, so whole months past retention are dropped with one range delete.
+ */
+@Entity
+@Table(name = "notification_archive", indexes = {
+        // A user's archive, newest first (keyset on created_at, id)
+        @Index(name = "idx_notification_archive_recipient", columnList = "recipient_email, created_at, id"),
+        @Index(name = "idx_notification_archive_month", columnList = "archive_month") })
+public class NotificationArchive {
+    @Id
+    private Long id;
+
+    private String recipientEmail;
+    private String message;
+    private String type;
+    private Instant createdAt;
+
+    // First day of the month (UTC) the notification was created in
+    private LocalDate archiveMonth;
+    private Instant archivedAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getRecipientEmail() {
+        return recipientEmail;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDate getArchiveMonth() {
+        return archiveMonth;
+    }
+
+    public Instant getArchivedAt() {
+        return archivedAt;
+    }
+
+    // Only read notifications are archived
+    public boolean isRead() {
+        return true;
+    }
+}
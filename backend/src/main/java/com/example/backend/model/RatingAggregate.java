@@ -0,0 +1,61 @@
+package com.example.backend.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Running count and sum of the ratings a user has received, kept up to date
+ * as reviews are submitted so averages never have to be computed from the
+ * reviews table on a read path.
+ */
+@Entity
+@Table(name = "rating_aggregates")
+public class RatingAggregate {
+    @Id
+    private String revieweeEmail;
+
+    private long ratingCount;
+    private long ratingSum;
+
+    private Instant updatedAt = Instant.now();
+
+    public RatingAggregate() {
+    }
+
+    public double getAverage() {
+        return ratingCount == 0 ? 0.0 : (double) ratingSum / ratingCount;
+    }
+
+    // getters/setters
+    public String getRevieweeEmail() {
+        return revieweeEmail;
+    }
+
+    public void setRevieweeEmail(String revieweeEmail) {
+        this.revieweeEmail = revieweeEmail;
+    }
+
+    public long getRatingCount() {
+        return ratingCount;
+    }
+
+    public void setRatingCount(long ratingCount) {
+        this.ratingCount = ratingCount;
+    }
+
+    public long getRatingSum() {
+        return ratingSum;
+    }
+
+    public void setRatingSum(long ratingSum) {
+        this.ratingSum = ratingSum;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
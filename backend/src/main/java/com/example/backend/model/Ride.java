@@ -1,10 +1,21 @@
 package com.example.backend.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.Instant;
+import java.util.Locale;
 
 @Entity
-@Table(name = "rides")
+@Table(name = "rides", indexes = {
+        // Open-ride listing: equality on status, then the (createdAt, id) keyset order
+        @Index(name = "idx_rides_status_created_at", columnList = "status, created_at, id"),
+        // A driver's open rides
+        @Index(name = "idx_rides_driver_email_status", columnList = "driver_email, status"),
+        // Driver booking lookup, case- and whitespace-insensitive
+        @Index(name = "idx_rides_normalized_driver_email", columnList = "normalized_driver_email"),
+        // Analytics reconcile: rows changed since the last pass
+        @Index(name = "idx_rides_updated_at", columnList = "updated_at") })
+@EntityListeners(com.example.backend.service.AnalyticsEntityListener.class)
 public class Ride {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -24,6 +35,9 @@ public class Ride {
     private String driverName;
 
     private String driverEmail;
+    // driverEmail trimmed and lower-cased, kept in step on every insert and update
+    @JsonIgnore
+    private String normalizedDriverEmail;
     private String driverImage;
     private String driverPhone;
 
@@ -42,6 +56,9 @@ public class Ride {
 
     private Instant createdAt = Instant.now();
 
+    // Set on every save and seat change, so other nodes can find changed rows
+    private Instant updatedAt;
+
     private String status = "OPEN"; // OPEN, COMPLETED, CANCELLED
 
     public String getStatus() {
@@ -152,6 +169,22 @@ public class Ride {
         this.driverEmail = driverEmail;
     }
 
+    public String getNormalizedDriverEmail() {
+        return normalizedDriverEmail;
+    }
+
+    /** The form driver emails are matched in: trimmed and lower-cased. */
+    public static String normalizeEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @PrePersist
+    @PreUpdate
+    void beforeSave() {
+        normalizedDriverEmail = normalizeEmail(driverEmail);
+        updatedAt = Instant.now();
+    }
+
     public String getDriverImage() {
         return driverImage;
     }
@@ -176,6 +209,10 @@ public class Ride {
         this.reservedSeats = reservedSeats;
     }
 
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
     public Instant getCreatedAt() {
         return createdAt;
     }
@@ -4,7 +4,10 @@ import jakarta.persistence.*;
 import java.time.Instant;
 
 @Entity
-@Table(name = "app_users")
+@Table(name = "app_users", indexes = {
+        // Analytics reconcile: rows changed since the last pass
+        @Index(name = "idx_app_users_updated_at", columnList = "updated_at") })
+@EntityListeners(com.example.backend.service.AnalyticsEntityListener.class)
 public class User {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -34,9 +37,18 @@ public class User {
 
     private Instant createdAt = Instant.now();
 
+    // Set on every save, so other nodes can find changed rows
+    private Instant updatedAt;
+
     public User() {
     }
 
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        updatedAt = Instant.now();
+    }
+
     // getters/setters
     public Long getId() {
         return id;
@@ -142,6 +154,10 @@ public class User {
         this.capacity = capacity;
     }
 
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
     public Instant getCreatedAt() {
         return createdAt;
     }
@@ -0,0 +1,23 @@
+package com.example.backend.repository;
+
+/**
+ * One line of the admin PDF report's bookings table. Read as a projection so
+ * report pages never enter the persistence context.
+ */
+public interface BookingReportRow {
+    Long getId();
+
+    String getUserEmail();
+
+    String getRideFrom();
+
+    String getRideTo();
+
+    String getPickupLocation();
+
+    String getDropoffLocation();
+
+    String getStatus();
+
+    Double getTotalPrice();
+}
@@ -1,10 +1,73 @@
 package com.example.backend.repository;
 
 import com.example.backend.model.Booking;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
 import java.util.List;
 
 public interface BookingRepository extends JpaRepository<Booking, Long> {
     List<Booking> findByUserEmailOrderByCreatedAtDesc(String email);
     List<Booking> findByRideId(Long rideId);
+
+    // Accepted/paid bookings count as earnings; cash volume only counts accepted and completed ones
+    String TOTALS = "SELECT COUNT(b) AS totalBookings, "
+            + "COUNT(b) FILTER (WHERE b.status IN ('CANCELLED', 'REJECTED')) AS cancelledBookings, "
+            + "COALESCE(SUM(b.totalPrice) FILTER (WHERE b.status IN ('COMPLETED', 'PAID', 'ACCEPTED')), 0.0) AS totalEarnings, "
+            + "COALESCE(SUM(b.totalPrice) FILTER (WHERE UPPER(b.paymentMethod) = 'CASH' "
+            + "AND b.status IN ('COMPLETED', 'ACCEPTED')), 0.0) AS cashVolume "
+            + "FROM Booking b ";
+
+    @Query(TOTALS)
+    BookingTotals totals();
+
+    // Null bounds are open; from is inclusive, to exclusive
+    @Query(TOTALS + "WHERE (:from IS NULL OR b.createdAt >= :from) AND (:to IS NULL OR b.createdAt < :to)")
+    BookingTotals totalsBetween(@Param("from") Instant from, @Param("to") Instant to);
+
+    // Report cache key (see ReportJobService); null bounds are open
+    @Query("SELECT COUNT(b) AS rowCount, MAX(b.id) AS maxId, MAX(b.updatedAt) AS lastUpdated FROM Booking b "
+            + "WHERE (:from IS NULL OR b.createdAt >= :from) AND (:to IS NULL OR b.createdAt < :to)")
+    TableFingerprint fingerprintCreatedBetween(@Param("from") Instant from, @Param("to") Instant to);
+
+    // Rows saved since the given time (analytics reconcile); the ride comes in the same query
+    @EntityGraph(attributePaths = "ride")
+    @Query("SELECT b FROM Booking b WHERE b.updatedAt > :since")
+    List<Booking> findUpdatedSince(@Param("since") Instant since);
+
+    // Keyset page for the admin report, newest first: pass the last id already written (Long.MAX_VALUE to start)
+    @Query("SELECT b.id AS id, b.userEmail AS userEmail, r.fromLocation AS rideFrom, r.toLocation AS rideTo, "
+            + "b.pickupLocation AS pickupLocation, b.dropoffLocation AS dropoffLocation, "
+            + "b.status AS status, b.totalPrice AS totalPrice "
+            + "FROM Booking b LEFT JOIN b.ride r "
+            + "WHERE b.id < :beforeId AND (:from IS NULL OR b.createdAt >= :from) AND (:to IS NULL OR b.createdAt < :to) "
+            + "ORDER BY b.id DESC")
+    List<BookingReportRow> reportPage(@Param("beforeId") Long beforeId, @Param("from") Instant from,
+            @Param("to") Instant to, Pageable page);
+
+    // Keyset page (see RideRepository.findPage); the ride comes in the same query
+    @EntityGraph(attributePaths = "ride")
+    @Query("SELECT b FROM Booking b "
+            + "WHERE (:at IS NULL OR b.createdAt < :at OR (b.createdAt = :at AND b.id < :id)) "
+            + "ORDER BY b.createdAt DESC, b.id DESC")
+    Slice<Booking> findPage(@Param("at") Instant at, @Param("id") Long id, Pageable page);
+
+    // A driver's bookings, newest id first, joined on the indexed normalized driver email of the ride
+    // (see Ride.normalizeEmail); the ride is fetched in the same statement. A null beforeId starts from the top.
+    @Query("SELECT b FROM Booking b JOIN FETCH b.ride r "
+            + "WHERE r.normalizedDriverEmail = :email AND (:beforeId IS NULL OR b.id < :beforeId) "
+            + "ORDER BY b.id DESC")
+    Slice<Booking> findForDriver(@Param("email") String normalizedEmail, @Param("beforeId") Long beforeId,
+            Pageable page);
+
+    // Dashboard counts for a driver in one pass, on the same join as findForDriver
+    @Query("SELECT COUNT(b) AS total, COUNT(b) FILTER (WHERE b.status = 'PENDING') AS pending, "
+            + "COUNT(b) FILTER (WHERE b.status IN ('ACCEPTED', 'PAID')) AS confirmed "
+            + "FROM Booking b JOIN b.ride r WHERE r.normalizedDriverEmail = :email")
+    DriverBookingCounts countsForDriver(@Param("email") String normalizedEmail);
 }
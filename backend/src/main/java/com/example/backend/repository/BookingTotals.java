@@ -0,0 +1,12 @@
+package com.example.backend.repository;
+
+/** Booking counts and money totals for the admin dashboard, from one pass over bookings. */
+public interface BookingTotals {
+    Long getTotalBookings();
+
+    Long getCancelledBookings();
+
+    Double getTotalEarnings();
+
+    Double getCashVolume();
+}
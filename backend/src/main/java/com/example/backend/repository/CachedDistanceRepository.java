@@ -0,0 +1,26 @@
+package com.example.backend.repository;
+
+import com.example.backend.model.CachedDistance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface CachedDistanceRepository extends JpaRepository<CachedDistance, Long> {
+    Optional<CachedDistance> findByCacheKey(String cacheKey);
+
+    List<CachedDistance> findByCacheKeyIn(Collection<String> cacheKeys);
+
+    @Modifying
+    @Query("DELETE FROM CachedDistance c WHERE c.cacheKey = :key")
+    int deleteByKey(@Param("key") String key);
+
+    @Modifying
+    @Query("DELETE FROM CachedDistance c WHERE c.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
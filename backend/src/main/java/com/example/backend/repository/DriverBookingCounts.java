@@ -0,0 +1,10 @@
+package com.example.backend.repository;
+
+/** Booking counts for the driver dashboard, over all bookings on the driver's rides. */
+public interface DriverBookingCounts {
+    Long getTotal();
+
+    Long getPending();
+
+    Long getConfirmed();
+}
@@ -0,0 +1,20 @@
+package com.example.backend.repository;
+
+import com.example.backend.model.NotificationArchive;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+
+public interface NotificationArchiveRepository extends JpaRepository<NotificationArchive, Long> {
+
+    // Keyset page of one user's archived notifications (see RideRepository.findPage)
+    @Query("SELECT n FROM NotificationArchive n WHERE n.recipientEmail = :email "
+            + "AND (:at IS NULL OR n.createdAt < :at OR (n.createdAt = :at AND n.id < :id)) "
+            + "ORDER BY n.createdAt DESC, n.id DESC")
+    Slice<NotificationArchive> findPageForRecipient(@Param("email") String email, @Param("at") Instant at,
+            @Param("id") Long id, Pageable page);
+}
@@ -1,14 +1,37 @@
 package com.example.backend.repository;
 
 import com.example.backend.model.Notification;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
-    List<Notification> findByRecipientEmailOrderByCreatedAtDesc(String email);
     long countByRecipientEmailAndIsReadFalse(String email);
 
     @org.springframework.data.jpa.repository.Modifying
-    @org.springframework.data.jpa.repository.Query("UPDATE Notification n SET n.isRead = true WHERE n.recipientEmail = :email")
-    void markAllReadForUser(@org.springframework.web.bind.annotation.RequestParam("email") String email);
+    @org.springframework.data.jpa.repository.Query("UPDATE Notification n SET n.isRead = true WHERE n.recipientEmail = :email AND n.isRead = false")
+    int markAllReadForUser(@org.springframework.web.bind.annotation.RequestParam("email") String email);
+
+    // Matches no row (returns 0) if the notification was already read
+    @org.springframework.data.jpa.repository.Modifying
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.id = :id AND n.isRead = false")
+    int markReadIfUnread(@Param("id") Long id);
+
+    // Served from idx_notifications_recipient_read
+    @Query("SELECT n.recipientEmail AS recipientEmail, COUNT(n) AS unread FROM Notification n "
+            + "WHERE n.isRead = false AND n.recipientEmail IN :emails GROUP BY n.recipientEmail")
+    List<UnreadCount> countUnreadFor(@Param("emails") Collection<String> emails);
+
+    // Keyset page of one user's notifications (see RideRepository.findPage)
+    @Query("SELECT n FROM Notification n WHERE n.recipientEmail = :email "
+            + "AND (:at IS NULL OR n.createdAt < :at OR (n.createdAt = :at AND n.id < :id)) "
+            + "ORDER BY n.createdAt DESC, n.id DESC")
+    Slice<Notification> findPageForRecipient(@Param("email") String email, @Param("at") Instant at,
+            @Param("id") Long id, Pageable page);
 }
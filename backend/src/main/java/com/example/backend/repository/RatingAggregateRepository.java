@@ -0,0 +1,31 @@
+package com.example.backend.repository;
+
+import com.example.backend.model.RatingAggregate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface RatingAggregateRepository extends JpaRepository<RatingAggregate, String> {
+
+    // Insert-or-increment in one statement, so concurrent reviews of the same person never lose an update
+    @Modifying
+    @Query(value = "INSERT INTO rating_aggregates (reviewee_email, rating_count, rating_sum, updated_at) "
+            + "VALUES (:email, 1, :rating, now()) "
+            + "ON CONFLICT (reviewee_email) DO UPDATE SET rating_count = rating_aggregates.rating_count + 1, "
+            + "rating_sum = rating_aggregates.rating_sum + EXCLUDED.rating_sum, updated_at = now()", nativeQuery = true)
+    int addRating(@Param("email") String email, @Param("rating") int rating);
+
+    @Modifying
+    @Query(value = "INSERT INTO rating_aggregates (reviewee_email, rating_count, rating_sum, updated_at) "
+            + "SELECT reviewee_email, count(*), sum(rating), now() FROM reviews "
+            + "WHERE reviewee_email IS NOT NULL GROUP BY reviewee_email "
+            + "ON CONFLICT (reviewee_email) DO UPDATE SET rating_count = EXCLUDED.rating_count, "
+            + "rating_sum = EXCLUDED.rating_sum, updated_at = now()", nativeQuery = true)
+    int rebuildFromReviews();
+
+    @Modifying
+    @Query(value = "DELETE FROM rating_aggregates a "
+            + "WHERE NOT EXISTS (SELECT 1 FROM reviews r WHERE r.reviewee_email = a.reviewee_email)", nativeQuery = true)
+    int deleteOrphans();
+}
@@ -0,0 +1,13 @@
+package com.example.backend.repository;
+
+/**
+ * Per-reviewee rating summary read straight from a grouped query, without
+ * loading Review entities (or the Ride each one eagerly joins).
+ */
+public interface RatingSummary {
+    String getRevieweeEmail();
+
+    Double getAverageRating();
+
+    Long getReviewCount();
+}
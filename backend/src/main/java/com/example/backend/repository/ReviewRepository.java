@@ -2,9 +2,20 @@ package com.example.backend.repository;
 
 import com.example.backend.model.Review;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.Collection;
 import java.util.List;
 
 public interface ReviewRepository extends JpaRepository<Review, Long> {
     List<Review> findByRevieweeEmail(String email);
     List<Review> findByReviewerEmail(String email);
+
+    @Query("SELECT r.revieweeEmail AS revieweeEmail, AVG(r.rating) AS averageRating, COUNT(r) AS reviewCount "
+            + "FROM Review r WHERE r.revieweeEmail IN :emails GROUP BY r.revieweeEmail")
+    List<RatingSummary> summarizeByReviewee(@Param("emails") Collection<String> emails);
+
+    @Query("SELECT r.revieweeEmail AS revieweeEmail, AVG(r.rating) AS averageRating, COUNT(r) AS reviewCount "
+            + "FROM Review r WHERE r.revieweeEmail IS NOT NULL GROUP BY r.revieweeEmail")
+    List<RatingSummary> summarizeAll();
 }
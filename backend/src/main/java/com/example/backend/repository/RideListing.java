@@ -0,0 +1,16 @@
+package com.example.backend.repository;
+
+import com.example.backend.model.Ride;
+
+import java.time.Instant;
+
+/** The columns of a ride that the public ride list shows, read with a constructor expression. */
+public record RideListing(Long id, String fromLocation, String toLocation, String date, double price, int tickets,
+        String vehicleType, String imageUrl, String driverName, String driverEmail, Instant createdAt) {
+
+    public static RideListing of(Ride r) {
+        return new RideListing(r.getId(), r.getFromLocation(), r.getToLocation(), r.getDate(), r.getPrice(),
+                r.getTickets(), r.getVehicleType(), r.getImageUrl(), r.getDriverName(), r.getDriverEmail(),
+                r.getCreatedAt());
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.backend.repository;
+
+/** One line of the admin PDF report's rides table. */
+public interface RideReportRow {
+    Long getId();
+
+    String getDriverEmail();
+
+    String getFromLocation();
+
+    String getToLocation();
+
+    String getDate();
+
+    Integer getTickets();
+
+    String getStatus();
+}
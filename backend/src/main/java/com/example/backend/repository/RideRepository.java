@@ -1,19 +1,82 @@
 package com.example.backend.repository;
 
 import com.example.backend.model.Ride;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 
 public interface RideRepository extends JpaRepository<Ride, Long> {
 
     List<Ride> findByDriverEmail(String driverEmail);
 
+    List<Ride> findByDriverEmailAndStatus(String driverEmail, String status);
+
     @Query("SELECT r FROM Ride r WHERE " +
             "(LOWER(r.fromLocation) LIKE LOWER(CONCAT('%', :from, '%')) OR LOWER(r.route) LIKE LOWER(CONCAT('%', :from, '%'))) AND "
             +
             "(LOWER(r.toLocation) LIKE LOWER(CONCAT('%', :to, '%')) OR LOWER(r.route) LIKE LOWER(CONCAT('%', :to, '%')))")
     List<Ride> searchRides(@Param("from") String from, @Param("to") String to);
+
+    @Query("SELECT r.tickets FROM Ride r WHERE r.id = :id")
+    Optional<Integer> findTicketsById(@Param("id") Long id);
+
+    // Conditional decrement: matches no row (returns 0) instead of going negative
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Ride r SET r.tickets = r.tickets - :seats, r.updatedAt = CURRENT_INSTANT "
+            + "WHERE r.id = :id AND r.tickets >= :seats")
+    int reserveSeats(@Param("id") Long id, @Param("seats") int seats);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Ride r SET r.tickets = r.tickets + :seats, r.updatedAt = CURRENT_INSTANT WHERE r.id = :id")
+    int releaseSeats(@Param("id") Long id, @Param("seats") int seats);
+
+    // Fills normalizedDriverEmail on rows written before the column existed
+    @Transactional
+    @Modifying
+    @Query("UPDATE Ride r SET r.normalizedDriverEmail = LOWER(TRIM(r.driverEmail)) "
+            + "WHERE r.normalizedDriverEmail IS NULL AND r.driverEmail IS NOT NULL")
+    int backfillNormalizedDriverEmail();
+
+    // Rows saved since the given time (analytics reconcile)
+    @Query("SELECT r FROM Ride r WHERE r.updatedAt > :since")
+    List<Ride> findUpdatedSince(@Param("since") Instant since);
+
+    @Query("SELECT COUNT(r) FROM Ride r WHERE (:from IS NULL OR r.createdAt >= :from) AND (:to IS NULL OR r.createdAt < :to)")
+    long countCreatedBetween(@Param("from") Instant from, @Param("to") Instant to);
+
+    // Report cache key (see ReportJobService); null bounds are open
+    @Query("SELECT COUNT(r) AS rowCount, MAX(r.id) AS maxId, MAX(r.updatedAt) AS lastUpdated FROM Ride r "
+            + "WHERE (:from IS NULL OR r.createdAt >= :from) AND (:to IS NULL OR r.createdAt < :to)")
+    TableFingerprint fingerprintCreatedBetween(@Param("from") Instant from, @Param("to") Instant to);
+
+    // Keyset page for the admin report, newest first (see BookingRepository.reportPage)
+    @Query("SELECT r.id AS id, r.driverEmail AS driverEmail, r.fromLocation AS fromLocation, "
+            + "r.toLocation AS toLocation, r.date AS date, r.tickets AS tickets, r.status AS status "
+            + "FROM Ride r "
+            + "WHERE r.id < :beforeId AND (:from IS NULL OR r.createdAt >= :from) AND (:to IS NULL OR r.createdAt < :to) "
+            + "ORDER BY r.id DESC")
+    List<RideReportRow> reportPage(@Param("beforeId") Long beforeId, @Param("from") Instant from,
+            @Param("to") Instant to, Pageable page);
+
+    // Keyset pages for list endpoints, newest first. A null cursor (:at) starts from the top;
+    // otherwise rows strictly after (at, id) in createdAt DESC, id DESC order.
+    @Query("SELECT new com.example.backend.repository.RideListing(r.id, r.fromLocation, r.toLocation, r.date, "
+            + "r.price, r.tickets, r.vehicleType, r.imageUrl, r.driverName, r.driverEmail, r.createdAt) "
+            + "FROM Ride r WHERE r.status = 'OPEN' AND r.tickets > 0 "
+            + "AND (:at IS NULL OR r.createdAt < :at OR (r.createdAt = :at AND r.id < :id)) "
+            + "ORDER BY r.createdAt DESC, r.id DESC")
+    Slice<RideListing> findOpenListings(@Param("at") Instant at, @Param("id") Long id, Pageable page);
+
+    @Query("SELECT r FROM Ride r "
+            + "WHERE (:at IS NULL OR r.createdAt < :at OR (r.createdAt = :at AND r.id < :id)) "
+            + "ORDER BY r.createdAt DESC, r.id DESC")
+    Slice<Ride> findPage(@Param("at") Instant at, @Param("id") Long id, Pageable page);
 }
@@ -0,0 +1,12 @@
+package com.example.backend.repository;
+
+import java.time.Instant;
+
+/** Row count, highest id and latest save time of a table (or a created_at range of it): moves when its rows do. */
+public interface TableFingerprint {
+    Long getRowCount();
+
+    Long getMaxId();
+
+    Instant getLastUpdated();
+}
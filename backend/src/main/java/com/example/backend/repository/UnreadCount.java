@@ -0,0 +1,10 @@
+package com.example.backend.repository;
+
+/**
+ * Unread notifications of one recipient, from a grouped count.
+ */
+public interface UnreadCount {
+    String getRecipientEmail();
+
+    Long getUnread();
+}
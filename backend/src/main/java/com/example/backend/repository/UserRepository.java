@@ -2,9 +2,34 @@ package com.example.backend.repository;
 
 import com.example.backend.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByRole(String role);
+    List<User> findByEmailIn(Collection<String> emails);
+
+    @Query("SELECT COUNT(u) FILTER (WHERE u.role = 'ROLE_USER') AS users, "
+            + "COUNT(u) FILTER (WHERE u.role = 'ROLE_DRIVER') AS drivers, "
+            + "COUNT(u) FILTER (WHERE u.role = 'ROLE_BLOCKED') AS blocked "
+            + "FROM User u")
+    UserRoleCounts countRoles();
+
+    // Rows saved since the given time (analytics reconcile)
+    @Query("SELECT u FROM User u WHERE u.updatedAt > :since")
+    List<User> findUpdatedSince(@Param("since") Instant since);
+
+    @Query("SELECT COUNT(u) FROM User u WHERE (:from IS NULL OR u.createdAt >= :from) AND (:to IS NULL OR u.createdAt < :to)")
+    long countCreatedBetween(@Param("from") Instant from, @Param("to") Instant to);
+
+    // Report cache key (see ReportJobService); null bounds are open
+    @Query("SELECT COUNT(u) AS rowCount, MAX(u.id) AS maxId, MAX(u.updatedAt) AS lastUpdated FROM User u "
+            + "WHERE (:from IS NULL OR u.createdAt >= :from) AND (:to IS NULL OR u.createdAt < :to)")
+    TableFingerprint fingerprintCreatedBetween(@Param("from") Instant from, @Param("to") Instant to);
 }
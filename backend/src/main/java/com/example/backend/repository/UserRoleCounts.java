@@ -0,0 +1,10 @@
+package com.example.backend.repository;
+
+/** Users per dashboard role, counted in one pass over app_users. */
+public interface UserRoleCounts {
+    Long getUsers();
+
+    Long getDrivers();
+
+    Long getBlocked();
+}
@@ -1,10 +1,13 @@
 package com.example.backend.repository;
 
 import com.example.backend.model.Vehicle;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
 import java.util.List;
 
 public interface VehicleRepository extends JpaRepository<Vehicle, Long> {
@@ -16,4 +19,10 @@ public interface VehicleRepository extends JpaRepository<Vehicle, Long> {
             +
             "(LOWER(v.toLocation) LIKE LOWER(CONCAT('%', :to, '%')) OR LOWER(v.route) LIKE LOWER(CONCAT('%', :to, '%')))")
     List<Vehicle> searchVehicles(@Param("from") String from, @Param("to") String to);
+
+    // Keyset page (see RideRepository.findPage)
+    @Query("SELECT v FROM Vehicle v "
+            + "WHERE (:at IS NULL OR v.createdAt < :at OR (v.createdAt = :at AND v.id < :id)) "
+            + "ORDER BY v.createdAt DESC, v.id DESC")
+    Slice<Vehicle> findPage(@Param("at") Instant at, @Param("id") Long id, Pageable page);
 }
@@ -17,16 +17,30 @@ import io.jsonwebtoken.Claims;
 
 import java.io.IOException;
 import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final Logger logger = Logger.getLogger(JwtAuthenticationFilter.class.getName());
+
     private final JwtUtil jwtUtil;
     private final ObjectMapper mapper = new ObjectMapper();
+    private final WebAuthenticationDetailsSource detailsSource = new WebAuthenticationDetailsSource();
+
+    // Time spent authenticating requests that carry a bearer token
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
 
     public JwtAuthenticationFilter(JwtUtil jwtUtil) {
         this.jwtUtil = jwtUtil;
@@ -41,6 +55,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
         String token = authHeader.substring(7);
+        long started = System.nanoTime();
         try {
             String email = null;
             String role = null;
@@ -65,22 +80,34 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 }
             }
             if (email != null && role != null) {
-                String finalRole = role.toUpperCase();
-                if (!finalRole.startsWith("ROLE_")) {
-                    finalRole = "ROLE_" + finalRole;
-                }
-                List<SimpleGrantedAuthority> auths = List.of(new SimpleGrantedAuthority(finalRole));
+                List<SimpleGrantedAuthority> auths = List.of(JwtUtil.authority(role));
                 UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(email, null, auths);
-                auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                auth.setDetails(detailsSource.buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(auth);
             } else {
                 SecurityContextHolder.clearContext();
             }
         } catch (Exception ex) {
-            System.err.println("JWT Verification Failed: " + ex.getMessage());
-            ex.printStackTrace();
+            // Bad tokens are routine (expired sessions, tampering); count them rather than log each one
+            rejected.incrementAndGet();
+            logger.log(Level.FINE, "JWT verification failed: {0}", ex.getMessage());
             SecurityContextHolder.clearContext();
         }
+        long elapsed = System.nanoTime() - started;
+        requests.incrementAndGet();
+        totalNanos.addAndGet(elapsed);
+        maxNanos.accumulateAndGet(elapsed, Math::max);
         filterChain.doFilter(request, response);
     }
+
+    public Map<String, Object> stats() {
+        long count = requests.get();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("requests", count);
+        m.put("rejected", rejected.get());
+        m.put("avgMicros", count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalNanos.get() / count));
+        m.put("maxMicros", TimeUnit.NANOSECONDS.toMicros(maxNanos.get()));
+        m.put("tokens", jwtUtil.stats());
+        return m;
+    }
 }
@@ -1,22 +1,48 @@
 package com.example.backend.security;
 
+import com.example.backend.service.TtlLruCache;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Issues and verifies the HS256 tokens. The key and parser are built once;
+ * a parser is immutable and shared by all request threads.
+ *
+ * Tokens that pass verification are remembered by the SHA-256 of the token
+ * until they expire (at most app.auth.token-cache-size of them), so repeat
+ * requests with the same token skip parsing and the signature check.
+ */
 @Component
 public class JwtUtil {
-    @Value("${jwt.secret}")
-    private String secret;
+    private final long expiry;
+    private final Key key;
+    private final JwtParser parser;
+    private final TtlLruCache<String, Claims> verified;
 
-    @Value("${jwt.expiration-ms}")
-    private long expiry;
+    private final AtomicLong verifications = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
 
-    private Key getKey() { return Keys.hmacShaKeyFor(secret.getBytes()); }
+    public JwtUtil(@Value("${jwt.secret}") String secret, @Value("${jwt.expiration-ms}") long expiry,
+            @Value("${app.auth.token-cache-size:10000}") int cacheSize) {
+        this.expiry = expiry;
+        this.key = Keys.hmacShaKeyFor(secret.getBytes());
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+        this.verified = new TtlLruCache<>(cacheSize, Duration.ofMillis(expiry));
+    }
 
     public String generateToken(String email, String role, boolean superAdmin) {
         Date now = new Date();
@@ -27,11 +53,60 @@ public class JwtUtil {
                 .claim("superAdmin", superAdmin)
                 .setIssuedAt(now)
                 .setExpiration(exp)
-                .signWith(getKey(), SignatureAlgorithm.HS256)
+                .signWith(key, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    /**
+     * The claims of a valid token; throws JwtException (or IllegalArgumentException)
+     * for a bad or expired one. The result may be shared between requests, so
+     * callers must not modify it.
+     */
     public Claims extractClaims(String token) {
-        return Jwts.parserBuilder().setSigningKey(getKey()).build().parseClaimsJws(token).getBody();
+        String hash = sha256(token);
+        Claims claims = verified.get(hash);
+        if (claims != null)
+            return claims;
+        try {
+            claims = parser.parseClaimsJws(token).getBody();
+        } catch (RuntimeException e) {
+            failures.incrementAndGet();
+            throw e;
+        }
+        verifications.incrementAndGet();
+        Date exp = claims.getExpiration();
+        if (exp != null)
+            verified.put(hash, claims, exp.getTime());
+        return claims;
+    }
+
+    /** The authority for a role claim, which may come without the ROLE_ prefix or in lower case. */
+    public static SimpleGrantedAuthority authority(String role) {
+        String finalRole = role.toUpperCase();
+        if (!finalRole.startsWith("ROLE_")) {
+            finalRole = "ROLE_" + finalRole;
+        }
+        return new SimpleGrantedAuthority(finalRole);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("verifications", verifications.get());
+        m.put("failures", failures.get());
+        m.put("cachedTokens", verified.size());
+        m.put("maxEntries", verified.maxEntries());
+        m.put("cacheHits", verified.hits());
+        m.put("cacheMisses", verified.misses());
+        m.put("cacheEvictions", verified.evictions());
+        return m;
+    }
+
+    private static String sha256(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
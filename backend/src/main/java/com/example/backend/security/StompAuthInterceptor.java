@@ -0,0 +1,116 @@
+package com.example.backend.security;
+
+import com.example.backend.config.WebSocketConfig;
+import io.jsonwebtoken.Claims;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+import java.util.List;
+
+/**
+ * Authenticates STOMP sessions from an "Authorization: Bearer <jwt>" header on
+ * the CONNECT frame, since SockJS cannot send headers with the handshake. The
+ * session user is then the token's email, which is what /user/queue/...
+ * destinations and convertAndSendToUser resolve against.
+ *
+ * Connections without the header stay anonymous; a connection with a bad
+ * token is refused.
+ *
+ * SUBSCRIBE and SEND are checked against the session user too, as the broker
+ * would otherwise deliver anything under /topic and /queue to anyone:
+ * - the user destination and user registry broadcasts between nodes (relay
+ *   mode) are for the server only;
+ * - a per-user topic, one with an email segment such as /topic/user/{email},
+ *   only to that user;
+ * - patterns are refused: the simple broker matches subscriptions as Ant
+ *   patterns (*, **, ?, {}) and RabbitMQ as topic patterns (*, #), so
+ *   /topic/** would match all of the above; empty and dot segments, which
+ *   the Ant matcher skips over, are refused as well;
+ * - /queue/... only through /user/queue/..., which resolves to the session's
+ *   own queue;
+ * - clients only SEND to /app/....
+ */
+@Component
+public class StompAuthInterceptor implements ChannelInterceptor {
+
+    private final JwtUtil jwtUtil;
+
+    public StompAuthInterceptor(JwtUtil jwtUtil) {
+        this.jwtUtil = jwtUtil;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null)
+            return message;
+        if (accessor.getCommand() == StompCommand.SUBSCRIBE) {
+            checkSubscribe(message, accessor.getDestination(), accessor.getUser());
+            return message;
+        }
+        if (accessor.getCommand() == StompCommand.SEND) {
+            String destination = accessor.getDestination();
+            if (destination == null || !destination.startsWith("/app/"))
+                throw new MessageDeliveryException(message, "Cannot send to " + destination);
+            return message;
+        }
+        if (accessor.getCommand() != StompCommand.CONNECT)
+            return message;
+        String header = accessor.getFirstNativeHeader("Authorization");
+        if (header == null || !header.startsWith("Bearer "))
+            return message;
+
+        Claims claims;
+        try {
+            claims = jwtUtil.extractClaims(header.substring(7));
+        } catch (Exception e) {
+            throw new MessageDeliveryException(message, "Invalid token");
+        }
+        String email = claims.getSubject();
+        String role = claims.get("role", String.class);
+        if (email == null || role == null)
+            throw new MessageDeliveryException(message, "Invalid token");
+        accessor.setUser(new UsernamePasswordAuthenticationToken(email, null, List.of(JwtUtil.authority(role))));
+        return message;
+    }
+
+    private void checkSubscribe(Message<?> message, String destination, Principal user) {
+        if (destination == null)
+            throw new MessageDeliveryException(message, "Subscription without a destination");
+        if (!isLiteral(destination))
+            throw new MessageDeliveryException(message, "Cannot subscribe to " + destination);
+        if (destination.startsWith(WebSocketConfig.USER_DESTINATION_BROADCAST)
+                || destination.startsWith(WebSocketConfig.USER_REGISTRY_BROADCAST)
+                || destination.startsWith("/queue/"))
+            throw new MessageDeliveryException(message, "Cannot subscribe to " + destination);
+        if (destination.startsWith("/topic/")) {
+            for (String segment : destination.split("/")) {
+                if (segment.contains("@") && (user == null || !segment.equalsIgnoreCase(user.getName())))
+                    throw new MessageDeliveryException(message, "Cannot subscribe to " + destination);
+            }
+        }
+    }
+
+    // A destination that can only match itself: no pattern characters, no empty or dot segments
+    static boolean isLiteral(String destination) {
+        if (!destination.startsWith("/") || destination.endsWith("/"))
+            return false;
+        for (char c : new char[] { '*', '#', '?', '{', '}' }) {
+            if (destination.indexOf(c) >= 0)
+                return false;
+        }
+        for (String segment : destination.substring(1).split("/", -1)) {
+            if (segment.isEmpty() || segment.equals(".") || segment.equals(".."))
+                return false;
+        }
+        return true;
+    }
+}
@@ -4,32 +4,147 @@ import com.lowagie.text.*;
 import com.lowagie.text.pdf.PdfPCell;
 import com.lowagie.text.pdf.PdfPTable;
 import com.lowagie.text.pdf.PdfWriter;
-import com.example.backend.model.Booking;
-import com.example.backend.model.Ride;
-import com.example.backend.model.User;
+import com.example.backend.repository.BookingReportRow;
+import com.example.backend.repository.BookingRepository;
+import com.example.backend.repository.BookingTotals;
+import com.example.backend.repository.RideReportRow;
+import com.example.backend.repository.RideRepository;
+import com.example.backend.repository.TableFingerprint;
+import com.example.backend.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
 
+/**
+ * Admin PDF report. The document is written straight to the caller's stream
+ * while rows are read in keyset pages of app.reports.page-size, so memory stays
+ * bounded by one page however many rows the report covers.
+ */
 @Service
 public class AdminReportService {
 
-    private final BookingService bookingService;
-    private final RideService rideService;
-    private final UserService userService;
+    public enum Section {
+        SUMMARY, BOOKINGS, RIDES
+    }
+
+    /**
+     * What goes into a report. Dates are inclusive calendar days in the server's
+     * zone; a null bound is open. rowLimit caps each table, 0 means every row.
+     */
+    public record Options(LocalDate from, LocalDate to, Set<Section> sections, int rowLimit) {
+
+        // The original report: all time, summary plus the 50 most recent bookings
+        public static final int DEFAULT_ROW_LIMIT = 50;
+
+        /** Builds options from request parameters; any of them may be null. */
+        public static Options of(String from, String to, String sections, Integer limit) {
+            LocalDate fromDate = parseDate(from, "from");
+            LocalDate toDate = parseDate(to, "to");
+            if (fromDate != null && toDate != null && toDate.isBefore(fromDate))
+                throw new IllegalArgumentException("'to' must not be before 'from'");
+
+            Set<Section> chosen = EnumSet.noneOf(Section.class);
+            if (sections == null || sections.isBlank()) {
+                chosen.add(Section.SUMMARY);
+                chosen.add(Section.BOOKINGS);
+            } else {
+                for (String s : sections.split(",")) {
+                    if (s.isBlank())
+                        continue;
+                    try {
+                        chosen.add(Section.valueOf(s.trim().toUpperCase(Locale.ROOT)));
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException("Unknown report section: " + s.trim());
+                    }
+                }
+            }
+
+            int rowLimit = limit == null ? DEFAULT_ROW_LIMIT : limit;
+            if (rowLimit < 0)
+                throw new IllegalArgumentException("limit must be 0 (no limit) or positive");
+            return new Options(fromDate, toDate, chosen, rowLimit);
+        }
+
+        private static LocalDate parseDate(String value, String name) {
+            if (value == null || value.isBlank())
+                return null;
+            try {
+                return LocalDate.parse(value.trim());
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("'" + name + "' must be a date like 2024-01-31");
+            }
+        }
+
+        Instant fromInstant() {
+            return from == null ? null : from.atStartOfDay(ZoneId.systemDefault()).toInstant();
+        }
+
+        // Exclusive upper bound: the start of the day after 'to'
+        Instant toInstant() {
+            return to == null ? null : to.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant();
+        }
+    }
+
+    @FunctionalInterface
+    private interface PageQuery<T> {
+        List<T> fetch(Long beforeId, Instant from, Instant to, PageRequest page);
+    }
+
+    private final BookingRepository bookingRepository;
+    private final RideRepository rideRepository;
+    private final UserRepository userRepository;
+
+    @Value("${app.reports.page-size:500}")
+    private int pageSize;
+
+    public AdminReportService(BookingRepository bookingRepository, RideRepository rideRepository,
+            UserRepository userRepository) {
+        this.bookingRepository = bookingRepository;
+        this.rideRepository = rideRepository;
+        this.userRepository = userRepository;
+    }
 
-    public AdminReportService(BookingService bookingService, RideService rideService, UserService userService) {
-        this.bookingService = bookingService;
-        this.rideService = rideService;
-        this.userService = userService;
+    /**
+     * A key for the data the report would show: count, highest id and latest
+     * save time of each table it reads, over the report period. Any insert,
+     * delete or save on another node changes it too, as it is read from the
+     * database. Booking rows show their ride's route, so with BOOKINGS the rides
+     * table counts in full.
+     */
+    public String dataFingerprint(Options options) {
+        Instant from = options.fromInstant();
+        Instant to = options.toInstant();
+        StringBuilder key = new StringBuilder();
+        if (options.sections().contains(Section.SUMMARY))
+            key.append("users=").append(describe(userRepository.fingerprintCreatedBetween(from, to))).append(';');
+        if (options.sections().contains(Section.SUMMARY) || options.sections().contains(Section.BOOKINGS))
+            key.append("bookings=").append(describe(bookingRepository.fingerprintCreatedBetween(from, to))).append(';');
+        if (options.sections().contains(Section.BOOKINGS))
+            key.append("rides=").append(describe(rideRepository.fingerprintCreatedBetween(null, null)));
+        else if (options.sections().contains(Section.SUMMARY) || options.sections().contains(Section.RIDES))
+            key.append("rides=").append(describe(rideRepository.fingerprintCreatedBetween(from, to)));
+        return key.toString();
     }
 
-    public byte[] generateAdminReport() throws IOException {
-        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            Document document = new Document(PageSize.A4);
-            PdfWriter.getInstance(document, out);
+    /** Writes the report to out as it is produced. The stream is flushed but not closed. */
+    public void writeAdminReport(Options options, OutputStream out) throws IOException {
+        Document document = new Document(PageSize.A4);
+        try {
+            PdfWriter writer = PdfWriter.getInstance(document, out);
+            writer.setCloseStream(false);
 
             document.open();
 
@@ -37,78 +152,140 @@ public class AdminReportService {
             Font titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18);
             Paragraph title = new Paragraph("Carpooling System - Admin Report", titleFont);
             title.setAlignment(Element.ALIGN_CENTER);
-            title.setSpacingAfter(20);
+            title.setSpacingAfter(5);
             document.add(title);
 
+            Paragraph period = new Paragraph("Period: " + describePeriod(options));
+            period.setAlignment(Element.ALIGN_CENTER);
+            period.setSpacingAfter(20);
+            document.add(period);
+
             // 2. Summary Statistics
-            List<Booking> bookings = bookingService.allBookings();
-            List<Ride> rides = rideService.getAllRides();
-            List<User> users = userService.allUsers();
-
-            double totalEarnings = bookings.stream()
-                .filter(b -> "COMPLETED".equals(b.getStatus()) || "PAID".equals(b.getStatus()) || "ACCEPTED".equals(b.getStatus()))
-                .mapToDouble(b -> safeDouble(b.getTotalPrice())) // Null check logic
-                .sum();
-
-            PdfPTable summaryTable = new PdfPTable(2);
-            summaryTable.setWidthPercentage(100);
-            summaryTable.setSpacingAfter(20);
-
-            addHeaderCell(summaryTable, "Metric");
-            addHeaderCell(summaryTable, "Value");
-
-            addRow(summaryTable, "Total Users", String.valueOf(users.size()));
-            addRow(summaryTable, "Total Rides Posted", String.valueOf(rides.size()));
-            addRow(summaryTable, "Total Bookings", String.valueOf(bookings.size()));
-            addRow(summaryTable, "Total Earnings", String.format("%.2f", totalEarnings));
-
-            document.add(summaryTable);
-
-            // 3. Recent Bookings Table
-            Paragraph subTitle = new Paragraph("Recent Bookings", FontFactory.getFont(FontFactory.HELVETICA_BOLD, 14));
-            subTitle.setSpacingAfter(10);
-            document.add(subTitle);
-
-            PdfPTable bookingTable = new PdfPTable(5);
-            bookingTable.setWidthPercentage(100);
-            bookingTable.setWidths(new float[] { 1, 3, 3, 2, 2 });
-
-            addHeaderCell(bookingTable, "ID");
-            addHeaderCell(bookingTable, "Passenger");
-            addHeaderCell(bookingTable, "Route");
-            addHeaderCell(bookingTable, "Status");
-            addHeaderCell(bookingTable, "Price");
-
-            // Show last 50 bookings
-            bookings.stream()
-                .sorted((a, b) -> Long.compare(b.getId(), a.getId()))
-                .limit(50)
-                .forEach(b -> {
-                    String route = "N/A";
-                    if(b.getRide() != null) {
-                         route = safeString(b.getRide().getFromLocation()) + " -> " + safeString(b.getRide().getToLocation());
-                    } else if (b.getPickupLocation() != null) {
-                         route = safeString(b.getPickupLocation()) + " -> " + safeString(b.getDropoffLocation());
-                    }
+            if (options.sections().contains(Section.SUMMARY))
+                addSummary(document, options);
 
-                    addRow(bookingTable, 
-                        String.valueOf(b.getId()), 
-                        safeString(b.getUserEmail()), 
-                        route,
-                        safeString(b.getStatus()), 
-                        String.format("%.2f", safeDouble(b.getTotalPrice()))
-                    );
-                });
+            // 3. Bookings Table
+            if (options.sections().contains(Section.BOOKINGS)) {
+                addSectionTitle(document, options.rowLimit() == 0 ? "Bookings" : "Recent Bookings");
+                PdfPTable bookingTable = new PdfPTable(5);
+                bookingTable.setWidths(new float[] { 1, 3, 3, 2, 2 });
+                streamTable(document, bookingTable, options, bookingRepository::reportPage, BookingReportRow::getId,
+                        b -> new String[] {
+                                String.valueOf(b.getId()),
+                                safeString(b.getUserEmail()),
+                                bookingRoute(b),
+                                safeString(b.getStatus()),
+                                String.format("%.2f", safeDouble(b.getTotalPrice()))
+                        },
+                        "ID", "Passenger", "Route", "Status", "Price");
+            }
 
-            document.add(bookingTable);
+            // 4. Rides Table
+            if (options.sections().contains(Section.RIDES)) {
+                addSectionTitle(document, options.rowLimit() == 0 ? "Rides" : "Recent Rides");
+                PdfPTable rideTable = new PdfPTable(6);
+                rideTable.setWidths(new float[] { 1, 3, 4, 2, 1, 2 });
+                streamTable(document, rideTable, options, rideRepository::reportPage, RideReportRow::getId,
+                        r -> new String[] {
+                                String.valueOf(r.getId()),
+                                safeString(r.getDriverEmail()),
+                                safeString(r.getFromLocation()) + " -> " + safeString(r.getToLocation()),
+                                safeString(r.getDate()),
+                                String.valueOf(r.getTickets() != null ? r.getTickets() : 0),
+                                safeString(r.getStatus())
+                        },
+                        "ID", "Driver", "Route", "Date", "Seats", "Status");
+            }
 
             document.close();
-            return out.toByteArray();
+            out.flush();
+        } catch (IOException e) {
+            throw e;
         } catch (Exception e) {
             throw new IOException("Error creating PDF", e);
         }
     }
 
+    private void addSummary(Document document, Options options) throws DocumentException {
+        Instant from = options.fromInstant();
+        Instant to = options.toInstant();
+        BookingTotals totals = bookingRepository.totalsBetween(from, to);
+
+        PdfPTable summaryTable = new PdfPTable(2);
+        summaryTable.setWidthPercentage(100);
+        summaryTable.setSpacingAfter(20);
+
+        addHeaderCell(summaryTable, "Metric");
+        addHeaderCell(summaryTable, "Value");
+
+        addRow(summaryTable, "Total Users", String.valueOf(userRepository.countCreatedBetween(from, to)));
+        addRow(summaryTable, "Total Rides Posted", String.valueOf(rideRepository.countCreatedBetween(from, to)));
+        addRow(summaryTable, "Total Bookings", String.valueOf(totals.getTotalBookings()));
+        addRow(summaryTable, "Total Earnings", String.format("%.2f", safeDouble(totals.getTotalEarnings())));
+
+        document.add(summaryTable);
+    }
+
+    /**
+     * Fills a table page by page, newest id first. The table is marked incomplete
+     * so each document.add lays out the rows fetched so far and drops them from
+     * the table; the header row repeats on every PDF page.
+     */
+    private <T> void streamTable(Document document, PdfPTable table, Options options, PageQuery<T> query,
+            ToLongFunction<T> id, Function<T, String[]> cells, String... headers) throws DocumentException {
+        table.setWidthPercentage(100);
+        table.setSpacingAfter(20);
+        table.setHeaderRows(1);
+        table.setComplete(false);
+        for (String header : headers)
+            addHeaderCell(table, header);
+
+        Instant from = options.fromInstant();
+        Instant to = options.toInstant();
+        long beforeId = Long.MAX_VALUE;
+        long written = 0;
+        while (true) {
+            int want = options.rowLimit() == 0 ? pageSize : (int) Math.min(pageSize, options.rowLimit() - written);
+            if (want <= 0)
+                break;
+            List<T> page = query.fetch(beforeId, from, to, PageRequest.of(0, want));
+            for (T row : page)
+                addRow(table, cells.apply(row));
+            written += page.size();
+            document.add(table);
+            if (page.size() < want)
+                break;
+            beforeId = id.applyAsLong(page.get(page.size() - 1));
+        }
+        table.setComplete(true);
+        document.add(table);
+    }
+
+    private void addSectionTitle(Document document, String text) throws DocumentException {
+        Paragraph subTitle = new Paragraph(text, FontFactory.getFont(FontFactory.HELVETICA_BOLD, 14));
+        subTitle.setSpacingAfter(10);
+        document.add(subTitle);
+    }
+
+    private String bookingRoute(BookingReportRow b) {
+        if (b.getRideFrom() != null || b.getRideTo() != null)
+            return safeString(b.getRideFrom()) + " -> " + safeString(b.getRideTo());
+        if (b.getPickupLocation() != null)
+            return safeString(b.getPickupLocation()) + " -> " + safeString(b.getDropoffLocation());
+        return "N/A";
+    }
+
+    private String describe(TableFingerprint f) {
+        return f.getRowCount() + "/" + f.getMaxId() + "/" + f.getLastUpdated();
+    }
+
+    private String describePeriod(Options options) {
+        if (options.from() == null && options.to() == null)
+            return "All time";
+        return (options.from() != null ? options.from().toString() : "start") + " to "
+                + (options.to() != null ? options.to().toString() : "today");
+    }
+
     // Helper to add table header
     private void addHeaderCell(PdfPTable table, String text) {
         PdfPCell cell = new PdfPCell(new Phrase(text, FontFactory.getFont(FontFactory.HELVETICA_BOLD)));
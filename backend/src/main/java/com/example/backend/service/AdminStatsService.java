@@ -0,0 +1,94 @@
+package com.example.backend.service;
+
+import com.example.backend.repository.BookingRepository;
+import com.example.backend.repository.BookingTotals;
+import com.example.backend.repository.RideRepository;
+import com.example.backend.repository.UserRepository;
+import com.example.backend.repository.UserRoleCounts;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Figures for the admin dashboard's detailed stats, computed in the database
+ * with one aggregate query per table. Dashboards poll this, so the result is
+ * kept for app.admin.stats-ttl-ms, and when it expires only one request
+ * recomputes it while concurrent ones wait for that result.
+ */
+@Service
+public class AdminStatsService {
+
+    private record Snapshot(Map<String, Object> stats, long computedAtMillis) {
+    }
+
+    private final UserRepository userRepository;
+    private final RideRepository rideRepository;
+    private final BookingRepository bookingRepository;
+
+    @Value("${app.admin.stats-ttl-ms:5000}")
+    private long ttlMillis;
+
+    private volatile Snapshot last;
+    private final AtomicReference<CompletableFuture<Snapshot>> inFlight = new AtomicReference<>();
+
+    public AdminStatsService(UserRepository userRepository, RideRepository rideRepository,
+            BookingRepository bookingRepository) {
+        this.userRepository = userRepository;
+        this.rideRepository = rideRepository;
+        this.bookingRepository = bookingRepository;
+    }
+
+    public Map<String, Object> detailedStats() {
+        Snapshot s = last;
+        if (fresh(s))
+            return s.stats();
+
+        CompletableFuture<Snapshot> mine = new CompletableFuture<>();
+        CompletableFuture<Snapshot> running = inFlight.compareAndExchange(null, mine);
+        if (running != null)
+            return running.join().stats();
+        try {
+            // Another request may have finished a refresh between our check and taking the slot
+            s = last;
+            if (!fresh(s)) {
+                s = new Snapshot(compute(), System.currentTimeMillis());
+                last = s;
+            }
+            mine.complete(s);
+            return s.stats();
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.set(null);
+        }
+    }
+
+    private boolean fresh(Snapshot s) {
+        return s != null && System.currentTimeMillis() - s.computedAtMillis() < ttlMillis;
+    }
+
+    private Map<String, Object> compute() {
+        UserRoleCounts users = userRepository.countRoles();
+        BookingTotals bookings = bookingRepository.totals();
+        long totalRides = rideRepository.count();
+
+        double totalEarnings = bookings.getTotalEarnings();
+        double cashVolume = bookings.getCashVolume();
+        double onlineVolume = totalEarnings - cashVolume;
+
+        return Map.of(
+                "userCount", users.getUsers(),
+                "driverCount", users.getDrivers(),
+                "blockedCount", users.getBlocked(),
+                "totalBookings", bookings.getTotalBookings(),
+                "cancelledBookings", bookings.getCancelledBookings(),
+                "totalEarnings", totalEarnings,
+                "cashVolume", cashVolume,
+                "onlineVolume", onlineVolume,
+                "totalRides", totalRides);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.backend.service;
+
+import com.example.backend.model.Booking;
+import com.example.backend.model.Ride;
+import com.example.backend.model.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA callbacks on User, Ride and Booking that feed AnalyticsService. The
+ * analytics fact is taken from the entity right away and applied once the
+ * transaction commits. Hibernate obtains this listener from Spring, so it can
+ * be injected.
+ */
+@Component
+public class AnalyticsEntityListener {
+
+    private final ApplicationEventPublisher publisher;
+
+    public AnalyticsEntityListener(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void saved(Object entity) {
+        if (entity instanceof User u)
+            publisher.publishEvent(new AnalyticsService.EntityChanged(User.class, u.getId(), AnalyticsService.factOf(u)));
+        else if (entity instanceof Ride r)
+            publisher.publishEvent(new AnalyticsService.EntityChanged(Ride.class, r.getId(), AnalyticsService.factOf(r)));
+        else if (entity instanceof Booking b)
+            publisher.publishEvent(new AnalyticsService.EntityChanged(Booking.class, b.getId(), AnalyticsService.factOf(b)));
+    }
+
+    @PostRemove
+    public void removed(Object entity) {
+        if (entity instanceof User u)
+            publisher.publishEvent(new AnalyticsService.EntityChanged(User.class, u.getId(), null));
+        else if (entity instanceof Ride r)
+            publisher.publishEvent(new AnalyticsService.EntityChanged(Ride.class, r.getId(), null));
+        else if (entity instanceof Booking b)
+            publisher.publishEvent(new AnalyticsService.EntityChanged(Booking.class, b.getId(), null));
+    }
+}
@@ -0,0 +1,471 @@
+package com.example.backend.service;
+
+import com.example.backend.model.Booking;
+import com.example.backend.model.Ride;
+import com.example.backend.model.User;
+import com.example.backend.repository.BookingRepository;
+import com.example.backend.repository.RideRepository;
+import com.example.backend.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+/**
+ * Running counters behind the admin analytics dashboard.
+ *
+ * Every user, ride and booking is reduced to a small fact holding only the
+ * fields the dashboard uses, kept per id. AnalyticsEntityListener publishes
+ * the new fact whenever an entity is saved or deleted, and it is applied here
+ * after the transaction commits: the old fact's contribution is subtracted and
+ * the new one added, so replaying a change is harmless. Seat changes made
+ * with conditional UPDATEs (SeatInventory) arrive as SeatsChanged events.
+ *
+ * snapshot() reads the counters; the assembled response is cached until the
+ * next change or the date rolls over. rebuild() recomputes everything from the
+ * tables, at startup, nightly and on demand; changes that commit while it
+ * runs are replayed on top of the rebuilt state.
+ *
+ * Events only cover commits made on this node. With several nodes, every
+ * app.analytics.reconcile-ms reconcile() reads the users, rides and bookings
+ * whose updated_at is newer than the last pass (less
+ * app.analytics.reconcile-overlap-ms, for transactions still open then and
+ * clock skew between nodes) and applies them like events. Rows deleted on
+ * another node show up as a row count that differs from the counters; when
+ * that is seen on two passes in a row, everything is rebuilt.
+ */
+@Service
+public class AnalyticsService {
+
+    private static final Logger logger = Logger.getLogger(AnalyticsService.class.getName());
+
+    static final Set<String> CONFIRMED = Set.of("ACCEPTED", "PAID", "COMPLETED", "DRIVER_COMPLETED");
+    static final Set<String> PENDING = Set.of("PENDING", "CASH_PAYMENT_PENDING", "PAYMENT_PENDING");
+
+    // Ride dates are free text; tried in this order, as the dashboard always has
+    private static final List<DateTimeFormatter> RIDE_DATE_FORMATS = List.of(
+            DateTimeFormatter.ISO_LOCAL_DATE,
+            DateTimeFormatter.ofPattern("d/M/yyyy"),
+            DateTimeFormatter.ofPattern("dd-MM-yyyy"),
+            DateTimeFormatter.ofPattern("yyyy/MM/dd"),
+            DateTimeFormatter.ofPattern("MM/dd/yyyy"),
+            DateTimeFormatter.ofPattern("dd/MM/yyyy"));
+    private static final DateTimeFormatter ACTIVITY_LABEL = DateTimeFormatter.ofPattern("MMM dd");
+
+    record UserFact(String role) {
+    }
+
+    record RideFact(String status, LocalDate date, String destination, int tickets, LocalDate createdDay) {
+    }
+
+    record BookingFact(String status, long priceCents, LocalDate createdDay, String cancellationReason) {
+    }
+
+    /** An entity was saved (fact set) or deleted (fact null). */
+    public record EntityChanged(Class<?> type, Long id, Object fact) {
+    }
+
+    /** Seats taken (negative) or given back on a ride outside the entity lifecycle. */
+    public record SeatsChanged(Long rideId, int delta) {
+    }
+
+    private final UserRepository userRepository;
+    private final RideRepository rideRepository;
+    private final BookingRepository bookingRepository;
+    private final TransactionTemplate readTx;
+
+    private final Object lock = new Object();
+    private State state = new State();
+    private long version;
+    private Map<String, Object> snapshot;
+    private long snapshotVersion = -1;
+    private LocalDate snapshotDay;
+    private boolean capturing;
+    private final List<Object> replay = new ArrayList<>();
+
+    // Held by rebuild() and reconcile(), which must not run at the same time
+    private final ReentrantLock refreshing = new ReentrantLock();
+    // When the last rebuild or reconcile started reading; rows saved after it are picked up next time
+    private volatile Instant refreshedFrom;
+    private boolean countMismatch;
+
+    @Value("${app.analytics.reconcile-overlap-ms:60000}")
+    private long reconcileOverlapMs;
+
+    public AnalyticsService(UserRepository userRepository, RideRepository rideRepository,
+            BookingRepository bookingRepository, PlatformTransactionManager txManager) {
+        this.userRepository = userRepository;
+        this.rideRepository = rideRepository;
+        this.bookingRepository = bookingRepository;
+        this.readTx = new TransactionTemplate(txManager);
+        this.readTx.setReadOnly(true);
+    }
+
+    static UserFact factOf(User u) {
+        String role = u.getRole() == null ? "UNKNOWN" : u.getRole().replace("ROLE_", "");
+        return new UserFact(role);
+    }
+
+    static RideFact factOf(Ride r) {
+        String status = r.getStatus() == null ? "" : r.getStatus().trim().toUpperCase(Locale.ROOT);
+        String destination = r.getToLocation() == null ? null : r.getToLocation().trim().toLowerCase();
+        return new RideFact(status, parseRideDate(r.getDate()), destination, r.getTickets(), day(r.getCreatedAt()));
+    }
+
+    static BookingFact factOf(Booking b) {
+        long cents = b.getTotalPrice() == null ? 0 : Math.round(b.getTotalPrice() * 100);
+        return new BookingFact(b.getStatus(), cents, day(b.getCreatedAt()), b.getCancellationReason());
+    }
+
+    static LocalDate parseRideDate(String s) {
+        if (s == null || s.trim().isEmpty())
+            return null;
+        String trimmed = s.trim();
+        for (DateTimeFormatter f : RIDE_DATE_FORMATS) {
+            try {
+                return LocalDate.parse(trimmed, f);
+            } catch (Exception e) {
+                // try the next pattern
+            }
+        }
+        return null;
+    }
+
+    private static LocalDate day(Instant instant) {
+        return instant == null ? null : LocalDate.ofInstant(instant, ZoneId.systemDefault());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEntityChanged(EntityChanged e) {
+        apply(e);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSeatsChanged(SeatsChanged e) {
+        apply(e);
+    }
+
+    private void apply(Object event) {
+        synchronized (lock) {
+            state.apply(event);
+            if (capturing)
+                replay.add(event);
+            version++;
+        }
+    }
+
+    /** The dashboard payload. Cheap: served from cache unless something changed. */
+    public Map<String, Object> snapshot() {
+        return snapshot(LocalDate.now());
+    }
+
+    Map<String, Object> snapshot(LocalDate today) {
+        synchronized (lock) {
+            if (snapshot == null || snapshotVersion != version || !today.equals(snapshotDay)) {
+                snapshot = state.render(today);
+                snapshotVersion = version;
+                snapshotDay = today;
+            }
+            return snapshot;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.warning("Analytics rebuild failed: " + e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${app.analytics.rebuild-cron:0 15 4 * * *}")
+    public void nightlyRebuild() {
+        rebuildOnStartup();
+    }
+
+    /** Recomputes every counter from the users, rides and bookings tables. */
+    public Map<String, Object> rebuild() {
+        refreshing.lock();
+        try {
+            return rebuildLocked();
+        } finally {
+            refreshing.unlock();
+        }
+    }
+
+    private Map<String, Object> rebuildLocked() {
+        long start = System.nanoTime();
+        Instant readFrom = Instant.now();
+        synchronized (lock) {
+            capturing = true;
+            replay.clear();
+        }
+        try {
+            State fresh = new State();
+            readTx.executeWithoutResult(status -> {
+                userRepository.findAll().forEach(u -> fresh.apply(new EntityChanged(User.class, u.getId(), factOf(u))));
+                rideRepository.findAll().forEach(r -> fresh.apply(new EntityChanged(Ride.class, r.getId(), factOf(r))));
+                bookingRepository.findAll().forEach(b -> fresh.apply(new EntityChanged(Booking.class, b.getId(), factOf(b))));
+            });
+            Map<String, Object> result = new LinkedHashMap<>();
+            synchronized (lock) {
+                replay.forEach(fresh::apply);
+                result.put("users", fresh.users.size());
+                result.put("rides", fresh.rides.size());
+                result.put("bookings", fresh.bookings.size());
+                result.put("replayedEvents", replay.size());
+                state = fresh;
+                version++;
+                countMismatch = false;
+            }
+            refreshedFrom = readFrom;
+            long ms = (System.nanoTime() - start) / 1_000_000;
+            result.put("millis", ms);
+            logger.info("Analytics rebuilt in " + ms + " ms: " + result);
+            return result;
+        } finally {
+            synchronized (lock) {
+                capturing = false;
+                replay.clear();
+            }
+        }
+    }
+
+    /**
+     * Applies users, rides and bookings saved since the last pass, including
+     * those saved on other nodes, and rebuilds if rows were deleted elsewhere.
+     * Skipped while a rebuild or another reconcile is running.
+     */
+    @Scheduled(fixedDelayString = "${app.analytics.reconcile-ms:30000}")
+    public void reconcile() {
+        Instant last = refreshedFrom;
+        if (last == null || !refreshing.tryLock())
+            return;
+        boolean rebuildNeeded;
+        try {
+            Instant readFrom = Instant.now();
+            Instant since = last.minus(Duration.ofMillis(reconcileOverlapMs));
+            synchronized (lock) {
+                capturing = true;
+                replay.clear();
+            }
+            try {
+                List<Object> changes = new ArrayList<>();
+                long[] rows = new long[3];
+                readTx.executeWithoutResult(status -> {
+                    userRepository.findUpdatedSince(since).forEach(u -> changes.add(new EntityChanged(User.class, u.getId(), factOf(u))));
+                    rideRepository.findUpdatedSince(since).forEach(r -> changes.add(new EntityChanged(Ride.class, r.getId(), factOf(r))));
+                    bookingRepository.findUpdatedSince(since).forEach(b -> changes.add(new EntityChanged(Booking.class, b.getId(), factOf(b))));
+                    rows[0] = userRepository.count();
+                    rows[1] = rideRepository.count();
+                    rows[2] = bookingRepository.count();
+                });
+                synchronized (lock) {
+                    // Local changes that committed meanwhile are newer than what was read
+                    changes.forEach(state::apply);
+                    replay.forEach(state::apply);
+                    if (!changes.isEmpty())
+                        version++;
+                    boolean mismatch = state.users.size() != rows[0] || state.rides.size() != rows[1]
+                            || state.bookings.size() != rows[2];
+                    // A row inserted here after the counts were read also differs once; only a repeat counts
+                    rebuildNeeded = mismatch && countMismatch;
+                    countMismatch = mismatch && !rebuildNeeded;
+                }
+            } finally {
+                synchronized (lock) {
+                    capturing = false;
+                    replay.clear();
+                }
+            }
+            refreshedFrom = readFrom;
+            if (rebuildNeeded) {
+                logger.info("Analytics counters differ from the table row counts; rebuilding");
+                rebuildLocked();
+            }
+        } catch (Exception e) {
+            logger.warning("Analytics reconcile failed: " + e.getMessage());
+        } finally {
+            refreshing.unlock();
+        }
+    }
+
+    private static <K> void count(Map<K, Long> m, K key, long delta) {
+        m.merge(key, delta, (a, b) -> a + b == 0 ? null : a + b);
+    }
+
+    // All counters; only touched while holding the service lock
+    private static final class State {
+        final Map<Long, UserFact> users = new HashMap<>();
+        final Map<Long, RideFact> rides = new HashMap<>();
+        final Map<Long, BookingFact> bookings = new HashMap<>();
+
+        final Map<String, Long> usersByRole = new HashMap<>();
+        final Map<String, Long> bookingsByStatus = new HashMap<>();
+        final Map<String, Long> cancelReasons = new HashMap<>();
+        final Map<LocalDate, Long> revenueCentsByDay = new TreeMap<>();
+        long revenueCents;
+
+        long expiredRides;
+        final TreeMap<LocalDate, Long> openRidesByDate = new TreeMap<>();
+        final Map<String, Long> destinations = new HashMap<>();
+        final Map<LocalDate, Long> ridesCreatedByDay = new HashMap<>();
+        long totalTickets;
+
+        void apply(Object event) {
+            if (event instanceof SeatsChanged s) {
+                RideFact r = rides.get(s.rideId());
+                if (r != null)
+                    ride(s.rideId(), new RideFact(r.status(), r.date(), r.destination(), r.tickets() + s.delta(), r.createdDay()));
+                return;
+            }
+            EntityChanged e = (EntityChanged) event;
+            if (e.type() == User.class)
+                user(e.id(), (UserFact) e.fact());
+            else if (e.type() == Ride.class)
+                ride(e.id(), (RideFact) e.fact());
+            else if (e.type() == Booking.class)
+                booking(e.id(), (BookingFact) e.fact());
+        }
+
+        void user(Long id, UserFact f) {
+            UserFact old = f == null ? users.remove(id) : users.put(id, f);
+            if (old != null)
+                count(usersByRole, old.role(), -1);
+            if (f != null)
+                count(usersByRole, f.role(), 1);
+        }
+
+        void ride(Long id, RideFact f) {
+            RideFact old = f == null ? rides.remove(id) : rides.put(id, f);
+            if (old != null)
+                ride(old, -1);
+            if (f != null)
+                ride(f, 1);
+        }
+
+        private void ride(RideFact f, int sign) {
+            if ("EXPIRED".equals(f.status()))
+                expiredRides += sign;
+            else if ("OPEN".equals(f.status()) && f.date() != null)
+                count(openRidesByDate, f.date(), sign);
+            if (f.destination() != null)
+                count(destinations, f.destination(), sign);
+            if (f.createdDay() != null)
+                count(ridesCreatedByDay, f.createdDay(), sign);
+            totalTickets += (long) sign * f.tickets();
+        }
+
+        void booking(Long id, BookingFact f) {
+            BookingFact old = f == null ? bookings.remove(id) : bookings.put(id, f);
+            if (old != null)
+                booking(old, -1);
+            if (f != null)
+                booking(f, 1);
+        }
+
+        private void booking(BookingFact f, int sign) {
+            if (f.status() != null)
+                count(bookingsByStatus, f.status(), sign);
+            if ("CANCELLED".equals(f.status()))
+                count(cancelReasons, f.cancellationReason() == null ? "Not specified" : f.cancellationReason(), sign);
+            if (CONFIRMED.contains(f.status())) {
+                revenueCents += sign * f.priceCents();
+                if (f.createdDay() != null && f.priceCents() != 0)
+                    count(revenueCentsByDay, f.createdDay(), sign * f.priceCents());
+            }
+        }
+
+        private long statuses(Set<String> names) {
+            long n = 0;
+            for (String s : names) {
+                n += bookingsByStatus.getOrDefault(s, 0L);
+            }
+            return n;
+        }
+
+        Map<String, Object> render(LocalDate today) {
+            // 1. User Distribution
+            Map<String, Long> userDist = new HashMap<>(usersByRole);
+
+            // 2. Booking Status; OPEN rides dated before today count as expired
+            long expired = expiredRides;
+            for (long n : openRidesByDate.headMap(today).values()) {
+                expired += n;
+            }
+            Map<String, Long> bookingStatus = new HashMap<>();
+            bookingStatus.put("CONFIRMED", statuses(CONFIRMED));
+            bookingStatus.put("PENDING", statuses(PENDING));
+            // Manual adjust (+10) for past data as requested
+            bookingStatus.put("EXPIRED", bookingsByStatus.getOrDefault("EXPIRED", 0L) + expired + 10);
+            bookingStatus.put("COMPLETED", bookingsByStatus.getOrDefault("COMPLETED", 0L));
+
+            // 3. Financials & Metrics
+            double avgSeats = rides.isEmpty() ? 0.0 : (double) totalTickets / rides.size();
+
+            // 4. Popular Destinations
+            int rideCount = rides.size();
+            List<Map<String, Object>> popularDestinations = destinations.entrySet().stream()
+                    .filter(e -> !e.getKey().isEmpty())
+                    .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                    .limit(10)
+                    .map(e -> {
+                        Map<String, Object> m = new HashMap<>();
+                        m.put("name", e.getKey().substring(0, 1).toUpperCase() + e.getKey().substring(1));
+                        m.put("count", e.getValue());
+                        m.put("percentage", String.format("%.1f%%", (e.getValue() * 100.0) / Math.max(rideCount, 1)));
+                        return m;
+                    })
+                    .toList();
+
+            // 5. Ride Activity (Last 30 Days)
+            List<String> activityLabels = new ArrayList<>();
+            List<Long> activityData = new ArrayList<>();
+            for (int i = 29; i >= 0; i--) {
+                LocalDate d = today.minusDays(i);
+                activityLabels.add(d.format(ACTIVITY_LABEL));
+                activityData.add(ridesCreatedByDay.getOrDefault(d, 0L));
+            }
+
+            // 6. Cancellation Reasons
+            Map<String, Long> cancelled = new HashMap<>(cancelReasons);
+
+            // 7. Revenue Trends (All Time - Daily)
+            Map<String, Double> dailyRevenue = new TreeMap<>();
+            revenueCentsByDay.forEach((d, cents) -> dailyRevenue.put(d.format(DateTimeFormatter.ISO_LOCAL_DATE), cents / 100.0));
+
+            return Collections.unmodifiableMap(Map.of(
+                    "userDistribution", userDist,
+                    "bookingStatus", bookingStatus,
+                    "popularDestinations", popularDestinations,
+                    "rideActivity", Map.of("labels", activityLabels, "data", activityData),
+                    "totalRevenue", revenueCents / 100.0,
+                    "avgSeatsPerRide", String.format("%.1f", avgSeats),
+                    "cancellationReasons", cancelled,
+                    "revenueTrends", dailyRevenue));
+        }
+    }
+}
@@ -5,8 +5,11 @@ import com.example.backend.model.Ride;
 import com.example.backend.model.User;
 import com.example.backend.repository.BookingRepository;
 import com.example.backend.repository.RideRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
 
@@ -17,38 +20,56 @@ public class BookingService {
     private final BookingRepository bookingRepository;
     private final RideRepository rideRepository;
     private final GoogleMapsService googleMapsService;
-    private final NotificationService notificationService;
+    private final OutboxService outboxService;
     private final EmailService emailService;
     private final UserService userService;
+    private final TransactionTemplate writeTx;
+    private final SeatInventory seatInventory;
+
+    @Value("${app.maps.matrix.max-legs:100}")
+    private int maxBatchLegs;
 
     public BookingService(BookingRepository bookingRepository, RideRepository rideRepository,
-            GoogleMapsService googleMapsService, NotificationService notificationService, EmailService emailService, UserService userService) {
+            GoogleMapsService googleMapsService, OutboxService outboxService, EmailService emailService, UserService userService,
+            PlatformTransactionManager txManager, SeatInventory seatInventory) {
         this.bookingRepository = bookingRepository;
         this.rideRepository = rideRepository;
         this.googleMapsService = googleMapsService;
-        this.notificationService = notificationService;
+        this.outboxService = outboxService;
         this.emailService = emailService;
         this.userService = userService;
+        this.writeTx = new TransactionTemplate(txManager);
+        this.seatInventory = seatInventory;
     }
 
-    @Transactional
     public Booking createBooking(Booking b) {
         if (b.getRide() == null || b.getRide().getId() == null) {
             throw new RuntimeException("Ride ID is required");
         }
         Long rid = b.getRide().getId();
-        Ride r = rideRepository.findById(rid).orElseThrow(() -> new RuntimeException("Ride not found"));
-        if (b.getSeats() > r.getTickets())
+        Ride ride = rideRepository.findById(rid).orElseThrow(() -> new RuntimeException("Ride not found"));
+        if (b.getSeats() > ride.getTickets())
             throw new RuntimeException("Not enough seats available");
 
         // 1. Determine Locations
-        String from = b.getPickupLocation() != null ? b.getPickupLocation() : r.getFromLocation();
-        String to = b.getDropoffLocation() != null ? b.getDropoffLocation() : r.getToLocation();
+        String from = b.getPickupLocation() != null ? b.getPickupLocation() : ride.getFromLocation();
+        String to = b.getDropoffLocation() != null ? b.getDropoffLocation() : ride.getToLocation();
         b.setPickupLocation(from);
         b.setDropoffLocation(to);
 
-        // 2. Calculate Distance
+        // 2. Calculate Distance. This may wait on remote routing providers, so it
+        // runs before the transaction opens rather than holding a DB connection.
         long distMeters = googleMapsService.getDistanceInMeters(from, to);
+
+        return writeTx.execute(status -> persistBooking(b, rid, distMeters));
+    }
+
+    private Booking persistBooking(Booking b, Long rid, long distMeters) {
+        // Take the seats first (atomically, never below zero); the ride is loaded afterwards so it reflects them
+        if (!seatInventory.tryReserve(rid, b.getSeats()))
+            throw new RuntimeException("Not enough seats available");
+        Ride r = rideRepository.findById(rid).orElseThrow(() -> new RuntimeException("Ride not found"));
+
         double distKm = distMeters / 1000.0;
         b.setDistanceKm(distKm);
 
@@ -75,12 +96,10 @@ public class BookingService {
             b.setStatus("PENDING");
         }
 
-        r.setTickets(r.getTickets() - b.getSeats());
-        rideRepository.save(r);
         b.setRide(r);
         Booking saved = bookingRepository.save(b);
 
-        // 5. Notifications
+        // 5. Notifications (outbox rows, delivered after commit)
         sendNotifications(saved, "BOOKING_CREATED");
 
         return saved;
@@ -94,7 +113,7 @@ public class BookingService {
             if ("BOOKING_CREATED".equals(type)) {
                 String msg = String.format("New Booking! %d seats from %s to %s. Offer: Rs. %.2f (%s)", 
                             b.getSeats(), b.getPickupLocation(), b.getDropoffLocation(), b.getTotalPrice(), b.getPaymentMethod());
-                notificationService.createNotification(r.getDriverEmail(), msg, type);
+                outboxService.notify(r.getDriverEmail(), msg, type);
                 // emailService.sendEmail(r.getDriverEmail(), "Carpooling: New Booking Request", msg);
             } else if ("BOOKING_UPDATED".equals(type)) {
                 // Only notify driver of updates if it's significant (e.g. cancelled? handled elsewhere usually)
@@ -108,7 +127,7 @@ public class BookingService {
                     msg = "Ride to " + b.getDropoffLocation() + " marked as " + b.getStatus();
                 }
                 
-                notificationService.createNotification(r.getDriverEmail(), msg, type);
+                outboxService.notify(r.getDriverEmail(), msg, type);
             }
         }
         // Passenger Notification
@@ -121,13 +140,13 @@ public class BookingService {
                     // Send Detailed Email
                     if (r.getDriverEmail() != null) {
                         User driver = userService.findByEmail(r.getDriverEmail()).orElse(null);
-                        emailService.sendRideConfirmationEmail(b.getUserEmail(), r, driver, b);
+                        outboxService.email(emailService.rideConfirmation(b.getUserEmail(), r, driver, b));
                     }
                     break;
                 case "COMPLETED":
                 case "PAID":
                     statusMsg = "Payment Successful! Your ride to " + b.getDropoffLocation() + " is CONFIRMED.";
-                    emailService.sendPaymentReceivedEmail(b.getUserEmail(), b);
+                    outboxService.email(emailService.paymentReceived(b.getUserEmail(), b));
                     break;
                 case "REJECTED":
                     statusMsg = "Sorry, your booking request to " + b.getDropoffLocation() + " was declined by the driver.";
@@ -138,14 +157,26 @@ public class BookingService {
                 default:
                     statusMsg = "Your booking for ride to " + b.getDropoffLocation() + " is now " + b.getStatus();
             }
-            notificationService.createNotification(b.getUserEmail(), statusMsg, type);
+            outboxService.notify(b.getUserEmail(), statusMsg, type);
             // emailService.sendEmail(b.getUserEmail(), "Carpooling: Booking Status Update", statusMsg);
         }
     }
 
     public Booking updateBooking(Booking b) {
-        Booking saved = bookingRepository.save(b);
-        sendNotifications(saved, "BOOKING_UPDATED");
+        return writeTx.execute(status -> {
+            Booking saved = bookingRepository.save(b);
+            sendNotifications(saved, "BOOKING_UPDATED");
+            return saved;
+        });
+    }
+
+    /** A driver's confirmation that the passenger paid cash; the passenger is notified through the outbox. */
+    @Transactional
+    public Booking confirmCash(Booking b) {
+        b.setStatus("COMPLETED");
+        b.setPaymentStatus("PAID");
+        Booking saved = updateBooking(b);
+        outboxService.notify(saved.getUserEmail(), "Driver confirmed Cash Payment. Ride Complete!", "PAYMENT_CONFIRMED");
         return saved;
     }
 
@@ -172,30 +203,25 @@ public class BookingService {
         b.setStatus("CANCELLED");
         b.setCancellationReason(reason);
         
-        // RESTORE SEATS
-        r.setTickets(r.getTickets() + b.getSeats());
-        rideRepository.save(r);
-        
         Booking saved = bookingRepository.save(b);
 
+        // RESTORE SEATS
+        seatInventory.release(r.getId(), b.getSeats());
+
         // Notifications
         String targetEmail = isPassenger ? r.getDriverEmail() : b.getUserEmail();
         String msg = String.format("Booking Cancelled by %s. Reason: %s", 
             isPassenger ? "Passenger" : "Driver", 
             reason != null ? reason : "No reason provided");
             
-        notificationService.createNotification(targetEmail, msg, "BOOKING_CANCELLED");
+        outboxService.notify(targetEmail, msg, "BOOKING_CANCELLED");
         
         // Also notify the actor confirming cancellation
-        notificationService.createNotification(actorEmail, "Booking successfully cancelled.", "BOOKING_CANCELLED");
+        outboxService.notify(actorEmail, "Booking successfully cancelled.", "BOOKING_CANCELLED");
 
         // Send Email
-        try {
-             emailService.sendEmail(targetEmail, "Ride Cancellation Alert", 
-                "Your ride booking has been cancelled.\n\n" + msg + "\n\nRide: " + r.getFromLocation() + " -> " + r.getToLocation());
-        } catch (Exception e) {
-            System.err.println("Failed to send cancellation email: " + e.getMessage());
-        }
+        outboxService.email(new EmailService.Message(targetEmail, "Ride Cancellation Alert",
+                "Your ride booking has been cancelled.\n\n" + msg + "\n\nRide: " + r.getFromLocation() + " -> " + r.getToLocation(), false));
 
         return saved;
     }
@@ -212,12 +238,61 @@ public class BookingService {
         return bookingRepository.findAll();
     }
 
+    public org.springframework.data.domain.Slice<Booking> page(KeysetCursor after,
+            org.springframework.data.domain.Pageable page) {
+        return bookingRepository.findPage(after == null ? null : after.createdAt(), after == null ? null : after.id(), page);
+    }
+
+    /** Bookings on the driver's rides, newest first. The list is ordered by id alone, so only the cursor's id is used. */
+    public org.springframework.data.domain.Slice<Booking> driverPage(String driverEmail, KeysetCursor after,
+            org.springframework.data.domain.Pageable page) {
+        return bookingRepository.findForDriver(com.example.backend.model.Ride.normalizeEmail(driverEmail),
+                after == null ? null : after.id(), page);
+    }
+
+    /** Total, pending and confirmed (accepted or paid) bookings on the driver's rides. */
+    public com.example.backend.repository.DriverBookingCounts driverCounts(String driverEmail) {
+        return bookingRepository.countsForDriver(com.example.backend.model.Ride.normalizeEmail(driverEmail));
+    }
+
     public List<Booking> findByRideId(Long rideId) {
         return bookingRepository.findByRideId(rideId);
     }
 
     public java.util.Map<String, Object> estimatePrice(String from, String to, int seats) {
         long distMeters = googleMapsService.getDistanceInMeters(from, to);
+        return priceEstimate(distMeters, seats);
+    }
+
+    /**
+     * Estimates for many legs with one batched distance lookup. Each leg is a
+     * map with pickupLocation, dropoffLocation and optional seats (default 1);
+     * results come back in the same order.
+     */
+    public List<java.util.Map<String, Object>> estimatePrices(List<java.util.Map<String, Object>> legs) {
+        if (legs.size() > maxBatchLegs)
+            throw new IllegalArgumentException("At most " + maxBatchLegs + " legs per request");
+        List<String> from = new java.util.ArrayList<>();
+        List<String> to = new java.util.ArrayList<>();
+        for (java.util.Map<String, Object> leg : legs) {
+            Object pickup = leg.get("pickupLocation");
+            Object dropoff = leg.get("dropoffLocation");
+            if (pickup == null || dropoff == null)
+                throw new IllegalArgumentException("pickupLocation and dropoffLocation required for every leg");
+            from.add(pickup.toString());
+            to.add(dropoff.toString());
+        }
+        long[] meters = googleMapsService.getDistancesAsync(from, to).join();
+
+        List<java.util.Map<String, Object>> out = new java.util.ArrayList<>();
+        for (int i = 0; i < legs.size(); i++) {
+            Object seats = legs.get(i).get("seats");
+            out.add(priceEstimate(meters[i], seats == null ? 1 : Integer.parseInt(seats.toString())));
+        }
+        return out;
+    }
+
+    private java.util.Map<String, Object> priceEstimate(long distMeters, int seats) {
         double distKm = distMeters / 1000.0;
         double base = 50.0;
         double rate = 2.0;
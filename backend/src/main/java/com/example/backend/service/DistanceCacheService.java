@@ -0,0 +1,196 @@
+package com.example.backend.service;
+
+import com.example.backend.model.CachedDistance;
+import com.example.backend.repository.CachedDistanceRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Two-tier cache for road distances keyed by normalized (from, to, via):
+ * a bounded in-process LRU in front of the distance_cache table.
+ * Only real routing results are cached, never the mock fallback.
+ */
+@Service
+public class DistanceCacheService {
+
+    private static final Logger logger = Logger.getLogger(DistanceCacheService.class.getName());
+
+    private final CachedDistanceRepository repo;
+    private final TransactionTemplate writeTx;
+    private final TtlLruCache<String, Long> memory;
+    private final Duration ttl;
+
+    private final AtomicLong dbHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong puts = new AtomicLong();
+
+    public DistanceCacheService(CachedDistanceRepository repo, PlatformTransactionManager txManager,
+            @Value("${app.maps.distance-cache.max-entries:10000}") int maxEntries,
+            @Value("${app.maps.distance-cache.ttl-hours:168}") long ttlHours) {
+        this.repo = repo;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.memory = new TtlLruCache<>(maxEntries, ttl);
+        // Cache writes must never roll back (or be rolled back with) the caller's booking transaction
+        this.writeTx = new TransactionTemplate(txManager);
+        this.writeTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public static String key(String from, String to, String via) {
+        return normalize(from) + "|" + normalize(to) + "|" + normalize(via);
+    }
+
+    public Long get(String from, String to, String via) {
+        String key = key(from, to, via);
+        Long meters = memory.get(key);
+        if (meters != null)
+            return meters;
+
+        try {
+            CachedDistance row = repo.findByCacheKey(key).orElse(null);
+            if (row != null && row.getExpiresAt() != null && row.getExpiresAt().isAfter(Instant.now())) {
+                dbHits.incrementAndGet();
+                memory.put(key, row.getMeters(), row.getExpiresAt().toEpochMilli());
+                return row.getMeters();
+            }
+        } catch (Exception e) {
+            logger.warning("Distance cache lookup failed: " + e.getMessage());
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void put(String from, String to, String via, long meters) {
+        String key = key(from, to, via);
+        Instant expiresAt = Instant.now().plus(ttl);
+        memory.put(key, meters, expiresAt.toEpochMilli());
+        puts.incrementAndGet();
+        try {
+            writeTx.executeWithoutResult(status -> {
+                CachedDistance row = repo.findByCacheKey(key).orElseGet(() -> new CachedDistance(key, meters, expiresAt));
+                row.setMeters(meters);
+                row.setCreatedAt(Instant.now());
+                row.setExpiresAt(expiresAt);
+                repo.save(row);
+            });
+        } catch (Exception e) {
+            // Most likely a concurrent insert of the same key; the memory tier already has it
+            logger.warning("Distance cache write failed for " + key + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Looks up many keys (from key()) at once: memory first, then a single
+     * IN query for the rest. Keys that miss both tiers are absent from the result.
+     */
+    public Map<String, Long> getAll(Collection<String> keys) {
+        Map<String, Long> found = new HashMap<>();
+        List<String> remaining = new ArrayList<>();
+        for (String key : keys) {
+            Long meters = memory.get(key);
+            if (meters != null) {
+                found.put(key, meters);
+            } else {
+                remaining.add(key);
+            }
+        }
+        if (!remaining.isEmpty()) {
+            try {
+                Instant now = Instant.now();
+                for (CachedDistance row : repo.findByCacheKeyIn(remaining)) {
+                    if (row.getExpiresAt() != null && row.getExpiresAt().isAfter(now)) {
+                        dbHits.incrementAndGet();
+                        memory.put(row.getCacheKey(), row.getMeters(), row.getExpiresAt().toEpochMilli());
+                        found.put(row.getCacheKey(), row.getMeters());
+                    }
+                }
+            } catch (Exception e) {
+                logger.warning("Distance cache batch lookup failed: " + e.getMessage());
+            }
+            misses.addAndGet(remaining.stream().filter(k -> !found.containsKey(k)).count());
+        }
+        return found;
+    }
+
+    /** Stores many results (keyed by key()) in one transaction. */
+    public void putAll(Map<String, Long> metersByKey) {
+        if (metersByKey.isEmpty())
+            return;
+        Instant expiresAt = Instant.now().plus(ttl);
+        metersByKey.forEach((key, meters) -> memory.put(key, meters, expiresAt.toEpochMilli()));
+        puts.addAndGet(metersByKey.size());
+        try {
+            writeTx.executeWithoutResult(status -> {
+                Map<String, CachedDistance> existing = new HashMap<>();
+                for (CachedDistance row : repo.findByCacheKeyIn(metersByKey.keySet())) {
+                    existing.put(row.getCacheKey(), row);
+                }
+                List<CachedDistance> rows = new ArrayList<>();
+                metersByKey.forEach((key, meters) -> {
+                    CachedDistance row = existing.getOrDefault(key, new CachedDistance(key, meters, expiresAt));
+                    row.setMeters(meters);
+                    row.setCreatedAt(Instant.now());
+                    row.setExpiresAt(expiresAt);
+                    rows.add(row);
+                });
+                repo.saveAll(rows);
+            });
+        } catch (Exception e) {
+            logger.warning("Distance cache batch write failed: " + e.getMessage());
+        }
+    }
+
+    public void invalidate(String from, String to, String via) {
+        String key = key(from, to, via);
+        memory.invalidate(key);
+        writeTx.executeWithoutResult(status -> repo.deleteByKey(key));
+    }
+
+    public void invalidateAll() {
+        memory.invalidateAll();
+        writeTx.executeWithoutResult(status -> repo.deleteAllInBatch());
+    }
+
+    @Scheduled(cron = "${app.maps.distance-cache.purge-cron:0 30 3 * * *}")
+    public void purgeExpired() {
+        Integer removed = writeTx.execute(status -> repo.deleteExpired(Instant.now()));
+        if (removed != null && removed > 0)
+            logger.info("Purged " + removed + " expired distance cache rows");
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("memoryEntries", memory.size());
+        m.put("memoryMaxEntries", memory.maxEntries());
+        m.put("memoryHits", memory.hits());
+        m.put("dbHits", dbHits.get());
+        m.put("misses", misses.get());
+        m.put("puts", puts.get());
+        m.put("evictions", memory.evictions());
+        m.put("ttlHours", ttl.toHours());
+        long lookups = memory.hits() + dbHits.get() + misses.get();
+        m.put("hitRatio", lookups == 0 ? 0.0 : (double) (memory.hits() + dbHits.get()) / lookups);
+        return m;
+    }
+
+    private static String normalize(String s) {
+        if (s == null)
+            return "";
+        return s.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
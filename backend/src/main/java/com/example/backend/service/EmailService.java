@@ -2,10 +2,44 @@ package com.example.backend.service;
 
 import org.springframework.stereotype.Service;
 import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Outgoing mail. Messages are queued and sent by a small pool of worker
+ * threads, so callers never wait on SMTP; every send returns a future.
+ *
+ * - The queue is bounded (app.mail.queue-capacity); when it is full the
+ *   future fails at once instead of blocking the caller.
+ * - Each worker keeps one authenticated SMTP connection open and sends many
+ *   messages over it, reconnecting after app.mail.max-messages-per-connection
+ *   messages, after app.mail.idle-close-ms without work, or on an error.
+ * - Plain-text messages to the same recipient that are still waiting in the
+ *   queue are coalesced into one email.
+ * - The ride-confirmation and payment-received bodies are compiled once from
+ *   templates under resources/mail.
+ */
 @Service
 public class EmailService {
 
@@ -15,137 +49,294 @@ public class EmailService {
     @Value("${spring.mail.username}")
     private String fromEmail;
 
-    public void sendEmail(String to, String subject, String content) {
+    @Value("${app.mail.workers:2}")
+    private int workers;
+
+    @Value("${app.mail.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${app.mail.max-messages-per-connection:100}")
+    private int maxMessagesPerConnection;
+
+    @Value("${app.mail.idle-close-ms:30000}")
+    private long idleCloseMs;
+
+    @Value("${app.mail.coalesce:true}")
+    private boolean coalesce;
+
+    private static final MailTemplate RIDE_CONFIRMATION = MailTemplate.load("mail/ride-confirmation.txt", false);
+    private static final MailTemplate PAYMENT_RECEIVED = MailTemplate.load("mail/payment-received.html", true);
+
+    /** A rendered email, ready to send. */
+    public record Message(String to, String subject, String body, boolean html) {
+    }
+
+    // Messages waiting for a worker, keyed by recipient (or a unique key when they can't be merged)
+    private static final class Pending {
+        final List<Message> messages = new ArrayList<>();
+        final List<CompletableFuture<Void>> futures = new ArrayList<>();
+        final long enqueuedNanos = System.nanoTime();
+    }
+
+    private BlockingQueue<String> queue;
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final List<Thread> workerThreads = new ArrayList<>();
+    private final AtomicLong uniqueKeys = new AtomicLong();
+
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong connectionsOpened = new AtomicLong();
+    private final AtomicLong totalSendNanos = new AtomicLong();
+    private final AtomicLong maxSendNanos = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        // Platform threads in both thread modes: Jakarta Mail's SMTPTransport sends
+        // inside synchronized methods, which would pin a virtual thread's carrier
+        // for the whole SMTP exchange, and callers never wait on these threads anyway
+        for (int i = 0; i < workers; i++) {
+            Thread t = new Thread(this::work, "mail-worker-" + i);
+            t.setDaemon(true);
+            t.start();
+            workerThreads.add(t);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        workerThreads.forEach(Thread::interrupt);
+        for (String key : new ArrayList<>(pending.keySet())) {
+            Pending p = pending.remove(key);
+            if (p != null)
+                p.futures.forEach(f -> f.completeExceptionally(new RejectedExecutionException("Mail service stopped")));
+        }
+    }
+
+    /** Queues a message. The future completes when it has been handed to the SMTP server. */
+    public CompletableFuture<Void> send(Message m) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
         if (mailSender == null) {
-            System.out.println("❌ Mail Sender not configured. Skipping email to " + to);
-            return;
+            System.out.println("❌ Mail Sender not configured. Skipping email to " + m.to());
+            future.complete(null);
+            return future;
         }
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(to);
-            message.setSubject(subject);
-            message.setText(content);
-            mailSender.send(message);
-            System.out.println("✅ Email sent successfully to " + to);
-        } catch (Exception e) {
-            System.err.println("❌ Failed to send email: " + e.getMessage());
+        String key = coalesce && !m.html()
+                ? m.to().toLowerCase(Locale.ROOT)
+                : "#" + uniqueKeys.incrementAndGet();
+        boolean[] created = new boolean[1];
+        pending.compute(key, (k, p) -> {
+            if (p == null) {
+                p = new Pending();
+                created[0] = true;
+            }
+            p.messages.add(m);
+            p.futures.add(future);
+            return p;
+        });
+        queued.incrementAndGet();
+        if (!created[0]) {
+            coalesced.incrementAndGet();
+        } else if (!queue.offer(key)) {
+            Pending dropped = pending.remove(key);
+            if (dropped != null) {
+                rejected.addAndGet(dropped.futures.size());
+                dropped.futures.forEach(f -> f.completeExceptionally(new RejectedExecutionException("Mail queue is full")));
+            }
         }
+        return future;
+    }
+
+    public CompletableFuture<Void> sendEmail(String to, String subject, String content) {
+        return send(new Message(to, subject, content, false)).whenComplete((ok, e) -> {
+            if (e != null)
+                System.err.println("❌ Failed to send email: " + e.getMessage());
+        });
+    }
+
+    public CompletableFuture<Void> sendRideConfirmationEmail(String to, com.example.backend.model.Ride ride, com.example.backend.model.User driver, com.example.backend.model.Booking booking) {
+        Message m = rideConfirmation(to, ride, driver, booking);
+        return sendEmail(m.to(), m.subject(), m.body());
     }
 
-    public void sendRideConfirmationEmail(String to, com.example.backend.model.Ride ride, com.example.backend.model.User driver, com.example.backend.model.Booking booking) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("Hello ").append(to.split("@")[0]).append(",\n\n");
-        sb.append("Good news! Your ride request has been ACCEPTED by the driver.\n\n");
-        sb.append("🔹 RIDE DETAILS:\n");
-        sb.append("   • From: ").append(ride.getFromLocation()).append("\n");
-        sb.append("   • To:   ").append(ride.getToLocation()).append("\n");
-        sb.append("   • Date: ").append(ride.getDate()).append("\n");
-        sb.append("   • Time: ").append(formatTo12Hour(ride.getTime())).append("\n\n");
-        sb.append("🔹 DRIVER INFO:\n");
-        sb.append("   • Name:  ").append(driver != null ? driver.getName() : ride.getDriverName()).append("\n");
-        sb.append("   • Phone: ").append(driver != null ? driver.getPhone() : ride.getDriverPhone()).append("\n");
-        sb.append("   • Car:   ").append(driver != null ? driver.getCarModel() : ride.getVehicleType()).append("\n\n");
-        sb.append("🔹 PAYMENT:\n");
-        sb.append("   • Cost:  ₹").append(booking.getTotalPrice()).append("\n");
-        sb.append("   • Status: ").append(booking.getPaymentStatus()).append("\n\n");
-        sb.append("Safe travels!\n");
-        sb.append("- RideShare Team");
+    public Message rideConfirmation(String to, com.example.backend.model.Ride ride, com.example.backend.model.User driver, com.example.backend.model.Booking booking) {
+        Map<String, Object> v = new LinkedHashMap<>();
+        v.put("name", to.split("@")[0]);
+        v.put("from", ride.getFromLocation());
+        v.put("to", ride.getToLocation());
+        v.put("date", ride.getDate());
+        v.put("time", formatTo12Hour(ride.getTime()));
+        v.put("driverName", driver != null ? driver.getName() : ride.getDriverName());
+        v.put("driverPhone", driver != null ? driver.getPhone() : ride.getDriverPhone());
+        v.put("car", driver != null ? driver.getCarModel() : ride.getVehicleType());
+        v.put("cost", booking.getTotalPrice());
+        v.put("paymentStatus", booking.getPaymentStatus());
 
         String subject = "Ride Confirmed! 🚗 Route: " + ride.getFromLocation() + " -> " + ride.getToLocation();
-        
-        // Use the existing sendEmail method which handles the actual sending
-        sendEmail(to, subject, sb.toString());
+        return new Message(to, subject, RIDE_CONFIRMATION.render(v), false);
     }
 
-    public void sendHtmlEmail(String to, String subject, String htmlContent) {
-        if (mailSender == null) return;
-        try {
-            jakarta.mail.internet.MimeMessage message = mailSender.createMimeMessage();
-            org.springframework.mail.javamail.MimeMessageHelper helper = new org.springframework.mail.javamail.MimeMessageHelper(message, true, "UTF-8");
-            helper.setFrom(fromEmail);
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setText(htmlContent, true); // true for HTML
-            mailSender.send(message);
-            System.out.println("✅ HTML Email sent successfully to " + to);
-        } catch (Exception e) {
-            System.err.println("❌ Failed to send HTML email: " + e.getMessage());
-        }
+    public CompletableFuture<Void> sendHtmlEmail(String to, String subject, String htmlContent) {
+        return send(new Message(to, subject, htmlContent, true)).whenComplete((ok, e) -> {
+            if (e != null)
+                System.err.println("❌ Failed to send HTML email: " + e.getMessage());
+        });
     }
 
-    public void sendPaymentReceivedEmail(String to, com.example.backend.model.Booking booking) {
-        String invoiceNo = "INV-" + java.time.Year.now().getValue() + "-" + String.format("%06d", booking.getId());
-        String date = java.time.LocalDate.now().format(java.time.format.DateTimeFormatter.ofPattern("dd MMM yyyy"));
-        String amount = String.format("%.2f", booking.getTotalPrice());
+    public CompletableFuture<Void> sendPaymentReceivedEmail(String to, com.example.backend.model.Booking booking) {
+        Message m = paymentReceived(to, booking);
+        return sendHtmlEmail(m.to(), m.subject(), m.body());
+    }
 
-        StringBuilder html = new StringBuilder();
-        html.append("<html>");
-        html.append("<body style='font-family: Arial, sans-serif; color: #333;'>");
-        html.append("<div style='max-width: 600px; margin: 0 auto; padding: 20px; border: 1px solid #eee; border-radius: 8px;'>");
-        html.append("    <div style='border-bottom: 2px solid #2563eb; padding-bottom: 20px; margin-bottom: 20px;'>");
-        html.append("        <h1 style='color: #2563eb; margin: 0;'>RideShare</h1>");
-        html.append("        <p style='margin: 5px 0 0; color: #666;'>Passenger Invoice</p>");
-        html.append("    </div>");
-        
-        html.append("    <table style='width: 100%; margin-bottom: 20px;'>");
-        html.append("        <tr>");
-        html.append("            <td>");
-        html.append("                <strong>Bill To:</strong><br/>");
-        html.append("                ").append(to.split("@")[0]).append("<br/>");
-        html.append("                ").append(to);
-        html.append("            </td>");
-        html.append("            <td style='text-align: right;'>");
-        html.append("                <strong>Invoice No:</strong> ").append(invoiceNo).append("<br/>");
-        html.append("                <strong>Date:</strong> ").append(date).append("<br/>");
-        html.append("                <strong>Status:</strong> <span style='color: #22c55e;'>PAID</span>");
-        html.append("            </td>");
-        html.append("        </tr>");
-        html.append("    </table>");
-
-        html.append("    <table style='width: 100%; border-collapse: collapse; margin-bottom: 20px;'>");
-        html.append("        <tr style='background-color: #f8fafc; color: #1e293b;'>");
-        html.append("            <th style='text-align: left; padding: 12px; border-bottom: 1px solid #e2e8f0;'>Description</th>");
-        html.append("            <th style='text-align: left; padding: 12px; border-bottom: 1px solid #e2e8f0;'>Details</th>");
-        html.append("        </tr>");
-        html.append("        <tr>");
-        html.append("            <td style='padding: 12px; border-bottom: 1px solid #eee;'>Source</td>");
-        html.append("            <td style='padding: 12px; border-bottom: 1px solid #eee;'>").append(booking.getPickupLocation()).append("</td>");
-        html.append("        </tr>");
-        html.append("        <tr>");
-        html.append("            <td style='padding: 12px; border-bottom: 1px solid #eee;'>Destination</td>");
-        html.append("            <td style='padding: 12px; border-bottom: 1px solid #eee;'>").append(booking.getDropoffLocation()).append("</td>");
-        html.append("        </tr>");
-        html.append("        <tr>");
-        html.append("            <td style='padding: 12px; border-bottom: 1px solid #eee;'>Payment Method</td>");
+    public Message paymentReceived(String to, com.example.backend.model.Booking booking) {
+        String amount = String.format("%.2f", booking.getTotalPrice());
         String pMethod = booking.getPaymentMethod();
         if (pMethod == null) pMethod = "N/A";
         else if (pMethod.toUpperCase().contains("STRIPE") || pMethod.toUpperCase().contains("ONLINE")) pMethod = "Online (Stripe)";
         else if (pMethod.toUpperCase().contains("CASH")) pMethod = "Cash";
-        html.append("            <td style='padding: 12px; border-bottom: 1px solid #eee;'>").append(pMethod).append("</td>");
-        html.append("        </tr>");
-        html.append("        <tr>");
-        html.append("            <td style='padding: 12px; border-bottom: 1px solid #eee;'>Seats</td>");
-        html.append("            <td style='padding: 12px; border-bottom: 1px solid #eee;'>").append(booking.getSeats()).append("</td>");
-        html.append("        </tr>");
-        html.append("    </table>");
-
-        html.append("    <div style='border-top: 2px solid #eee; padding-top: 15px;'>");
-        html.append("        <div style='display: flex; justify-content: space-between; font-weight: bold; font-size: 1.1em;'>");
-        html.append("            <span>Total Paid</span>");
-        html.append("            <span>Rs. ").append(amount).append("</span>");
-        html.append("        </div>");
-        html.append("    </div>");
-
-        html.append("    <div style='margin-top: 30px; padding-top: 20px; border-top: 1px dashed #ccc; text-align: center; color: #888; font-size: 0.9em;'>");
-        html.append("        <p>Thank you for choosing RideShare! Safe travels.</p>");
-        html.append("        <p>- RideShare Team</p>");
-        html.append("    </div>");
-        html.append("</div>");
-        html.append("</body></html>");
+
+        Map<String, Object> v = new LinkedHashMap<>();
+        v.put("name", to.split("@")[0]);
+        v.put("email", to);
+        v.put("invoiceNo", "INV-" + java.time.Year.now().getValue() + "-" + String.format("%06d", booking.getId()));
+        v.put("date", java.time.LocalDate.now().format(java.time.format.DateTimeFormatter.ofPattern("dd MMM yyyy")));
+        v.put("source", booking.getPickupLocation());
+        v.put("destination", booking.getDropoffLocation());
+        v.put("paymentMethod", pMethod);
+        v.put("seats", booking.getSeats());
+        v.put("amount", amount);
 
         String subject = "Payment Receipt: Rs. " + amount;
-        sendHtmlEmail(to, subject, html.toString());
+        return new Message(to, subject, PAYMENT_RECEIVED.render(v), true);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        long n = sent.get();
+        m.put("workers", workerThreads.size());
+        m.put("queueDepth", queue == null ? 0 : queue.size());
+        m.put("queueCapacity", queueCapacity);
+        m.put("queued", queued.get());
+        m.put("coalesced", coalesced.get());
+        m.put("rejected", rejected.get());
+        m.put("sent", n);
+        m.put("failed", failed.get());
+        m.put("connectionsOpened", connectionsOpened.get());
+        m.put("avgSendMillis", n == 0 ? 0 : totalSendNanos.get() / n / 1_000_000);
+        m.put("maxSendMillis", maxSendNanos.get() / 1_000_000);
+        m.put("avgQueueWaitMillis", n == 0 ? 0 : totalWaitNanos.get() / n / 1_000_000);
+        return m;
+    }
+
+    // Worker loop: one SMTP connection per worker, kept open between messages
+    private void work() {
+        SmtpConnection connection = new SmtpConnection();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                String key = queue.poll(idleCloseMs, TimeUnit.MILLISECONDS);
+                if (key == null) {
+                    connection.close();
+                    continue;
+                }
+                Pending p = pending.remove(key);
+                if (p == null)
+                    continue;
+                long start = System.nanoTime();
+                Message m = p.messages.size() == 1 ? p.messages.get(0) : merge(p.messages);
+                try {
+                    deliver(connection, m);
+                    long took = System.nanoTime() - start;
+                    sent.addAndGet(p.messages.size());
+                    totalSendNanos.addAndGet(took * p.messages.size());
+                    maxSendNanos.accumulateAndGet(took, Math::max);
+                    totalWaitNanos.addAndGet((start - p.enqueuedNanos) * p.messages.size());
+                    System.out.println("✅ Email sent successfully to " + m.to());
+                    p.futures.forEach(f -> f.complete(null));
+                } catch (Exception e) {
+                    failed.addAndGet(p.messages.size());
+                    p.futures.forEach(f -> f.completeExceptionally(e));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            connection.close();
+        }
+    }
+
+    private void deliver(SmtpConnection connection, Message m) throws MessagingException {
+        MimeMessage mime = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(mime, m.html(), "UTF-8");
+        helper.setFrom(fromEmail);
+        helper.setTo(m.to());
+        helper.setSubject(m.subject());
+        helper.setText(m.body(), m.html());
+
+        if (!(mailSender instanceof JavaMailSenderImpl impl)) {
+            mailSender.send(mime);
+            return;
+        }
+        boolean reused = connection.isOpen();
+        try {
+            connection.send(impl, mime);
+        } catch (MessagingException e) {
+            connection.close();
+            if (!reused)
+                throw e;
+            // The server may have dropped a connection that sat idle; try once on a fresh one
+            connection.send(impl, mime);
+        }
+    }
+
+    // Several plain-text messages for one recipient that queued up together become one email
+    private static Message merge(List<Message> messages) {
+        StringBuilder body = new StringBuilder();
+        for (Message m : messages) {
+            if (body.length() > 0)
+                body.append("\n\n----------------------------------------\n\n");
+            body.append(m.subject()).append("\n\n").append(m.body());
+        }
+        return new Message(messages.get(0).to(), "RideShare: " + messages.size() + " updates", body.toString(), false);
+    }
+
+    private final class SmtpConnection {
+        private Transport transport;
+        private int sentOnConnection;
+
+        boolean isOpen() {
+            return transport != null;
+        }
+
+        void send(JavaMailSenderImpl impl, MimeMessage mime) throws MessagingException {
+            if (transport != null && sentOnConnection >= maxMessagesPerConnection)
+                close();
+            if (transport == null) {
+                String protocol = impl.getProtocol() != null ? impl.getProtocol() : "smtp";
+                Transport t = impl.getSession().getTransport(protocol);
+                t.connect(impl.getHost(), impl.getPort(), impl.getUsername(), impl.getPassword());
+                transport = t;
+                sentOnConnection = 0;
+                connectionsOpened.incrementAndGet();
+            }
+            mime.saveChanges();
+            transport.sendMessage(mime, mime.getAllRecipients());
+            sentOnConnection++;
+        }
+
+        void close() {
+            if (transport == null)
+                return;
+            try {
+                transport.close();
+            } catch (MessagingException ignored) {
+                // Connection is being discarded anyway
+            }
+            transport = null;
+        }
     }
 
     private String formatTo12Hour(String time) {
@@ -0,0 +1,190 @@
+package com.example.backend.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+
+/**
+ * Offline place-name to lat/lon lookup, consulted before any remote geocoder.
+ *
+ * The source is a TSV (name, lat, lon) - the bundled gazetteer/places.tsv or
+ * an external extract set through app.maps.gazetteer.path. On startup it is
+ * compiled into a sorted file of fixed-width records and memory-mapped, so a
+ * lookup is a binary search over the mapping without copying it onto the heap.
+ * A path ending in ".bin" is treated as an already compiled file.
+ *
+ * Record layout: NAME_BYTES of zero-padded UTF-8 name, then lat and lon as
+ * doubles. The file starts with a MAGIC int and the record count.
+ */
+@Component
+public class Gazetteer {
+
+    private static final Logger logger = Logger.getLogger(Gazetteer.class.getName());
+
+    private static final int MAGIC = 0x47415A31; // "GAZ1"
+    private static final int HEADER = 8;
+    private static final int NAME_BYTES = 48;
+    private static final int RECORD = NAME_BYTES + 16;
+
+    @Value("${app.maps.gazetteer.path:}")
+    private String sourcePath;
+
+    @Value("${app.maps.gazetteer.index-file:${java.io.tmpdir}/rideshare-gazetteer.bin}")
+    private String indexFile;
+
+    private volatile MappedByteBuffer data;
+    private volatile int count;
+
+    @PostConstruct
+    public void load() {
+        try {
+            Path bin;
+            if (sourcePath != null && sourcePath.endsWith(".bin")) {
+                bin = Path.of(sourcePath);
+            } else {
+                bin = Path.of(indexFile);
+                compile(bin);
+            }
+            map(bin);
+            logger.info("Gazetteer loaded with " + count + " places from " + bin);
+        } catch (Exception e) {
+            // Geocoding still works through the remote path
+            logger.warning("Gazetteer unavailable: " + e.getMessage());
+            count = 0;
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Returns {lat, lon} for a known place, or null. Tries the whole address
+     * first and then its leading component ("Vizag, Andhra Pradesh" -> "vizag").
+     */
+    public double[] lookup(String address) {
+        String key = normalize(address);
+        if (key.isEmpty() || count == 0)
+            return null;
+        double[] hit = find(key);
+        if (hit == null) {
+            int comma = key.indexOf(',');
+            if (comma > 0)
+                hit = find(key.substring(0, comma).trim());
+        }
+        return hit;
+    }
+
+    public static String normalize(String s) {
+        if (s == null)
+            return "";
+        return s.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private double[] find(String key) {
+        byte[] probe = key.getBytes(StandardCharsets.UTF_8);
+        if (probe.length > NAME_BYTES)
+            return null;
+        ByteBuffer buf = data.duplicate(); // independent position, safe for concurrent readers
+        int lo = 0, hi = count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = compareName(buf, HEADER + mid * RECORD, probe);
+            if (cmp < 0) {
+                lo = mid + 1;
+            } else if (cmp > 0) {
+                hi = mid - 1;
+            } else {
+                int at = HEADER + mid * RECORD + NAME_BYTES;
+                return new double[] { buf.getDouble(at), buf.getDouble(at + 8) };
+            }
+        }
+        return null;
+    }
+
+    // Unsigned byte comparison of the stored (zero padded) name with the probe
+    private static int compareName(ByteBuffer buf, int offset, byte[] probe) {
+        for (int i = 0; i < NAME_BYTES; i++) {
+            int a = buf.get(offset + i) & 0xff;
+            int b = i < probe.length ? probe[i] & 0xff : 0;
+            if (a != b)
+                return a - b;
+            if (a == 0)
+                return 0;
+        }
+        return 0;
+    }
+
+    private void compile(Path bin) throws IOException {
+        TreeMap<String, double[]> places = new TreeMap<>((a, b) -> Arrays.compareUnsigned(
+                a.getBytes(StandardCharsets.UTF_8), b.getBytes(StandardCharsets.UTF_8)));
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(openSource(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#"))
+                    continue;
+                String[] cols = line.split("\t");
+                if (cols.length < 3)
+                    continue;
+                String name = normalize(cols[0]);
+                if (name.isEmpty() || name.getBytes(StandardCharsets.UTF_8).length > NAME_BYTES)
+                    continue;
+                try {
+                    places.putIfAbsent(name, new double[] { Double.parseDouble(cols[1]), Double.parseDouble(cols[2]) });
+                } catch (NumberFormatException ignored) {
+                    // skip malformed rows
+                }
+            }
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(HEADER + places.size() * RECORD);
+        out.putInt(MAGIC).putInt(places.size());
+        for (var e : places.entrySet()) {
+            byte[] name = Arrays.copyOf(e.getKey().getBytes(StandardCharsets.UTF_8), NAME_BYTES);
+            out.put(name).putDouble(e.getValue()[0]).putDouble(e.getValue()[1]);
+        }
+        if (bin.getParent() != null)
+            Files.createDirectories(bin.getParent());
+        // Write to a temp file and move, so a concurrently starting node never maps a half-written file
+        Path tmp = Files.createTempFile(bin.getParent() != null ? bin.getParent() : Path.of("."), "gazetteer", ".tmp");
+        Files.write(tmp, out.array());
+        Files.move(tmp, bin, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private InputStream openSource() throws IOException {
+        if (sourcePath != null && !sourcePath.isEmpty())
+            return Files.newInputStream(Path.of(sourcePath));
+        return new ClassPathResource("gazetteer/places.tsv").getInputStream();
+    }
+
+    private void map(Path bin) throws IOException {
+        try (FileChannel ch = FileChannel.open(bin, StandardOpenOption.READ)) {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (buf.getInt(0) != MAGIC)
+                throw new IOException("Not a gazetteer index: " + bin);
+            int n = buf.getInt(4);
+            if (ch.size() < HEADER + (long) n * RECORD)
+                throw new IOException("Truncated gazetteer index: " + bin);
+            data = buf;
+            count = n;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Address to {lat, lon}. Resolution order: offline gazetteer, remote-result
+ * cache, negative cache, then Nominatim. Only the last step touches the network.
+ */
+@Service
+public class GeocodingService {
+
+    private static final Logger logger = Logger.getLogger(GeocodingService.class.getName());
+
+    private final Gazetteer gazetteer;
+    private final MapsHttpClient httpClient;
+
+    @Value("${app.maps.geocode.nominatim-url:https://nominatim.openstreetmap.org}")
+    private String nominatimUrl;
+
+    // Remote geocoding results, and addresses Nominatim could not resolve
+    private final TtlLruCache<String, double[]> geocodeCache;
+    private final TtlLruCache<String, Boolean> geocodeMisses;
+    private final long errorRetryMillis;
+    private final Map<String, CompletableFuture<double[]>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong gazetteerHits = new AtomicLong();
+    private final AtomicLong remoteGeocodes = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+
+    public GeocodingService(Gazetteer gazetteer, MapsHttpClient httpClient,
+            @Value("${app.maps.geocode-cache.max-entries:5000}") int geocodeCacheSize,
+            @Value("${app.maps.geocode-cache.ttl-hours:720}") long geocodeTtlHours,
+            @Value("${app.maps.geocode-cache.negative-ttl-minutes:60}") long negativeTtlMinutes,
+            @Value("${app.maps.geocode-cache.error-retry-seconds:60}") long errorRetrySeconds) {
+        this.gazetteer = gazetteer;
+        this.httpClient = httpClient;
+        this.geocodeCache = new TtlLruCache<>(geocodeCacheSize, Duration.ofHours(geocodeTtlHours));
+        this.geocodeMisses = new TtlLruCache<>(geocodeCacheSize, Duration.ofMinutes(negativeTtlMinutes));
+        this.errorRetryMillis = Duration.ofSeconds(errorRetrySeconds).toMillis();
+    }
+
+    /**
+     * Offline lookup only; never calls out.
+     */
+    public double[] lookupOffline(String address) {
+        double[] known = gazetteer.lookup(address);
+        if (known != null)
+            gazetteerHits.incrementAndGet();
+        return known;
+    }
+
+    /**
+     * Resolves an address without blocking the caller. Concurrent lookups of
+     * the same uncached address share one Nominatim request.
+     */
+    public CompletableFuture<double[]> geocodeAsync(String address) {
+        double[] known = lookupOffline(address);
+        if (known != null)
+            return CompletableFuture.completedFuture(known);
+        String key = Gazetteer.normalize(address);
+        double[] cached = geocodeCache.get(key);
+        if (cached != null)
+            return CompletableFuture.completedFuture(cached);
+        if (geocodeMisses.get(key) != null)
+            return CompletableFuture.completedFuture(null);
+
+        String url = UriComponentsBuilder.fromHttpUrl(nominatimUrl + "/search")
+                .queryParam("q", address)
+                .queryParam("format", "json")
+                .queryParam("limit", "1")
+                .toUriString();
+
+        CompletableFuture<double[]> mine = new CompletableFuture<>();
+        CompletableFuture<double[]> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null)
+            return existing;
+
+        remoteGeocodes.incrementAndGet();
+        httpClient.getJson(url, List.class)
+                .handle((list, ex) -> {
+                    if (ex != null)
+                        return onFailure(key, address, ex);
+                    if (list != null && !list.isEmpty()) {
+                        Map<?, ?> item = (Map<?, ?>) list.get(0);
+                        double lat = Double.parseDouble(item.get("lat").toString());
+                        double lon = Double.parseDouble(item.get("lon").toString());
+                        double[] coord = new double[] { lat, lon };
+                        geocodeCache.put(key, coord);
+                        return coord;
+                    }
+                    geocodeMisses.put(key, Boolean.TRUE);
+                    return (double[]) null;
+                })
+                .whenComplete((coord, ex) -> {
+                    inFlight.remove(key, mine);
+                    if (ex != null) {
+                        mine.complete(onFailure(key, address, ex));
+                    } else {
+                        mine.complete(coord);
+                    }
+                });
+        return mine;
+    }
+
+    private double[] onFailure(String key, String address, Throwable ex) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        if (cause instanceof MapsHttpClient.HttpStatusException hse && hse.getStatus() == 429) {
+            rateLimited.incrementAndGet();
+            logger.warning("Nominatim rate limit hit while geocoding " + address);
+        } else {
+            logger.warning("Geocoding failed for " + address + ": " + cause.getMessage());
+        }
+        // Transient failure: back off briefly instead of caching a real miss
+        geocodeMisses.put(key, Boolean.TRUE, System.currentTimeMillis() + errorRetryMillis);
+        return null;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("gazetteerPlaces", gazetteer.size());
+        m.put("gazetteerHits", gazetteerHits.get());
+        m.put("cacheEntries", geocodeCache.size());
+        m.put("cacheHits", geocodeCache.hits());
+        m.put("negativeEntries", geocodeMisses.size());
+        m.put("negativeHits", geocodeMisses.hits());
+        m.put("remoteCalls", remoteGeocodes.get());
+        m.put("inFlight", inFlight.size());
+        m.put("rateLimited", rateLimited.get());
+        return m;
+    }
+
+    public void clearCache() {
+        geocodeCache.invalidateAll();
+        geocodeMisses.invalidateAll();
+    }
+}
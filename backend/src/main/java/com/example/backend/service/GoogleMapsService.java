@@ -2,51 +2,165 @@ package com.example.backend.service;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.web.util.UriComponentsBuilder;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.logging.Logger;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Distances and suggested waypoints for rides and bookings. Answers come from
+ * the distance cache, then the RoutingChain (local road graph, Google, OSRM);
+ * the mock distance is only used when every provider fails, times out or has
+ * its circuit open.
+ *
+ * The *Async methods never block on the network. The plain methods wait at
+ * most app.maps.timeout-ms for them, so callers keep their old signatures.
+ */
 @Service
 public class GoogleMapsService {
 
-    private static final Logger logger = Logger.getLogger(GoogleMapsService.class.getName());
+    // Allowance per waypoint when only the mock distance is available
+    private static final long MOCK_VIA_METERS = 5000;
 
-    @Value("${google.maps.api.key:}")
-    private String apiKey;
+    private final DistanceCacheService distanceCache;
+    private final RoutingChain routingChain;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final long timeoutMs;
+
+    public GoogleMapsService(DistanceCacheService distanceCache, RoutingChain routingChain,
+            @Value("${app.maps.timeout-ms:6000}") long timeoutMs) {
+        this.distanceCache = distanceCache;
+        this.routingChain = routingChain;
+        this.timeoutMs = timeoutMs;
+    }
 
     public long getDistanceInMeters(String from, String to) {
         return getDistanceInMeters(from, to, null);
     }
 
     public long getDistanceInMeters(String from, String to, String waypoints) {
-        if (apiKey != null && !apiKey.isEmpty()) {
-            try {
-                // If using Google Maps, one would pass &waypoints=opt1|opt2
-                // For this implementation, we will stick to simple A -> B distance summation if
-                // waypoints exist
-                // to avoid complex API parameter construction without testing it.
-                // However, a real implementation would append waypoints to the API call.
-                return getGoogleDistance(from, to);
-            } catch (Exception e) {
-                logger.severe("Google Maps Error: " + e.getMessage());
+        return getDistanceInMetersAsync(from, to, waypoints).join();
+    }
+
+    public CompletableFuture<Long> getDistanceInMetersAsync(String from, String to) {
+        return getDistanceInMetersAsync(from, to, null);
+    }
+
+    /** Never completes exceptionally; falls back to the mock distance. */
+    public CompletableFuture<Long> getDistanceInMetersAsync(String from, String to, String waypoints) {
+        Long cached = distanceCache.get(from, to, waypoints);
+        if (cached != null)
+            return CompletableFuture.completedFuture(cached);
+
+        List<String> via = parseWaypoints(waypoints);
+        return routingChain.distanceMeters(from, to, via)
+                .completeOnTimeout(null, timeoutMs, TimeUnit.MILLISECONDS)
+                .exceptionally(ex -> null)
+                .thenApply(routed -> {
+                    if (routed != null) {
+                        distanceCache.put(from, to, waypoints, routed);
+                        return routed;
+                    }
+                    // Never cache the mock fallback, so a transient outage doesn't stick
+                    return mockDistance(from, to) + via.size() * MOCK_VIA_METERS;
+                });
+    }
+
+    public long[][] getDistanceMatrix(List<String> origins, List<String> destinations) {
+        return getDistanceMatrixAsync(origins, destinations).join();
+    }
+
+    /** result[i][j] is origins[i] -> destinations[j]; never completes exceptionally. */
+    public CompletableFuture<long[][]> getDistanceMatrixAsync(List<String> origins, List<String> destinations) {
+        List<String> from = new ArrayList<>();
+        List<String> to = new ArrayList<>();
+        for (String o : origins) {
+            for (String d : destinations) {
+                from.add(o);
+                to.add(d);
+            }
+        }
+        return getDistancesAsync(from, to).thenApply(flat -> {
+            long[][] out = new long[origins.size()][destinations.size()];
+            for (int k = 0; k < flat.length; k++) {
+                out[k / destinations.size()][k % destinations.size()] = flat[k];
             }
+            return out;
+        });
+    }
+
+    /**
+     * Distances for many legs (from[k] -> to[k]) at the cost of roughly one
+     * lookup: cached legs come from a single batch cache read, and the rest are
+     * answered by one matrix request over the distinct places involved.
+     */
+    public CompletableFuture<long[]> getDistancesAsync(List<String> from, List<String> to) {
+        int n = from.size();
+        long[] result = new long[n];
+        String[] keys = new String[n];
+        for (int k = 0; k < n; k++) {
+            keys[k] = DistanceCacheService.key(from.get(k), to.get(k), null);
         }
+        Map<String, Long> cached = distanceCache.getAll(new LinkedHashSet<>(Arrays.asList(keys)));
 
-        long totalDistance = getOpenMapDistance(from, to);
-        // Fallback Logic: If waypoints are present, we might want to increase distance
-        if (waypoints != null && !waypoints.isEmpty()) {
-            // Heuristic: Add 10% distance per waypoint for simulation if real routing isn't
-            // used
-            // In a real scenario, we would call OSRM with waypoints.
-            // For simplicity in this demo environment:
-            String[] points = waypoints.split(",");
-            totalDistance += (points.length * 5000); // +5km per waypoint mock
+        // Distinct places among the legs that still need routing
+        Map<String, Integer> originIndex = new LinkedHashMap<>();
+        Map<String, Integer> destinationIndex = new LinkedHashMap<>();
+        List<String> origins = new ArrayList<>();
+        List<String> destinations = new ArrayList<>();
+        int[] row = new int[n];
+        int[] col = new int[n];
+        for (int k = 0; k < n; k++) {
+            Long hit = cached.get(keys[k]);
+            if (hit != null) {
+                result[k] = hit;
+                row[k] = -1;
+                continue;
+            }
+            int kk = k;
+            row[k] = originIndex.computeIfAbsent(Gazetteer.normalize(from.get(k)), p -> {
+                origins.add(from.get(kk));
+                return origins.size() - 1;
+            });
+            col[k] = destinationIndex.computeIfAbsent(Gazetteer.normalize(to.get(k)), p -> {
+                destinations.add(to.get(kk));
+                return destinations.size() - 1;
+            });
         }
-        return totalDistance;
+        if (origins.isEmpty())
+            return CompletableFuture.completedFuture(result);
+
+        boolean[][] wanted = new boolean[origins.size()][destinations.size()];
+        for (int k = 0; k < n; k++) {
+            if (row[k] >= 0)
+                wanted[row[k]][col[k]] = true;
+        }
+        return routingChain.distanceMatrix(origins, destinations, wanted)
+                .completeOnTimeout(null, timeoutMs, TimeUnit.MILLISECONDS)
+                .exceptionally(ex -> null)
+                .thenApply(matrix -> {
+                    Map<String, Long> fresh = new HashMap<>();
+                    for (int k = 0; k < n; k++) {
+                        if (row[k] < 0)
+                            continue;
+                        Long meters = matrix == null ? null : matrix[row[k]][col[k]];
+                        if (meters != null) {
+                            result[k] = meters;
+                            fresh.put(keys[k], meters);
+                        } else {
+                            // Not cached, same as the single-leg path
+                            result[k] = mockDistance(from.get(k), to.get(k));
+                        }
+                    }
+                    distanceCache.putAll(fresh);
+                    return result;
+                });
     }
 
     public String getSuggestedRoute(String from, String to) {
@@ -56,8 +170,8 @@ public class GoogleMapsService {
         return "Via Highway 44, City Center";
     }
 
-    public java.util.List<String> identifyMajorCities(String from, String to) {
-        java.util.List<String> route = new java.util.ArrayList<>();
+    public List<String> identifyMajorCities(String from, String to) {
+        List<String> route = new ArrayList<>();
         route.add(from);
 
         String f = from.toLowerCase();
@@ -129,164 +243,39 @@ public class GoogleMapsService {
             route.add("Pusapatirega");
             route.add("Etcherla");
         }
-        // REAL API ATTEMPT
-        else if (apiKey != null && !apiKey.isEmpty()) {
-            try {
-                java.util.List<String> apiRes = getGoogleDirectionsCities(from, to);
-                // If API returns valid list > 2 (start+end), use it
-                if (apiRes.size() > 2)
-                    return apiRes;
-            } catch (Exception e) {
-                logger.warning("Directions API failed: " + e.getMessage());
-            }
-            route.add("Midway Stop");
-        }
-        // DEFAULT FALLBACK
+        // Road graph / routing providers
         else {
-            route.add("Check Post"); // More generic than Midway Town
-            route.add("Midway Plaza");
+            List<String> stops = routingChain.waypoints(from, to)
+                    .completeOnTimeout(null, timeoutMs, TimeUnit.MILLISECONDS)
+                    .exceptionally(ex -> null)
+                    .join();
+            if (stops != null && !stops.isEmpty()) {
+                route.addAll(stops);
+            } else {
+                // DEFAULT FALLBACK
+                route.add("Check Post"); // More generic than Midway Town
+                route.add("Midway Plaza");
+            }
         }
 
         route.add(to);
         return route;
     }
 
-    // ... existing private methods ...
-
-    private long getGoogleDistance(String from, String to) {
-        String url = UriComponentsBuilder.fromHttpUrl("https://maps.googleapis.com/maps/api/distancematrix/json")
-                .queryParam("origins", from)
-                .queryParam("destinations", to)
-                .queryParam("key", apiKey)
-                .toUriString();
-        // ... rest is same
-        Map<?, ?> response = restTemplate.getForObject(url, Map.class);
-        if (response != null) {
-            java.util.List<?> rows = (java.util.List<?>) response.get("rows");
-            if (rows != null && !rows.isEmpty()) {
-                Map<?, ?> row = (Map<?, ?>) rows.get(0);
-                java.util.List<?> elements = (java.util.List<?>) row.get("elements");
-                if (elements != null && !elements.isEmpty()) {
-                    Map<?, ?> element = (Map<?, ?>) elements.get(0);
-                    Map<?, ?> distanceMap = (Map<?, ?>) element.get("distance");
-                    if (distanceMap != null) {
-                        Number value = (Number) distanceMap.get("value");
-                        return value.longValue();
-                    }
-                }
-            }
-        }
-        throw new RuntimeException("No distance found in Google Response");
-    }
-
-    // OpenStreetMap Fallback (Nominatim + OSRM)
-    private long getOpenMapDistance(String from, String to) {
-        try {
-            double[] fromCoord = geocode(from);
-            double[] toCoord = geocode(to);
-            if (fromCoord == null || toCoord == null)
-                return mockDistance(from, to);
-
-            String url = "http://router.project-osrm.org/route/v1/driving/"
-                    + fromCoord[1] + "," + fromCoord[0] + ";" + toCoord[1] + "," + toCoord[0]
-                    + "?overview=false";
-
-            org.springframework.http.HttpHeaders headers = new org.springframework.http.HttpHeaders();
-            headers.set("User-Agent", "RideshareApp/1.0");
-            org.springframework.http.HttpEntity<String> entity = new org.springframework.http.HttpEntity<>("parameters",
-                    headers);
-
-            org.springframework.http.ResponseEntity<Map> resp = restTemplate.exchange(url,
-                    org.springframework.http.HttpMethod.GET, entity, Map.class);
-            Map<?, ?> body = resp.getBody();
-
-            if (body != null) {
-                java.util.List<?> routes = (java.util.List<?>) body.get("routes");
-                if (routes != null && !routes.isEmpty()) {
-                    Map<?, ?> route = (Map<?, ?>) routes.get(0);
-                    Number dist = (Number) route.get("distance");
-                    return dist.longValue();
-                }
-            }
-        } catch (Exception e) {
-            logger.warning("OSRM Error: " + e.getMessage());
-        }
-        return mockDistance(from, to);
-    }
-
-    private double[] geocode(String address) {
-        try {
-            String url = UriComponentsBuilder.fromHttpUrl("https://nominatim.openstreetmap.org/search")
-                    .queryParam("q", address)
-                    .queryParam("format", "json")
-                    .queryParam("limit", "1")
-                    .toUriString();
-
-            org.springframework.http.HttpHeaders headers = new org.springframework.http.HttpHeaders();
-            headers.set("User-Agent", "RideshareApp/1.0");
-            org.springframework.http.HttpEntity<String> entity = new org.springframework.http.HttpEntity<>("parameters",
-                    headers);
-
-            org.springframework.http.ResponseEntity<java.util.List> resp = restTemplate.exchange(url,
-                    org.springframework.http.HttpMethod.GET, entity, java.util.List.class);
-            java.util.List<?> list = resp.getBody();
-
-            if (list != null && !list.isEmpty()) {
-                Map<?, ?> item = (Map<?, ?>) list.get(0);
-                double lat = Double.parseDouble(item.get("lat").toString());
-                double lon = Double.parseDouble(item.get("lon").toString());
-                return new double[] { lat, lon };
-            }
-        } catch (Exception e) {
-            logger.warning("Geocoding failed for " + address + ": " + e.getMessage());
+    // Splits "A -> B" or "A, B" into trimmed, non-empty stops
+    private static List<String> parseWaypoints(String waypoints) {
+        List<String> via = new ArrayList<>();
+        if (waypoints == null || waypoints.isBlank())
+            return via;
+        for (String part : waypoints.split("->|,")) {
+            if (!part.isBlank())
+                via.add(part.trim());
         }
-        return null;
+        return via;
     }
 
     private long mockDistance(String from, String to) {
         long seed = from.length() + to.length();
         return 10000 + (seed * 1000);
     }
-
-    private java.util.List<String> getGoogleDirectionsCities(String from, String to) {
-        String url = UriComponentsBuilder.fromHttpUrl("https://maps.googleapis.com/maps/api/directions/json")
-                .queryParam("origin", from)
-                .queryParam("destination", to)
-                .queryParam("key", apiKey)
-                .toUriString();
-
-        Map<?, ?> response = restTemplate.getForObject(url, Map.class);
-        java.util.List<String> cities = new java.util.ArrayList<>();
-        cities.add(from);
-
-        if (response != null) {
-            java.util.List<?> routes = (java.util.List<?>) response.get("routes");
-            if (routes != null && !routes.isEmpty()) {
-                Map<?, ?> route = (Map<?, ?>) routes.get(0);
-                java.util.List<?> legs = (java.util.List<?>) route.get("legs");
-                if (legs != null && !legs.isEmpty()) {
-                    Map<?, ?> leg = (Map<?, ?>) legs.get(0);
-                    java.util.List<?> steps = (java.util.List<?>) leg.get("steps");
-
-                    // Simple heuristic: Take end_locations of major steps roughly every 10km or
-                    // just top 5 steps
-                    if (steps != null) {
-                        for (int i = 0; i < steps.size(); i++) {
-                            // Correct implementation would Reverse Geocode lat/lng here
-                            // For this snippet, we try to extract html_instructions or simple logic
-                            // But Reverse Geocoding is expensive (quota).
-                            // We will stick to the Mock for the "Vizag" demo as it is safer.
-                            // This block is a PLACEHOLDER for the real API logic if the user provides a
-                            // full billing account.
-                        }
-                    }
-                }
-            }
-        }
-        // If real API didn't yield clean cities, we default to fallback list size > 1
-        if (cities.size() == 1)
-            cities.add("Midway Stop");
-        cities.add(to);
-        return cities;
-    }
 }
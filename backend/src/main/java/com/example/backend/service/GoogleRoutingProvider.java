@@ -0,0 +1,116 @@
+package com.example.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Google Distance Matrix / Directions. Only available when google.maps.api.key is set.
+ */
+@Component
+public class GoogleRoutingProvider implements RoutingProvider {
+
+    // Distance Matrix API limits per request
+    private static final int MAX_PLACES = 25;
+    private static final int MAX_ELEMENTS = 100;
+
+    @Value("${google.maps.api.key:}")
+    private String apiKey;
+
+    private final MapsHttpClient httpClient;
+
+    public GoogleRoutingProvider(MapsHttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    @Override
+    public String name() {
+        return "google";
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return apiKey != null && !apiKey.isEmpty();
+    }
+
+    @Override
+    public CompletableFuture<Long> distanceMeters(String from, String to, List<String> via) {
+        // Waypoints are not sent to the Distance Matrix API; the A -> B distance is used as-is
+        String url = UriComponentsBuilder.fromHttpUrl("https://maps.googleapis.com/maps/api/distancematrix/json")
+                .queryParam("origins", from)
+                .queryParam("destinations", to)
+                .queryParam("key", apiKey)
+                .toUriString();
+        return httpClient.getJson(url, Map.class).thenApply(response -> {
+            List<?> rows = (List<?>) response.get("rows");
+            if (rows != null && !rows.isEmpty()) {
+                Map<?, ?> row = (Map<?, ?>) rows.get(0);
+                List<?> elements = (List<?>) row.get("elements");
+                if (elements != null && !elements.isEmpty()) {
+                    Map<?, ?> element = (Map<?, ?>) elements.get(0);
+                    Map<?, ?> distanceMap = (Map<?, ?>) element.get("distance");
+                    if (distanceMap != null) {
+                        Number value = (Number) distanceMap.get("value");
+                        return value.longValue();
+                    }
+                }
+            }
+            throw new RuntimeException("No distance found in Google Response");
+        });
+    }
+
+    /**
+     * One Distance Matrix request with pipe-separated origins and destinations.
+     * Requests over the API's per-request limits return null so the chain moves on.
+     */
+    @Override
+    public CompletableFuture<Long[][]> distanceMatrix(List<String> origins, List<String> destinations) {
+        if (origins.size() > MAX_PLACES || destinations.size() > MAX_PLACES
+                || origins.size() * destinations.size() > MAX_ELEMENTS)
+            return CompletableFuture.completedFuture(null);
+        String url = UriComponentsBuilder.fromHttpUrl("https://maps.googleapis.com/maps/api/distancematrix/json")
+                .queryParam("origins", String.join("|", origins))
+                .queryParam("destinations", String.join("|", destinations))
+                .queryParam("key", apiKey)
+                .toUriString();
+        return httpClient.getJson(url, Map.class).thenApply(response -> {
+            List<?> rows = (List<?>) response.get("rows");
+            if (rows == null)
+                throw new RuntimeException("No rows in Google Response");
+            Long[][] out = new Long[origins.size()][destinations.size()];
+            for (int i = 0; i < out.length && i < rows.size(); i++) {
+                List<?> elements = (List<?>) ((Map<?, ?>) rows.get(i)).get("elements");
+                for (int j = 0; elements != null && j < out[i].length && j < elements.size(); j++) {
+                    Map<?, ?> distanceMap = (Map<?, ?>) ((Map<?, ?>) elements.get(j)).get("distance");
+                    if (distanceMap != null)
+                        out[i][j] = ((Number) distanceMap.get("value")).longValue();
+                }
+            }
+            return out;
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<String>> waypoints(String from, String to) {
+        String url = UriComponentsBuilder.fromHttpUrl("https://maps.googleapis.com/maps/api/directions/json")
+                .queryParam("origin", from)
+                .queryParam("destination", to)
+                .queryParam("key", apiKey)
+                .toUriString();
+
+        return httpClient.getJson(url, Map.class).thenApply(response -> {
+            List<?> routes = (List<?>) response.get("routes");
+            if (routes == null || routes.isEmpty())
+                return null;
+            // Turning the route's steps into town names needs a reverse geocode per step,
+            // which is too expensive on quota; until then a generic stop is returned.
+            List<String> cities = new java.util.ArrayList<>();
+            cities.add("Midway Stop");
+            return cities;
+        });
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.backend.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Position in a list ordered by createdAt DESC, id DESC: the last row a client
+ * has seen. Sent to clients as an opaque URL-safe token in the X-Next-Cursor
+ * header and passed back as the cursor request parameter.
+ */
+public record KeysetCursor(Instant createdAt, long id) {
+
+    public static final String HEADER = "X-Next-Cursor";
+
+    public String encode() {
+        String raw = createdAt.getEpochSecond() + "." + createdAt.getNano() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Null for a missing cursor (first page); IllegalArgumentException for one we did not issue. */
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isBlank())
+            return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+            int colon = raw.indexOf(':');
+            int dot = raw.indexOf('.');
+            if (dot < 0 || colon < dot)
+                throw new IllegalArgumentException();
+            Instant at = Instant.ofEpochSecond(Long.parseLong(raw.substring(0, dot)),
+                    Long.parseLong(raw.substring(dot + 1, colon)));
+            return new KeysetCursor(at, Long.parseLong(raw.substring(colon + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
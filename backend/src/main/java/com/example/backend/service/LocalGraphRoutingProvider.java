@@ -0,0 +1,175 @@
+package com.example.backend.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Logger;
+
+/**
+ * In-process routing over a preprocessed road graph (bundled
+ * routing/road-graph.tsv, or app.maps.routing.graph-path). Needs no network.
+ *
+ * A place is resolved to a graph node by name or alias, by its leading comma
+ * component, or by snapping its offline gazetteer coordinate to the nearest
+ * node within app.maps.routing.snap-radius-km (the snap distance is added to
+ * the route). Places that cannot be resolved make the provider answer null so
+ * the next provider in the chain is tried.
+ */
+@Component
+public class LocalGraphRoutingProvider implements RoutingProvider {
+
+    private static final Logger logger = Logger.getLogger(LocalGraphRoutingProvider.class.getName());
+
+    // Same per-waypoint allowance GoogleMapsService has always used for unknown stops
+    private static final long UNRESOLVED_VIA_METERS = 5000;
+
+    private record Point(int node, long offsetMeters) {
+    }
+
+    private final GeocodingService geocodingService;
+
+    @Value("${app.maps.routing.graph-path:}")
+    private String graphPath;
+
+    @Value("${app.maps.routing.snap-radius-km:15}")
+    private double snapRadiusKm;
+
+    private volatile RoadGraph graph;
+
+    public LocalGraphRoutingProvider(GeocodingService geocodingService) {
+        this.geocodingService = geocodingService;
+    }
+
+    @PostConstruct
+    public void load() {
+        try (InputStream in = graphPath == null || graphPath.isEmpty()
+                ? new ClassPathResource("routing/road-graph.tsv").getInputStream()
+                : Files.newInputStream(Path.of(graphPath))) {
+            graph = RoadGraph.read(new InputStreamReader(in, StandardCharsets.UTF_8));
+            logger.info("Road graph loaded: " + graph.nodeCount() + " places, " + graph.edgeCount() + " roads");
+        } catch (Exception e) {
+            logger.warning("Road graph unavailable, local routing disabled: " + e.getMessage());
+            graph = null;
+        }
+    }
+
+    @Override
+    public String name() {
+        return "local";
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return graph != null;
+    }
+
+    @Override
+    public CompletableFuture<Long> distanceMeters(String from, String to, List<String> via) {
+        // Pure in-memory computation, cheap enough to run on the caller's thread
+        return CompletableFuture.completedFuture(route(from, to, via));
+    }
+
+    @Override
+    public CompletableFuture<Long[][]> distanceMatrix(List<String> origins, List<String> destinations) {
+        RoadGraph g = graph;
+        Point[] ends = new Point[destinations.size()];
+        for (int j = 0; j < ends.length; j++) {
+            ends[j] = resolve(g, destinations.get(j));
+        }
+        Long[][] out = new Long[origins.size()][destinations.size()];
+        for (int i = 0; i < out.length; i++) {
+            Point start = resolve(g, origins.get(i));
+            if (start == null)
+                continue;
+            // One single-source run covers the whole row
+            long[] dist = g.distancesFrom(start.node());
+            for (int j = 0; j < ends.length; j++) {
+                Point end = ends[j];
+                if (end != null && dist[end.node()] != Long.MAX_VALUE)
+                    out[i][j] = dist[end.node()] + start.offsetMeters() + end.offsetMeters();
+            }
+        }
+        return CompletableFuture.completedFuture(out);
+    }
+
+    @Override
+    public CompletableFuture<List<String>> waypoints(String from, String to) {
+        return CompletableFuture.completedFuture(stops(from, to));
+    }
+
+    private Long route(String from, String to, List<String> via) {
+        RoadGraph g = graph;
+        Point start = resolve(g, from);
+        Point end = resolve(g, to);
+        if (start == null || end == null)
+            return null;
+
+        List<Point> points = new ArrayList<>();
+        points.add(start);
+        long total = 0;
+        if (via != null) {
+            for (String stop : via) {
+                Point p = resolve(g, stop);
+                if (p != null) {
+                    points.add(p);
+                } else {
+                    total += UNRESOLVED_VIA_METERS;
+                }
+            }
+        }
+        points.add(end);
+
+        for (int i = 0; i + 1 < points.size(); i++) {
+            Point a = points.get(i);
+            Point b = points.get(i + 1);
+            RoadGraph.Path leg = g.shortestPath(a.node(), b.node());
+            if (leg == null)
+                return null;
+            total += leg.meters();
+        }
+        return total + start.offsetMeters() + end.offsetMeters();
+    }
+
+    private List<String> stops(String from, String to) {
+        RoadGraph g = graph;
+        Point start = resolve(g, from);
+        Point end = resolve(g, to);
+        if (start == null || end == null)
+            return null;
+        RoadGraph.Path path = g.shortestPath(start.node(), end.node());
+        if (path == null || path.nodes().size() < 3)
+            return null;
+        return new ArrayList<>(path.nodes().subList(1, path.nodes().size() - 1));
+    }
+
+    private Point resolve(RoadGraph g, String place) {
+        if (g == null || place == null || place.isBlank())
+            return null;
+        int node = g.node(place);
+        if (node < 0) {
+            int comma = place.indexOf(',');
+            if (comma > 0)
+                node = g.node(place.substring(0, comma));
+        }
+        if (node >= 0)
+            return new Point(node, 0);
+
+        double[] coord = geocodingService.lookupOffline(place);
+        if (coord == null)
+            return null;
+        node = g.nearest(coord[0], coord[1], snapRadiusKm * 1000);
+        if (node < 0)
+            return null;
+        return new Point(node, Math.round(g.distanceTo(node, coord[0], coord[1])));
+    }
+}
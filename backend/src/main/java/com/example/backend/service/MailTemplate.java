@@ -0,0 +1,88 @@
+package com.example.backend.service;
+
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A mail template split once into literal text and {{name}} slots, so
+ * rendering is a single pass of appends with no scanning per message.
+ */
+final class MailTemplate {
+
+    // literals[i] comes before names[i]; the last literal has no slot after it
+    private final String[] literals;
+    private final String[] names;
+    private final boolean html;
+    private final int literalLength;
+
+    private MailTemplate(List<String> literals, List<String> names, boolean html) {
+        this.literals = literals.toArray(new String[0]);
+        this.names = names.toArray(new String[0]);
+        this.html = html;
+        this.literalLength = literals.stream().mapToInt(String::length).sum();
+    }
+
+    /** Loads a template from the classpath; values are HTML-escaped when html is set. */
+    static MailTemplate load(String path, boolean html) {
+        try (InputStream in = new ClassPathResource(path).getInputStream()) {
+            String source = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            if (source.endsWith("\n"))
+                source = source.substring(0, source.length() - 1);
+            return compile(source, html);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot load mail template " + path, e);
+        }
+    }
+
+    static MailTemplate compile(String source, boolean html) {
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        int pos = 0;
+        while (true) {
+            int open = source.indexOf("{{", pos);
+            int close = open < 0 ? -1 : source.indexOf("}}", open + 2);
+            if (close < 0)
+                break;
+            literals.add(source.substring(pos, open));
+            names.add(source.substring(open + 2, close).trim());
+            pos = close + 2;
+        }
+        literals.add(source.substring(pos));
+        return new MailTemplate(literals, names, html);
+    }
+
+    String render(Map<String, ?> values) {
+        StringBuilder sb = new StringBuilder(literalLength + names.length * 16);
+        for (int i = 0; i < names.length; i++) {
+            sb.append(literals[i]);
+            if (!values.containsKey(names[i]))
+                throw new IllegalArgumentException("No value for {{" + names[i] + "}}");
+            String value = String.valueOf(values.get(names[i]));
+            if (html)
+                escape(value, sb);
+            else
+                sb.append(value);
+        }
+        return sb.append(literals[names.length]).toString();
+    }
+
+    private static void escape(String s, StringBuilder sb) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '<' -> sb.append("&lt;");
+                case '>' -> sb.append("&gt;");
+                case '&' -> sb.append("&amp;");
+                case '"' -> sb.append("&quot;");
+                case '\'' -> sb.append("&#39;");
+                default -> sb.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Shared non-blocking HTTP client for the maps providers (Google, OSRM, Nominatim).
+ *
+ * One java.net.http.HttpClient keeps pooled keep-alive connections per host.
+ * Every host additionally gets:
+ * - a bulkhead: at most max-concurrent-per-host requests in flight; excess
+ *   requests fail immediately instead of queueing on a slow upstream,
+ * - a circuit breaker: after failure-threshold consecutive failures the host
+ *   is skipped for open-seconds, then a single trial request is let through.
+ *
+ * Failed futures are the signal for RoutingChain to move to the next provider,
+ * and eventually to the mock distance.
+ */
+@Component
+public class MapsHttpClient {
+
+    private static final Logger logger = Logger.getLogger(MapsHttpClient.class.getName());
+
+    private static final String USER_AGENT = "RideshareApp/1.0";
+
+    /** Non-2xx response from an upstream. */
+    public static class HttpStatusException extends RuntimeException {
+        private final int status;
+
+        public HttpStatusException(String host, int status) {
+            super(host + " returned HTTP " + status);
+            this.status = status;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+    }
+
+    /** Request refused locally because the host's bulkhead is full or its circuit is open. */
+    public static class RejectedException extends RuntimeException {
+        public RejectedException(String message) {
+            super(message);
+        }
+    }
+
+    private final class Host {
+        final String name;
+        final Semaphore permits = new Semaphore(maxConcurrentPerHost);
+        final AtomicLong requests = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        final AtomicLong shortCircuited = new AtomicLong();
+        final AtomicInteger consecutiveFailures = new AtomicInteger();
+        volatile long openUntil = 0;
+        volatile boolean trialInFlight = false;
+
+        Host(String name) {
+            this.name = name;
+        }
+
+        synchronized boolean allowRequest() {
+            long now = System.currentTimeMillis();
+            if (openUntil == 0)
+                return true;
+            if (now < openUntil || trialInFlight)
+                return false;
+            trialInFlight = true; // half-open: one probe request
+            return true;
+        }
+
+        synchronized void onSuccess() {
+            consecutiveFailures.set(0);
+            openUntil = 0;
+            trialInFlight = false;
+        }
+
+        void onFailure() {
+            int n = recordFailure();
+            if (n > 0)
+                logger.warning("Circuit opened for " + name + " after " + n + " consecutive failures");
+        }
+
+        // The consecutive failure count if this failure opened the circuit, else 0. Logged
+        // outside the lock: a virtual thread blocked in the log handler's write must not hold it
+        private synchronized int recordFailure() {
+            failures.incrementAndGet();
+            int n = consecutiveFailures.incrementAndGet();
+            boolean opened = false;
+            if (trialInFlight || n >= failureThreshold) {
+                opened = openUntil == 0 || trialInFlight;
+                openUntil = System.currentTimeMillis() + openMillis;
+            }
+            trialInFlight = false;
+            return opened ? n : 0;
+        }
+
+        String state() {
+            if (openUntil == 0)
+                return "CLOSED";
+            return System.currentTimeMillis() < openUntil ? "OPEN" : "HALF_OPEN";
+        }
+    }
+
+    private final ObjectMapper objectMapper;
+    private final ExecutorService executor;
+    private final HttpClient client;
+    private final Duration requestTimeout;
+    private final int maxConcurrentPerHost;
+    private final int failureThreshold;
+    private final long openMillis;
+    private final Map<String, Host> hosts = new ConcurrentHashMap<>();
+
+    public MapsHttpClient(ObjectMapper objectMapper,
+            @Value("${app.maps.http.connect-timeout-ms:2000}") long connectTimeoutMs,
+            @Value("${app.maps.http.request-timeout-ms:4000}") long requestTimeoutMs,
+            @Value("${app.maps.http.max-concurrent-per-host:8}") int maxConcurrentPerHost,
+            @Value("${app.maps.http.circuit.failure-threshold:5}") int failureThreshold,
+            @Value("${app.maps.http.circuit.open-seconds:30}") long openSeconds,
+            @Value("${app.maps.http.threads:4}") int threads,
+            ThreadMode threadMode) {
+        this.objectMapper = objectMapper;
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMs);
+        this.maxConcurrentPerHost = maxConcurrentPerHost;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = Duration.ofSeconds(openSeconds).toMillis();
+        // Runs the client's response handling and our JSON decoding; a virtual thread per task in virtual mode
+        this.executor = threadMode.executor("maps-http-", threads);
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(executor)
+                .build();
+    }
+
+    /**
+     * GETs a URL and decodes the JSON body. Completes exceptionally on timeout,
+     * non-2xx status, decode errors, or local rejection; never blocks the caller.
+     */
+    public <T> CompletableFuture<T> getJson(String url, Class<T> type) {
+        URI uri;
+        try {
+            uri = URI.create(url);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        Host host = hosts.computeIfAbsent(uri.getHost() == null ? "" : uri.getHost(), Host::new);
+
+        if (!host.permits.tryAcquire()) {
+            host.rejected.incrementAndGet();
+            return CompletableFuture.failedFuture(new RejectedException("Too many concurrent requests to " + host.name));
+        }
+        if (!host.allowRequest()) {
+            host.permits.release();
+            host.shortCircuited.incrementAndGet();
+            return CompletableFuture.failedFuture(new RejectedException("Circuit open for " + host.name));
+        }
+
+        host.requests.incrementAndGet();
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(requestTimeout)
+                .header("User-Agent", USER_AGENT)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+
+        CompletableFuture<T> result;
+        try {
+            result = client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                    .thenApply(resp -> {
+                        if (resp.statusCode() / 100 != 2)
+                            throw new HttpStatusException(host.name, resp.statusCode());
+                        try {
+                            return objectMapper.readValue(resp.body(), type);
+                        } catch (Exception e) {
+                            throw new IllegalStateException("Invalid JSON from " + host.name, e);
+                        }
+                    });
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        return result.whenComplete((body, ex) -> {
+            host.permits.release();
+            if (ex == null || !isUpstreamFault(ex)) {
+                host.onSuccess();
+            } else {
+                host.onFailure();
+            }
+        });
+    }
+
+    // Timeouts, I/O errors, 5xx and 429 count against the circuit; other 4xx mean the host is up
+    private static boolean isUpstreamFault(Throwable ex) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null
+                ? ex.getCause()
+                : ex;
+        if (cause instanceof HttpStatusException hse)
+            return hse.getStatus() >= 500 || hse.getStatus() == 429;
+        return true;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        for (Host h : hosts.values()) {
+            Map<String, Object> s = new LinkedHashMap<>();
+            s.put("circuit", h.state());
+            s.put("inFlight", maxConcurrentPerHost - h.permits.availablePermits());
+            s.put("requests", h.requests.get());
+            s.put("failures", h.failures.get());
+            s.put("rejected", h.rejected.get());
+            s.put("shortCircuited", h.shortCircuited.get());
+            out.put(h.name, s);
+        }
+        return out;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the live notifications table small. Once a night, read notifications
+ * older than app.notifications.archive-after-days move to notification_archive,
+ * app.notifications.archive-batch rows per statement; each move is a single
+ * DELETE ... RETURNING feeding an INSERT, so a row is never in both tables or
+ * in neither. Archived months older than app.notifications.archive-retention-months
+ * are then dropped. Unread notifications are never moved, so unread counts
+ * are unaffected.
+ */
+@Service
+public class NotificationArchiver {
+
+    private static final Logger logger = Logger.getLogger(NotificationArchiver.class.getName());
+
+    private static final String MOVE = "WITH moved AS ("
+            + "DELETE FROM notifications WHERE id IN ("
+            + "SELECT id FROM notifications WHERE is_read AND created_at < ? LIMIT ? FOR UPDATE SKIP LOCKED) "
+            + "RETURNING id, recipient_email, message, type, created_at) "
+            + "INSERT INTO notification_archive (id, recipient_email, message, type, created_at, archive_month, archived_at) "
+            + "SELECT id, recipient_email, message, type, created_at, "
+            + "CAST(date_trunc('month', created_at AT TIME ZONE 'UTC') AS date), now() FROM moved";
+
+    private final JdbcTemplate jdbc;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final AtomicLong archived = new AtomicLong();
+    private final AtomicLong purged = new AtomicLong();
+    private volatile Instant lastRun;
+
+    @Value("${app.notifications.archive-after-days:30}")
+    private int archiveAfterDays;
+
+    @Value("${app.notifications.archive-retention-months:12}")
+    private int retentionMonths;
+
+    @Value("${app.notifications.archive-batch:5000}")
+    private int batchSize;
+
+    public NotificationArchiver(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Scheduled(cron = "${app.notifications.archive-cron:0 15 3 * * *}")
+    public void scheduledRun() {
+        try {
+            run();
+        } catch (Exception e) {
+            logger.warning("Notification archiving failed: " + e.getMessage());
+        }
+    }
+
+    /** Archives and purges now; returns rows archived and purged, or null if a run is already in progress. */
+    public Map<String, Object> run() {
+        if (!running.compareAndSet(false, true))
+            return null;
+        try {
+            Instant cutoff = Instant.now().minus(Duration.ofDays(archiveAfterDays));
+            long moved = 0;
+            int n;
+            do {
+                n = jdbc.update(MOVE, Timestamp.from(cutoff), batchSize);
+                moved += n;
+            } while (n == batchSize);
+
+            LocalDate oldestKept = LocalDate.now(ZoneOffset.UTC).withDayOfMonth(1).minusMonths(retentionMonths);
+            int dropped = jdbc.update("DELETE FROM notification_archive WHERE archive_month < ?", Date.valueOf(oldestKept));
+
+            archived.addAndGet(moved);
+            purged.addAndGet(dropped);
+            lastRun = Instant.now();
+            if (moved > 0 || dropped > 0)
+                logger.info("Archived " + moved + " notifications, dropped " + dropped + " archived before " + oldestKept);
+
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("archived", moved);
+            m.put("purged", dropped);
+            return m;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("archiveAfterDays", archiveAfterDays);
+        m.put("retentionMonths", retentionMonths);
+        m.put("archived", archived.get());
+        m.put("purged", purged.get());
+        m.put("lastRun", lastRun);
+        return m;
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.backend.service;
+
+import com.example.backend.model.Notification;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Collects new notifications for app.notifications.batch-window-ms and writes
+ * them out together: one multi-row INSERT per app.notifications.max-batch
+ * rows, then one STOMP frame per recipient on /user/queue/notifications
+ * carrying all of that recipient's new notifications as an array. A ride
+ * cancellation that notifies twenty passengers costs one insert and twenty
+ * frames rather than twenty inserts and twenty sends, and a user who gets
+ * several notifications at once gets one frame.
+ *
+ * Notifications added inside a transaction are only queued once it commits.
+ * The returned future completes when the row is stored (the push is best
+ * effort), so the outbox only marks a notification sent once it is saved.
+ * A failed insert or a crash inside the window loses the batch here, so
+ * application code notifies through OutboxService.notify, whose dispatcher
+ * retries until the future completes; only OutboxDispatcher calls in directly.
+ */
+@Component
+public class NotificationBatcher {
+
+    private static final Logger logger = Logger.getLogger(NotificationBatcher.class.getName());
+
+    private record Pending(Notification notification, CompletableFuture<Void> stored) {
+    }
+
+    private final JdbcTemplate jdbc;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final UnreadCounter unreadCounter;
+    private final ScheduledExecutorService flusher;
+    private final ConcurrentLinkedQueue<Pending> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicBoolean armed = new AtomicBoolean();
+
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong stored = new AtomicLong();
+    private final AtomicLong inserts = new AtomicLong();
+    private final AtomicLong frames = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    @Value("${app.notifications.batch-window-ms:100}")
+    private long windowMs;
+
+    @Value("${app.notifications.max-batch:500}")
+    private int maxBatch;
+
+    // Also push each notification on its own to the old per-email topic (only its owner may subscribe)
+    @Value("${app.websocket.legacy-topics:false}")
+    private boolean legacyTopics;
+
+    public NotificationBatcher(JdbcTemplate jdbc, SimpMessagingTemplate messagingTemplate, UnreadCounter unreadCounter) {
+        this.jdbc = jdbc;
+        this.messagingTemplate = messagingTemplate;
+        this.unreadCounter = unreadCounter;
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "notification-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        this.flusher = executor;
+    }
+
+    /** Queues a notification; the future completes once it has been stored. */
+    public CompletableFuture<Void> add(Notification n) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        Pending p = new Pending(n, done);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(p);
+            return done;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED)
+                    enqueue(p);
+                else
+                    done.completeExceptionally(new IllegalStateException("Transaction did not commit"));
+            }
+        });
+        return done;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("queued", queued.get());
+        m.put("flushes", flushes.get());
+        m.put("stored", stored.get());
+        m.put("inserts", inserts.get());
+        m.put("frames", frames.get());
+        m.put("failed", failed.get());
+        return m;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // Let a pending or running flush finish, then write whatever is left
+        flusher.shutdown();
+        flusher.awaitTermination(5, TimeUnit.SECONDS);
+        flush();
+    }
+
+    private void enqueue(Pending p) {
+        queue.add(p);
+        if (queued.incrementAndGet() >= maxBatch) {
+            flusher.execute(this::flush);
+        } else if (armed.compareAndSet(false, true)) {
+            flusher.schedule(this::flush, windowMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Only ever runs on the flusher thread (or at shutdown, after it has stopped)
+    private void flush() {
+        armed.set(false);
+        List<Pending> batch = new ArrayList<>();
+        Pending p;
+        while ((p = queue.poll()) != null) {
+            queued.decrementAndGet();
+            batch.add(p);
+            if (batch.size() == maxBatch) {
+                write(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty())
+            write(batch);
+    }
+
+    private void write(List<Pending> batch) {
+        flushes.incrementAndGet();
+        try {
+            insert(batch);
+        } catch (RuntimeException e) {
+            failed.addAndGet(batch.size());
+            logger.warning("Could not store " + batch.size() + " notifications: " + e.getMessage());
+            batch.forEach(p -> p.stored().completeExceptionally(e));
+            return;
+        }
+        stored.addAndGet(batch.size());
+        batch.forEach(p -> p.stored().complete(null));
+        push(batch);
+    }
+
+    // One INSERT ... VALUES (...), (...) RETURNING id; ids come back in row order
+    private void insert(List<Pending> batch) {
+        StringBuilder sql = new StringBuilder(
+                "INSERT INTO notifications (recipient_email, message, type, is_read, created_at) VALUES ");
+        for (int i = 0; i < batch.size(); i++)
+            sql.append(i == 0 ? "(?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?)");
+        sql.append(" RETURNING id");
+
+        List<Long> ids = jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql.toString());
+            int i = 1;
+            for (Pending p : batch) {
+                Notification n = p.notification();
+                ps.setString(i++, n.getRecipientEmail());
+                ps.setString(i++, n.getMessage());
+                ps.setString(i++, n.getType());
+                ps.setBoolean(i++, n.isRead());
+                ps.setTimestamp(i++, n.getCreatedAt() == null ? null : Timestamp.from(n.getCreatedAt()));
+            }
+            return ps;
+        }, (ResultSet rs, int row) -> rs.getLong(1));
+        inserts.incrementAndGet();
+        if (ids.size() != batch.size())
+            throw new IllegalStateException("Expected " + batch.size() + " ids, got " + ids.size());
+        for (int i = 0; i < batch.size(); i++)
+            batch.get(i).notification().setId(ids.get(i));
+    }
+
+    private void push(List<Pending> batch) {
+        Map<String, List<Notification>> byRecipient = new LinkedHashMap<>();
+        for (Pending p : batch) {
+            Notification n = p.notification();
+            byRecipient.computeIfAbsent(n.getRecipientEmail(), k -> new ArrayList<>()).add(n);
+        }
+        byRecipient.forEach((email, list) -> {
+            unreadCounter.added(email, list.size());
+            try {
+                messagingTemplate.convertAndSendToUser(email, "/queue/notifications", list);
+                frames.incrementAndGet();
+                if (legacyTopics) {
+                    for (Notification n : list)
+                        messagingTemplate.convertAndSend("/topic/user/" + email, n);
+                }
+            } catch (RuntimeException e) {
+                // Stored already; the client picks them up on its next fetch
+                logger.warning("Could not push notifications to " + email + ": " + e.getMessage());
+            }
+        });
+    }
+}
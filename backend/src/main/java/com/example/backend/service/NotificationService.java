@@ -1,46 +1,63 @@
 package com.example.backend.service;
 
 import com.example.backend.model.Notification;
+import com.example.backend.model.NotificationArchive;
+import com.example.backend.repository.NotificationArchiveRepository;
 import com.example.backend.repository.NotificationRepository;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
-import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class NotificationService {
     private final NotificationRepository repo;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final NotificationArchiveRepository archiveRepo;
+    private final NotificationBatcher batcher;
+    private final UnreadCounter unreadCounter;
 
-    public NotificationService(NotificationRepository repo, SimpMessagingTemplate messagingTemplate) {
+    public NotificationService(NotificationRepository repo, NotificationArchiveRepository archiveRepo,
+            NotificationBatcher batcher, UnreadCounter unreadCounter) {
         this.repo = repo;
-        this.messagingTemplate = messagingTemplate;
+        this.archiveRepo = archiveRepo;
+        this.batcher = batcher;
+        this.unreadCounter = unreadCounter;
     }
 
-    public Notification createNotification(String email, String message, String type) {
-        Notification n = new Notification(email, message, type);
-        Notification saved = repo.save(n);
-        // Broadcast in-app
-        messagingTemplate.convertAndSend("/topic/user/" + email, saved);
-        return saved;
+    /**
+     * Stores the notification and pushes it in-app, batched with others created
+     * around the same time (see NotificationBatcher). Completes once stored.
+     * Only for OutboxDispatcher: elsewhere use OutboxService.notify, which
+     * retries if the batch is not stored.
+     */
+    public CompletableFuture<Void> createNotification(String email, String message, String type) {
+        return batcher.add(new Notification(email, message, type));
     }
 
-    public List<Notification> getNotificationsForUser(String email) {
-        return repo.findByRecipientEmailOrderByCreatedAtDesc(email);
+    public Slice<Notification> getNotificationsForUser(String email, KeysetCursor after, Pageable page) {
+        return repo.findPageForRecipient(email, after == null ? null : after.createdAt(), after == null ? null : after.id(), page);
     }
 
+    /** Read notifications moved out by NotificationArchiver, newest first. */
+    public Slice<NotificationArchive> getArchivedNotificationsForUser(String email, KeysetCursor after, Pageable page) {
+        return archiveRepo.findPageForRecipient(email, after == null ? null : after.createdAt(), after == null ? null : after.id(), page);
+    }
+
+    @org.springframework.transaction.annotation.Transactional
     public void markAsRead(Long id) {
         repo.findById(id).ifPresent(n -> {
-            n.setRead(true);
-            repo.save(n);
+            if (repo.markReadIfUnread(id) == 1)
+                unreadCounter.read(n.getRecipientEmail(), 1);
         });
     }
 
     public long getUnreadCount(String email) {
-        return repo.countByRecipientEmailAndIsReadFalse(email);
+        return unreadCounter.get(email);
     }
 
     @org.springframework.transaction.annotation.Transactional
     public void markAllAsRead(String email) {
         repo.markAllReadForUser(email);
+        unreadCounter.allRead(email);
     }
 }
@@ -0,0 +1,163 @@
+package com.example.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Public OSRM router, with endpoints geocoded through GeocodingService.
+ * Both endpoints are geocoded concurrently before the route request is sent.
+ */
+@Component
+public class OsrmRoutingProvider implements RoutingProvider {
+
+    // Waypoints are not routed through OSRM; each adds a flat allowance instead
+    private static final long VIA_ALLOWANCE_METERS = 5000;
+
+    private final GeocodingService geocodingService;
+    private final MapsHttpClient httpClient;
+
+    @Value("${app.maps.routing.osrm-url:http://router.project-osrm.org}")
+    private String baseUrl;
+
+    // Public OSRM servers cap the number of coordinates in a /table request
+    @Value("${app.maps.routing.osrm-max-table-size:100}")
+    private int maxTableSize;
+
+    public OsrmRoutingProvider(GeocodingService geocodingService, MapsHttpClient httpClient) {
+        this.geocodingService = geocodingService;
+        this.httpClient = httpClient;
+    }
+
+    @Override
+    public String name() {
+        return "osrm";
+    }
+
+    @Override
+    public CompletableFuture<Long> distanceMeters(String from, String to, List<String> via) {
+        CompletableFuture<double[]> fromCoord = geocodingService.geocodeAsync(from);
+        CompletableFuture<double[]> toCoord = geocodingService.geocodeAsync(to);
+        return fromCoord.thenCombine(toCoord, (a, b) -> new double[][] { a, b }).thenCompose(coords -> {
+            if (coords[0] == null || coords[1] == null)
+                return CompletableFuture.completedFuture(null);
+
+            String url = baseUrl + "/route/v1/driving/"
+                    + coords[0][1] + "," + coords[0][0] + ";" + coords[1][1] + "," + coords[1][0]
+                    + "?overview=false";
+            return httpClient.getJson(url, Map.class).thenApply(body -> {
+                List<?> routes = (List<?>) body.get("routes");
+                if (routes == null || routes.isEmpty())
+                    return null;
+                Map<?, ?> route = (Map<?, ?>) routes.get(0);
+                Number dist = (Number) route.get("distance");
+                long meters = dist.longValue();
+                if (via != null)
+                    meters += via.size() * VIA_ALLOWANCE_METERS;
+                return meters;
+            });
+        });
+    }
+
+    /**
+     * One /table request for the whole matrix. Each distinct place is geocoded
+     * once (all concurrently) and sent once, even if it is both an origin and a
+     * destination.
+     */
+    @Override
+    public CompletableFuture<Long[][]> distanceMatrix(List<String> origins, List<String> destinations) {
+        Map<String, Integer> placeIndex = new LinkedHashMap<>();
+        List<String> places = new ArrayList<>();
+        int[] originPlace = new int[origins.size()];
+        int[] destinationPlace = new int[destinations.size()];
+        for (int i = 0; i < originPlace.length; i++) {
+            originPlace[i] = placeIndex.computeIfAbsent(Gazetteer.normalize(origins.get(i)), k -> {
+                places.add(k);
+                return places.size() - 1;
+            });
+        }
+        for (int j = 0; j < destinationPlace.length; j++) {
+            destinationPlace[j] = placeIndex.computeIfAbsent(Gazetteer.normalize(destinations.get(j)), k -> {
+                places.add(k);
+                return places.size() - 1;
+            });
+        }
+        if (places.size() > maxTableSize)
+            return CompletableFuture.completedFuture(null);
+
+        List<CompletableFuture<double[]>> lookups = new ArrayList<>();
+        for (String place : places) {
+            lookups.add(geocodingService.geocodeAsync(place));
+        }
+        return CompletableFuture.allOf(lookups.toArray(new CompletableFuture[0])).thenCompose(done -> {
+            // Only resolved places are sent; coordIndex maps place -> position in the request
+            int[] coordIndex = new int[places.size()];
+            StringBuilder coords = new StringBuilder();
+            int n = 0;
+            for (int p = 0; p < places.size(); p++) {
+                double[] c = lookups.get(p).join();
+                if (c == null) {
+                    coordIndex[p] = -1;
+                    continue;
+                }
+                if (n > 0)
+                    coords.append(';');
+                coords.append(c[1]).append(',').append(c[0]);
+                coordIndex[p] = n++;
+            }
+            Long[][] out = new Long[origins.size()][destinations.size()];
+            String sources = indexList(originPlace, coordIndex);
+            String targets = indexList(destinationPlace, coordIndex);
+            if (sources.isEmpty() || targets.isEmpty())
+                return CompletableFuture.completedFuture(out);
+
+            String url = baseUrl + "/table/v1/driving/" + coords
+                    + "?sources=" + sources + "&destinations=" + targets + "&annotations=distance";
+            return httpClient.getJson(url, Map.class).thenApply(body -> {
+                List<?> rows = (List<?>) body.get("distances");
+                if (rows == null)
+                    return null;
+                List<Integer> srcCols = distinctResolved(originPlace, coordIndex);
+                List<Integer> dstCols = distinctResolved(destinationPlace, coordIndex);
+                for (int i = 0; i < originPlace.length; i++) {
+                    int r = srcCols.indexOf(coordIndex[originPlace[i]]);
+                    if (r < 0)
+                        continue;
+                    List<?> row = (List<?>) rows.get(r);
+                    for (int j = 0; j < destinationPlace.length; j++) {
+                        int col = dstCols.indexOf(coordIndex[destinationPlace[j]]);
+                        if (col >= 0 && row.get(col) instanceof Number meters)
+                            out[i][j] = Math.round(meters.doubleValue());
+                    }
+                }
+                return out;
+            });
+        });
+    }
+
+    // Request positions of the resolved places, without repeats, in first-seen order
+    private static List<Integer> distinctResolved(int[] places, int[] coordIndex) {
+        List<Integer> out = new ArrayList<>();
+        for (int p : places) {
+            int c = coordIndex[p];
+            if (c >= 0 && !out.contains(c))
+                out.add(c);
+        }
+        return out;
+    }
+
+    private static String indexList(int[] places, int[] coordIndex) {
+        StringBuilder sb = new StringBuilder();
+        for (int c : distinctResolved(places, coordIndex)) {
+            if (sb.length() > 0)
+                sb.append(';');
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.backend.service;
+
+import com.example.backend.model.OutboxEvent;
+import com.example.backend.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Delivers outbox events on a background thread. It runs right after a
+ * transaction that wrote events commits, and on a fixed poll as a fallback
+ * (and for retries).
+ *
+ * Events are claimed in batches with SELECT ... FOR UPDATE SKIP LOCKED and
+ * marked PROCESSING with a lease, so several instances can dispatch without
+ * delivering the same event twice; an event whose dispatcher died becomes due
+ * again when the lease runs out. Delivery happens outside the claiming
+ * transaction; a batch's emails are queued on EmailService together and
+ * awaited once. A failed event is retried with exponential backoff and jitter
+ * until app.outbox.max-attempts, then left FAILED. Delivery is at-least-once.
+ */
+@Component
+public class OutboxDispatcher {
+
+    private static final Logger logger = Logger.getLogger(OutboxDispatcher.class.getName());
+
+    private final OutboxEventRepository repo;
+    private final NotificationService notificationService;
+    private final EmailService emailService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate tx;
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "outbox-dispatcher");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean queued = new AtomicBoolean();
+
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong totalLagMillis = new AtomicLong();
+
+    @Value("${app.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.outbox.backoff-initial-ms:1000}")
+    private long backoffInitialMs;
+
+    @Value("${app.outbox.backoff-max-ms:600000}")
+    private long backoffMaxMs;
+
+    // How long a batch waits for its emails; keep well under the lease
+    @Value("${app.outbox.delivery-timeout-ms:60000}")
+    private long deliveryTimeoutMs;
+
+    @Value("${app.outbox.lease-seconds:120}")
+    private long leaseSeconds;
+
+    @Value("${app.outbox.retention-days:7}")
+    private long retentionDays;
+
+    public OutboxDispatcher(OutboxEventRepository repo, NotificationService notificationService,
+            EmailService emailService, ObjectMapper objectMapper, PlatformTransactionManager txManager) {
+        this.repo = repo;
+        this.notificationService = notificationService;
+        this.emailService = emailService;
+        this.objectMapper = objectMapper;
+        this.tx = new TransactionTemplate(txManager);
+    }
+
+    /** Asks for a dispatch run; wake-ups that arrive while one is queued are merged into it. */
+    public void wake() {
+        if (queued.compareAndSet(false, true))
+            worker.execute(this::drain);
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-ms:2000}")
+    public void poll() {
+        wake();
+    }
+
+    @Scheduled(cron = "0 30 3 * * *")
+    public void purgeSent() {
+        Instant before = Instant.now().minus(Duration.ofDays(retentionDays));
+        Integer removed = tx.execute(status -> repo.deleteSentBefore(before));
+        if (removed != null && removed > 0)
+            logger.info("Purged " + removed + " delivered outbox events");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    private void drain() {
+        queued.set(false);
+        try {
+            // Keep going while batches come back full
+            int claimed;
+            do {
+                claimed = dispatchBatch();
+            } while (claimed == batchSize);
+        } catch (Exception e) {
+            logger.warning("Outbox dispatch failed: " + e.getMessage());
+        }
+    }
+
+    /** Claims and delivers one batch; returns how many events it claimed. */
+    int dispatchBatch() {
+        Instant now = Instant.now();
+        List<OutboxEvent> batch = tx.execute(status -> {
+            List<OutboxEvent> due = repo.findDueForUpdate(now, PageRequest.of(0, batchSize));
+            Instant leaseEnd = now.plusSeconds(leaseSeconds);
+            for (OutboxEvent e : due) {
+                e.setStatus("PROCESSING");
+                e.setNextAttemptAt(leaseEnd);
+            }
+            return due;
+        });
+        if (batch == null || batch.isEmpty())
+            return 0;
+
+        // Hand the whole batch over first, then wait once, so emails in a batch go out concurrently
+        List<CompletableFuture<Void>> results = new ArrayList<>();
+        for (OutboxEvent e : batch) {
+            CompletableFuture<Void> f;
+            try {
+                f = deliver(e);
+            } catch (Exception ex) {
+                f = CompletableFuture.failedFuture(ex);
+            }
+            results.add(f);
+        }
+        try {
+            CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).get(deliveryTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException ignored) {
+            // Outcomes are checked one by one below
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxEvent e = batch.get(i);
+            CompletableFuture<Void> f = results.get(i);
+            if (f.isDone() && !f.isCompletedExceptionally()) {
+                e.setStatus("SENT");
+                e.setProcessedAt(Instant.now());
+                e.setLastError(null);
+                delivered.incrementAndGet();
+                totalLagMillis.addAndGet(Duration.between(e.getCreatedAt(), e.getProcessedAt()).toMillis());
+            } else {
+                scheduleRetry(e, failure(f));
+            }
+        }
+        tx.executeWithoutResult(status -> repo.saveAll(batch));
+        return batch.size();
+    }
+
+    private CompletableFuture<Void> deliver(OutboxEvent e) throws Exception {
+        Map<String, Object> p = objectMapper.readValue(e.getPayload(), new TypeReference<Map<String, Object>>() {
+        });
+        switch (e.getType()) {
+            case OutboxService.NOTIFICATION:
+                return notificationService.createNotification((String) p.get("email"), (String) p.get("message"),
+                        (String) p.get("type"));
+            case OutboxService.EMAIL:
+                return emailService.send(new EmailService.Message((String) p.get("to"), (String) p.get("subject"),
+                        (String) p.get("body"), Boolean.TRUE.equals(p.get("html"))));
+            default:
+                throw new IllegalStateException("Unknown outbox event type " + e.getType());
+        }
+    }
+
+    private Throwable failure(CompletableFuture<Void> f) {
+        if (!f.isDone())
+            return new TimeoutException("Not delivered within " + deliveryTimeoutMs + " ms");
+        try {
+            f.join();
+            return null;
+        } catch (CompletionException | CancellationException ex) {
+            return ex.getCause() != null ? ex.getCause() : ex;
+        }
+    }
+
+    private void scheduleRetry(OutboxEvent e, Throwable ex) {
+        int attempts = e.getAttempts() + 1;
+        e.setAttempts(attempts);
+        String error = ex.getClass().getSimpleName() + ": " + ex.getMessage();
+        e.setLastError(error.length() > 1000 ? error.substring(0, 1000) : error);
+        if (attempts >= maxAttempts) {
+            e.setStatus("FAILED");
+            e.setProcessedAt(Instant.now());
+            failed.incrementAndGet();
+            logger.warning("Outbox event " + e.getId() + " (" + e.getType() + ") gave up after " + attempts
+                    + " attempts: " + error);
+            return;
+        }
+        // initial * 2^(attempts-1), capped, with up to 20% jitter so retries from a burst spread out
+        long delay = Math.min(backoffMaxMs, backoffInitialMs << Math.min(attempts - 1, 30));
+        delay += ThreadLocalRandom.current().nextLong(delay / 5 + 1);
+        e.setStatus("PENDING");
+        e.setNextAttemptAt(Instant.now().plusMillis(delay));
+        retried.incrementAndGet();
+    }
+
+    /** Puts FAILED events back in the queue with a fresh attempt budget. */
+    public int retryFailed() {
+        Integer n = tx.execute(status -> repo.retryFailed(Instant.now()));
+        wake();
+        return n == null ? 0 : n;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        for (String status : List.of("PENDING", "PROCESSING", "SENT", "FAILED")) {
+            m.put(status.toLowerCase(), repo.countByStatus(status));
+        }
+        long n = delivered.get();
+        m.put("delivered", n);
+        m.put("retried", retried.get());
+        m.put("failed", failed.get());
+        m.put("avgLagMillis", n == 0 ? 0 : totalLagMillis.get() / n);
+        return m;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.backend.service;
+
+import com.example.backend.model.OutboxEvent;
+import com.example.backend.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Records notifications and emails as outbox rows in the caller's
+ * transaction, so they are only delivered if the booking change commits and
+ * the request never waits on SMTP or the message broker. OutboxDispatcher is
+ * woken after commit and delivers them.
+ */
+@Service
+public class OutboxService {
+
+    public static final String NOTIFICATION = "NOTIFICATION";
+    public static final String EMAIL = "EMAIL";
+
+    private final OutboxEventRepository repo;
+    private final OutboxDispatcher dispatcher;
+    private final ObjectMapper objectMapper;
+
+    public OutboxService(OutboxEventRepository repo, OutboxDispatcher dispatcher, ObjectMapper objectMapper) {
+        this.repo = repo;
+        this.dispatcher = dispatcher;
+        this.objectMapper = objectMapper;
+    }
+
+    /** In-app notification: saved to the notifications table and pushed over WebSocket. */
+    public void notify(String email, String message, String type) {
+        if (email == null)
+            return;
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("email", email);
+        payload.put("message", message);
+        payload.put("type", type);
+        enqueue(NOTIFICATION, payload);
+    }
+
+    /** An email rendered now and sent by the dispatcher. */
+    public void email(EmailService.Message m) {
+        if (m.to() == null)
+            return;
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("to", m.to());
+        payload.put("subject", m.subject());
+        payload.put("body", m.body());
+        payload.put("html", m.html());
+        enqueue(EMAIL, payload);
+    }
+
+    /**
+     * Not @Transactional: notify() and email() call this on the same object, so
+     * a proxy annotation would never apply. The save joins the caller's
+     * transaction when there is one, and the dispatcher is woken once it
+     * commits; without one the row is saved in its own transaction, so
+     * callers that need the row to be atomic with their change must be
+     * transactional themselves.
+     */
+    private OutboxEvent enqueue(String type, Map<String, Object> payload) {
+        OutboxEvent saved;
+        try {
+            saved = repo.save(new OutboxEvent(type, objectMapper.writeValueAsString(payload)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Outbox payload is not serializable", e);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatcher.wake();
+                }
+            });
+        } else {
+            dispatcher.wake();
+        }
+        return saved;
+    }
+}
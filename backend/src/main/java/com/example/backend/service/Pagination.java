@@ -0,0 +1,48 @@
+package com.example.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Page size limits and cursor headers for the keyset-paginated list endpoints.
+ * Lists stay plain JSON arrays; when there is more, the response carries an
+ * X-Next-Cursor header to pass back as ?cursor=.
+ */
+@Component
+public class Pagination {
+
+    @Value("${app.pagination.default-limit:100}")
+    private int defaultLimit;
+
+    @Value("${app.pagination.max-limit:500}")
+    private int maxLimit;
+
+    /** The first page of the requested size (default when null); IllegalArgumentException when out of range. */
+    public Pageable limit(Integer requested) {
+        int size = requested == null ? defaultLimit : requested;
+        if (size < 1 || size > maxLimit)
+            throw new IllegalArgumentException("limit must be between 1 and " + maxLimit);
+        return PageRequest.of(0, size);
+    }
+
+    /** Headers for a page: X-Next-Cursor pointing after its last row, if there are more rows. */
+    public <T> HttpHeaders nextCursor(Slice<T> slice, Function<T, Instant> createdAt, Function<T, Long> id) {
+        HttpHeaders headers = new HttpHeaders();
+        List<T> rows = slice.getContent();
+        if (slice.hasNext() && !rows.isEmpty()) {
+            T last = rows.get(rows.size() - 1);
+            Instant at = createdAt.apply(last);
+            // createdAt is set on insert; a legacy row without one sorts as the oldest
+            headers.set(KeysetCursor.HEADER, new KeysetCursor(at != null ? at : Instant.EPOCH, id.apply(last)).encode());
+        }
+        return headers;
+    }
+}
@@ -4,6 +4,7 @@ import com.example.backend.model.Payment;
 import com.example.backend.model.Booking;
 import com.example.backend.repository.PaymentRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 
 @Service
@@ -11,12 +12,12 @@ public class PaymentService {
 
     private final PaymentRepository paymentRepository;
     private final BookingService bookingService;
-    private final NotificationService notificationService;
+    private final OutboxService outboxService;
 
-    public PaymentService(PaymentRepository paymentRepository, BookingService bookingService, NotificationService notificationService) {
+    public PaymentService(PaymentRepository paymentRepository, BookingService bookingService, OutboxService outboxService) {
         this.paymentRepository = paymentRepository;
         this.bookingService = bookingService;
-        this.notificationService = notificationService;
+        this.outboxService = outboxService;
     }
 
     public Payment logPaymentIntent(Long bookingId, String userEmail, Double amount, String stripePaymentIntentId) {
@@ -29,6 +30,8 @@ public class PaymentService {
         return paymentRepository.save(p);
     }
 
+    // Payment, booking and the notifications in the outbox commit together
+    @Transactional
     public Payment confirmPayment(String stripePaymentIntentId, String stripePaymentMethodId) {
         Payment p = paymentRepository.findByStripePaymentIntentId(stripePaymentIntentId);
         if (p != null) {
@@ -47,7 +50,7 @@ public class PaymentService {
 
                     // Notify Driver
                     if (b.getRide() != null) {
-                        notificationService.createNotification(
+                        outboxService.notify(
                             b.getRide().getDriverEmail(), 
                             "Passenger Done the Payment: ₹" + b.getTotalPrice() + " from " + b.getUserEmail(), 
                             "PAYMENT_RECEIVED"
@@ -55,7 +58,7 @@ public class PaymentService {
                     }
 
                     // Notify Passenger (Explicitly)
-                    notificationService.createNotification(
+                    outboxService.notify(
                         b.getUserEmail(), 
                         "Payment Successful! Your ride to " + b.getDropoffLocation() + " is CONFIRMED.", 
                         "PAYMENT_CONFIRMED"
@@ -68,6 +71,7 @@ public class PaymentService {
     }
 
 
+    @Transactional
     public com.example.backend.model.Booking simulatePayment(Long bookingId, String userEmail, Double amount) {
         // Create Mock Payment
         Payment p = new Payment();
@@ -90,7 +94,7 @@ public class PaymentService {
 
                 // Notify Driver
                 if (b.getRide() != null) {
-                    notificationService.createNotification(
+                    outboxService.notify(
                         b.getRide().getDriverEmail(), 
                         "Simulated Payment Received: ₹" + b.getTotalPrice() + " from " + b.getUserEmail(), 
                         "PAYMENT_RECEIVED"
@@ -98,7 +102,7 @@ public class PaymentService {
                 }
 
                 // Notify Passenger (Explicitly)
-                notificationService.createNotification(
+                outboxService.notify(
                     b.getUserEmail(), 
                     "Payment Successful! Your ride to " + b.getDropoffLocation() + " is CONFIRMED.", 
                     "PAYMENT_CONFIRMED"
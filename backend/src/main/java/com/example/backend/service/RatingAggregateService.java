@@ -0,0 +1,166 @@
+package com.example.backend.service;
+
+import com.example.backend.model.RatingAggregate;
+import com.example.backend.repository.RatingAggregateRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Average ratings served from the rating_aggregates table through an
+ * in-process cache. Aggregates are incremented as reviews are submitted and
+ * rebuilt from the reviews table at startup, so they also heal after reviews
+ * are changed outside the application.
+ *
+ * A lookup that misses can read a row just before a review commits and put
+ * it in the cache just after the commit dropped the entry. Every drop bumps
+ * a generation counter, and a lookup whose generation moved while it read
+ * drops what it cached, so a stale average is never kept for the TTL.
+ */
+@Service
+public class RatingAggregateService {
+
+    private static final Logger logger = Logger.getLogger(RatingAggregateService.class.getName());
+
+    // Keeps IN lists well under the driver's bind-parameter limit
+    private static final int LOOKUP_CHUNK = 1000;
+
+    private final RatingAggregateRepository repo;
+    private final TransactionTemplate tx;
+    private final TtlLruCache<String, Double> cache;
+    private final AtomicLong generation = new AtomicLong();
+
+    public RatingAggregateService(RatingAggregateRepository repo, PlatformTransactionManager txManager,
+            @Value("${app.ratings.cache.max-entries:50000}") int maxEntries,
+            @Value("${app.ratings.cache.ttl-seconds:600}") long ttlSeconds) {
+        this.repo = repo;
+        this.tx = new TransactionTemplate(txManager);
+        this.cache = new TtlLruCache<>(maxEntries, Duration.ofSeconds(ttlSeconds));
+    }
+
+    /**
+     * Adds one rating to the reviewee's aggregate. Joins the caller's
+     * transaction; the cached average is dropped once it commits.
+     */
+    public void record(String email, int rating) {
+        if (email == null)
+            return;
+        tx.executeWithoutResult(status -> repo.addRating(email, rating));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(email);
+                }
+            });
+        } else {
+            invalidate(email);
+        }
+    }
+
+    public double getAverageRating(String email) {
+        return getAverageRatings(List.of(email)).getOrDefault(email, 0.0);
+    }
+
+    /**
+     * Averages for many users at once: cache hits first, then one query per
+     * 1000 misses. Users without reviews map to 0.0, as before.
+     */
+    public Map<String, Double> getAverageRatings(Collection<String> emails) {
+        Map<String, Double> out = new HashMap<>();
+        Set<String> missing = new LinkedHashSet<>();
+        for (String email : emails) {
+            if (email == null || out.containsKey(email))
+                continue;
+            Double cached = cache.get(email);
+            if (cached != null)
+                out.put(email, cached);
+            else
+                missing.add(email);
+        }
+
+        List<String> batch = new ArrayList<>(Math.min(missing.size(), LOOKUP_CHUNK));
+        for (String email : missing) {
+            batch.add(email);
+            if (batch.size() == LOOKUP_CHUNK) {
+                load(batch, out);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty())
+            load(batch, out);
+        return out;
+    }
+
+    private void load(List<String> emails, Map<String, Double> out) {
+        long seen = generation.get();
+        for (String email : emails) {
+            out.put(email, 0.0);
+        }
+        for (RatingAggregate a : repo.findAllById(emails)) {
+            out.put(a.getRevieweeEmail(), a.getAverage());
+        }
+        for (String email : emails) {
+            cache.put(email, out.get(email));
+        }
+        // Something was dropped while we read: what we put may predate it
+        if (generation.get() != seen) {
+            for (String email : emails)
+                cache.invalidate(email);
+        }
+    }
+
+    // Bump first, so a load that has not yet put sees the change when it checks
+    private void invalidate(String email) {
+        generation.incrementAndGet();
+        cache.invalidate(email);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        try {
+            int rows = rebuild();
+            logger.info("Rating aggregates rebuilt for " + rows + " users");
+        } catch (Exception e) {
+            logger.warning("Rating aggregate backfill failed: " + e.getMessage());
+        }
+    }
+
+    /** Recomputes every aggregate from the reviews table in the database. */
+    public int rebuild() {
+        Integer rows = tx.execute(status -> {
+            repo.deleteOrphans();
+            return repo.rebuildFromReviews();
+        });
+        generation.incrementAndGet();
+        cache.invalidateAll();
+        return rows == null ? 0 : rows;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("cachedUsers", cache.size());
+        m.put("maxEntries", cache.maxEntries());
+        m.put("hits", cache.hits());
+        m.put("misses", cache.misses());
+        m.put("evictions", cache.evictions());
+        return m;
+    }
+}
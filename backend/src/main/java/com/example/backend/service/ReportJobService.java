@@ -0,0 +1,338 @@
+package com.example.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Admin PDF reports generated in the background. A request becomes a job on
+ * app.reports.workers threads; callers poll its status and fetch the finished
+ * file from app.reports.dir.
+ *
+ * Jobs are keyed by their options and AdminReportService.dataFingerprint(),
+ * which is read from the database and so moves with changes made on any node.
+ * Submitting a key that is already queued, running or done returns that job,
+ * so repeated or concurrent downloads of unchanged data share one generation.
+ * The file is named by the SHA-256 of the key, not of its bytes (the PDF
+ * carries a creation time and a random document id): a file already there for
+ * the key, from an earlier run or another node sharing the directory, is
+ * served as is. The SHA-256 of the bytes is still reported as the ETag.
+ */
+@Service
+public class ReportJobService {
+
+    private static final Logger logger = Logger.getLogger(ReportJobService.class.getName());
+
+    public enum Status {
+        QUEUED, RUNNING, DONE, FAILED
+    }
+
+    public static final class Job {
+        private final String id = UUID.randomUUID().toString();
+        private final String key;
+        private final String file;
+        private final AdminReportService.Options options;
+        private final String requestedBy;
+        private final Instant submittedAt = Instant.now();
+        private final CompletableFuture<Void> finished = new CompletableFuture<>();
+        private volatile Status status = Status.QUEUED;
+        private volatile Instant startedAt;
+        private volatile Instant finishedAt;
+        private volatile String sha256;
+        private volatile long sizeBytes;
+        private volatile String error;
+
+        private Job(String key, AdminReportService.Options options, String requestedBy) {
+            this.key = key;
+            this.file = HexFormat.of().formatHex(sha256().digest(key.getBytes(StandardCharsets.UTF_8)));
+            this.options = options;
+            this.requestedBy = requestedBy;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public String getSha256() {
+            return sha256;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("id", id);
+            m.put("status", status);
+            m.put("from", options.from());
+            m.put("to", options.to());
+            m.put("sections", options.sections());
+            m.put("limit", options.rowLimit());
+            m.put("requestedBy", requestedBy);
+            m.put("submittedAt", submittedAt);
+            m.put("startedAt", startedAt);
+            m.put("finishedAt", finishedAt);
+            if (status == Status.DONE) {
+                m.put("sha256", sha256);
+                m.put("sizeBytes", sizeBytes);
+                m.put("downloadUrl", "/api/admin/reports/jobs/" + id + "/file");
+            }
+            if (error != null)
+                m.put("error", error);
+            return m;
+        }
+    }
+
+    private final AdminReportService reportService;
+    private final Path dir;
+    private final ThreadPoolExecutor executor;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Map<String, Job> byKey = new ConcurrentHashMap<>();
+
+    private final AtomicLong generated = new AtomicLong();
+    private final AtomicLong reused = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    @Value("${app.reports.job-retention-minutes:60}")
+    private long retentionMinutes;
+
+    public ReportJobService(AdminReportService reportService,
+            @Value("${app.reports.dir:${java.io.tmpdir}/carpool-reports}") String dir,
+            @Value("${app.reports.workers:1}") int workers,
+            @Value("${app.reports.max-queued:20}") int maxQueued) {
+        this.reportService = reportService;
+        this.dir = Paths.get(dir).toAbsolutePath();
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxQueued), r -> {
+                    Thread t = new Thread(r, "report-worker-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    /**
+     * Returns the job for these options over the current data, starting one
+     * if there is none. Throws IllegalStateException when the queue is full.
+     */
+    public Job submit(AdminReportService.Options options, String requestedBy) {
+        String key = options + "@" + reportService.dataFingerprint(options);
+        Job fresh = new Job(key, options, requestedBy);
+        Job job = byKey.compute(key, (k, existing) -> usable(existing) ? existing : fresh);
+        if (job != fresh) {
+            reused.incrementAndGet();
+            return job;
+        }
+
+        jobs.put(job.id, job);
+        if (adopt(job)) {
+            reused.incrementAndGet();
+            return job;
+        }
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            byKey.remove(key, job);
+            jobs.remove(job.id);
+            throw new IllegalStateException("Too many reports queued, try again shortly");
+        }
+        return job;
+    }
+
+    public Optional<Job> find(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    /** Waits up to the timeout for the job to finish, then returns it in whatever state it is in. */
+    public Job await(Job job, Duration timeout) {
+        try {
+            job.finished.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // still running; the caller polls
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // run() never completes exceptionally
+        }
+        return job;
+    }
+
+    /** The stored PDF of a finished job, or empty if it is not done (or was cleaned up). */
+    public Optional<Path> artifact(Job job) {
+        if (job.status != Status.DONE)
+            return Optional.empty();
+        Path path = artifactPath(job.file);
+        return Files.exists(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("dir", dir.toString());
+        m.put("jobs", jobs.size());
+        m.put("queued", executor.getQueue().size());
+        m.put("running", executor.getActiveCount());
+        m.put("generated", generated.get());
+        m.put("reused", reused.get());
+        m.put("failed", failed.get());
+        return m;
+    }
+
+    /** Forgets jobs finished longer ago than app.reports.job-retention-minutes and deletes their files. */
+    @Scheduled(fixedDelayString = "${app.reports.cleanup-ms:600000}")
+    public void cleanup() {
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(retentionMinutes));
+        jobs.values().removeIf(job -> {
+            if (job.finishedAt == null || !job.finishedAt.isBefore(cutoff))
+                return false;
+            byKey.remove(job.key, job);
+            return true;
+        });
+        Set<String> live = new HashSet<>();
+        for (Job job : jobs.values()) {
+            if (job.status == Status.DONE)
+                live.add(job.file);
+        }
+        removeArtifacts(live, cutoff);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private boolean usable(Job job) {
+        if (job == null || job.status == Status.FAILED)
+            return false;
+        return job.status != Status.DONE || Files.exists(artifactPath(job.file));
+    }
+
+    // Finishes the job with a file already stored for its key, if there is one
+    private boolean adopt(Job job) {
+        Path path = artifactPath(job.file);
+        if (!Files.exists(path))
+            return false;
+        try {
+            job.sha256 = HexFormat.of().formatHex(sha256().digest(Files.readAllBytes(path)));
+            job.sizeBytes = Files.size(path);
+            // Kept by cleanup like a freshly generated file
+            Files.setLastModifiedTime(path, FileTime.from(Instant.now()));
+        } catch (IOException e) {
+            // removed meanwhile or unreadable; generate it again
+            return false;
+        }
+        job.startedAt = Instant.now();
+        job.finishedAt = job.startedAt;
+        job.status = Status.DONE;
+        job.finished.complete(null);
+        return true;
+    }
+
+    private void run(Job job) {
+        job.status = Status.RUNNING;
+        job.startedAt = Instant.now();
+        Path tmp = null;
+        try {
+            Files.createDirectories(dir);
+            tmp = Files.createTempFile(dir, "report-", ".tmp");
+            MessageDigest digest = sha256();
+            try (OutputStream out = new DigestOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)), digest)) {
+                reportService.writeAdminReport(job.options, out);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            Path target = artifactPath(job.file);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            job.sizeBytes = Files.size(target);
+            job.sha256 = hash;
+            job.status = Status.DONE;
+            generated.incrementAndGet();
+            logger.info("Report " + job.id + " generated: " + job.sizeBytes + " bytes, sha256 " + hash);
+        } catch (Exception e) {
+            job.error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            job.status = Status.FAILED;
+            byKey.remove(job.key, job);
+            failed.incrementAndGet();
+            logger.warning("Report " + job.id + " failed: " + job.error);
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {
+                    // removed on the next cleanup
+                }
+            }
+        } finally {
+            job.finishedAt = Instant.now();
+            job.finished.complete(null);
+        }
+    }
+
+    private Path artifactPath(String file) {
+        return dir.resolve(file + ".pdf");
+    }
+
+    // Deletes stored reports and leftover temp files last written before the cutoff, except the given names
+    private void removeArtifacts(Set<String> keep, Instant cutoff) {
+        if (!Files.isDirectory(dir))
+            return;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.{pdf,tmp}")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (!name.matches("[0-9a-f]{64}\\.pdf|report-.*\\.tmp"))
+                    continue;
+                if (keep.contains(name.substring(0, name.length() - 4)))
+                    continue;
+                if (Files.getLastModifiedTime(file).toInstant().isBefore(cutoff))
+                    Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            logger.warning("Could not clean report directory " + dir + ": " + e.getMessage());
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,29 +1,44 @@
 package com.example.backend.service;
 
 import com.example.backend.model.Review;
+import com.example.backend.repository.RatingSummary;
 import com.example.backend.repository.ReviewRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class ReviewService {
+    // Keeps IN lists well under the driver's bind-parameter limit
+    private static final int SUMMARY_CHUNK = 1000;
+
     private final ReviewRepository reviewRepository;
-    private final NotificationService notificationService;
+    private final OutboxService outboxService;
+    private final RatingAggregateService ratingAggregates;
 
-    public ReviewService(ReviewRepository reviewRepository, NotificationService notificationService) {
+    public ReviewService(ReviewRepository reviewRepository, OutboxService outboxService,
+            RatingAggregateService ratingAggregates) {
         this.reviewRepository = reviewRepository;
-        this.notificationService = notificationService;
+        this.outboxService = outboxService;
+        this.ratingAggregates = ratingAggregates;
     }
 
+    @Transactional
     public Review submitReview(Review review) {
         Review saved = reviewRepository.save(review);
+        ratingAggregates.record(saved.getRevieweeEmail(), saved.getRating());
         
         // Notify the reviewee
         String message = String.format("A new %d-star review was posted for you: \"%s\"", 
             review.getRating(), 
             review.getComment().length() > 50 ? review.getComment().substring(0, 47) + "..." : review.getComment());
         
-        notificationService.createNotification(
+        outboxService.notify(
             review.getRevieweeEmail(), 
             message, 
             "NEW_REVIEW"
@@ -37,9 +52,38 @@ public class ReviewService {
     }
 
     public double getAverageRating(String email) {
-        List<Review> reviews = getReviewsForUser(email);
-        if (reviews.isEmpty()) return 0.0;
-        return reviews.stream().mapToInt(Review::getRating).average().orElse(0.0);
+        return ratingAggregates.getAverageRating(email);
+    }
+
+    /** Average rating per email for a whole page of users in one lookup; 0.0 for users without reviews. */
+    public Map<String, Double> getAverageRatings(Collection<String> emails) {
+        return ratingAggregates.getAverageRatings(emails);
+    }
+
+    /**
+     * Live average and count per reviewee from one grouped query per 1000
+     * emails. Users without reviews are absent from the map.
+     */
+    public Map<String, RatingSummary> getRatingSummaries(Collection<String> emails) {
+        Map<String, RatingSummary> out = new HashMap<>();
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(emails));
+        distinct.remove(null);
+        for (int i = 0; i < distinct.size(); i += SUMMARY_CHUNK) {
+            List<String> chunk = distinct.subList(i, Math.min(i + SUMMARY_CHUNK, distinct.size()));
+            for (RatingSummary s : reviewRepository.summarizeByReviewee(chunk)) {
+                out.put(s.getRevieweeEmail(), s);
+            }
+        }
+        return out;
+    }
+
+    /** Summaries for every reviewee in one grouped scan, for listings that cover all users. */
+    public Map<String, RatingSummary> getAllRatingSummaries() {
+        Map<String, RatingSummary> out = new HashMap<>();
+        for (RatingSummary s : reviewRepository.summarizeAll()) {
+            out.put(s.getRevieweeEmail(), s);
+        }
+        return out;
     }
 
     public List<Review> getReviewsGivenByUser(String email) {
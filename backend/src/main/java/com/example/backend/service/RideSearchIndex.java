@@ -0,0 +1,189 @@
+package com.example.backend.service;
+
+import com.example.backend.model.Ride;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory trigram index over the searchable place fields of a ride
+ * (fromLocation, toLocation and route).
+ *
+ * Matches keep the semantics of the old LIKE '%term%' query: a ride matches
+ * "from" when fromLocation or route contains the term, and "to" when
+ * toLocation or route contains the term (case-insensitive). Trigram postings
+ * narrow the candidates, then each candidate is verified with a plain
+ * contains() so the result is exact.
+ */
+@Component
+public class RideSearchIndex {
+
+    private static final int GRAM = 3;
+
+    private enum Field { FROM, TO, ROUTE }
+
+    // Normalized copy of the indexed fields, used for verification and re-indexing
+    private record Doc(String from, String to, String route) {
+        String get(Field f) {
+            return switch (f) {
+                case FROM -> from;
+                case TO -> to;
+                case ROUTE -> route;
+            };
+        }
+    }
+
+    private final Map<Long, Doc> docs = new ConcurrentHashMap<>();
+    private final Map<Field, Map<String, Set<Long>>> postings = new ConcurrentHashMap<>();
+
+    private volatile boolean ready = false;
+
+    public RideSearchIndex() {
+        for (Field f : Field.values()) {
+            postings.put(f, new ConcurrentHashMap<>());
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Replaces the whole index content. Called once on startup.
+     */
+    public synchronized void rebuild(Collection<Ride> rides) {
+        docs.clear();
+        postings.values().forEach(Map::clear);
+        for (Ride r : rides) {
+            add(r);
+        }
+        ready = true;
+    }
+
+    public synchronized void index(Ride r) {
+        if (r == null || r.getId() == null)
+            return;
+        remove(r.getId());
+        add(r);
+    }
+
+    public synchronized void remove(Long rideId) {
+        Doc old = docs.remove(rideId);
+        if (old == null)
+            return;
+        for (Field f : Field.values()) {
+            for (String g : grams(old.get(f))) {
+                Set<Long> ids = postings.get(f).get(g);
+                if (ids != null) {
+                    ids.remove(rideId);
+                    if (ids.isEmpty())
+                        postings.get(f).remove(g);
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return docs.size();
+    }
+
+    /**
+     * Returns the ids of rides matching both terms, in ascending id order.
+     */
+    public List<Long> search(String from, String to) {
+        String f = normalize(from);
+        String t = normalize(to);
+        if (f == null)
+            f = "";
+        if (t == null)
+            t = "";
+
+        Set<Long> fromIds = candidates(f, Field.FROM);
+        Set<Long> toIds = candidates(t, Field.TO);
+
+        // Intersect starting from the smaller set
+        Set<Long> small = fromIds.size() <= toIds.size() ? fromIds : toIds;
+        Set<Long> large = small == fromIds ? toIds : fromIds;
+
+        List<Long> result = new ArrayList<>();
+        for (Long id : small) {
+            if (!large.contains(id))
+                continue;
+            Doc d = docs.get(id);
+            if (d != null && matches(d, f, Field.FROM) && matches(d, t, Field.TO))
+                result.add(id);
+        }
+        result.sort(Long::compare);
+        return result;
+    }
+
+    private void add(Ride r) {
+        Doc d = new Doc(normalize(r.getFromLocation()), normalize(r.getToLocation()), normalize(r.getRoute()));
+        docs.put(r.getId(), d);
+        for (Field f : Field.values()) {
+            for (String g : grams(d.get(f))) {
+                postings.get(f).computeIfAbsent(g, k -> ConcurrentHashMap.newKeySet()).add(r.getId());
+            }
+        }
+    }
+
+    // Candidate ids for a term on one side (the side field OR route)
+    private Set<Long> candidates(String term, Field side) {
+        if (term.length() < GRAM) {
+            // Too short for a trigram lookup: every indexed ride is a candidate
+            return docs.keySet();
+        }
+        Set<Long> out = new HashSet<>(lookup(term, side));
+        out.addAll(lookup(term, Field.ROUTE));
+        return out;
+    }
+
+    // Rides whose field contains every trigram of the term
+    private Set<Long> lookup(String term, Field field) {
+        Map<String, Set<Long>> index = postings.get(field);
+        Set<Long> acc = null;
+        for (String g : grams(term)) {
+            Set<Long> ids = index.get(g);
+            if (ids == null)
+                return Set.of();
+            if (acc == null) {
+                acc = new HashSet<>(ids);
+            } else {
+                acc.retainAll(ids);
+            }
+            if (acc.isEmpty())
+                return Set.of();
+        }
+        return acc == null ? Set.of() : acc;
+    }
+
+    private static boolean matches(Doc d, String term, Field side) {
+        return contains(d.get(side), term) || contains(d.route(), term);
+    }
+
+    // LIKE '%term%' never matches a NULL column
+    private static boolean contains(String value, String term) {
+        return value != null && value.contains(term);
+    }
+
+    private static Set<String> grams(String s) {
+        if (s == null || s.length() < GRAM)
+            return Set.of();
+        Set<String> out = new HashSet<>();
+        for (int i = 0; i + GRAM <= s.length(); i++) {
+            out.add(s.substring(i, i + GRAM));
+        }
+        return out;
+    }
+
+    private static String normalize(String s) {
+        return s == null ? null : s.toLowerCase(Locale.ROOT);
+    }
+}
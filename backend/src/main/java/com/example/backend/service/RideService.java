@@ -1,29 +1,62 @@
 package com.example.backend.service;
 
+import com.example.backend.model.Booking;
 import com.example.backend.model.Ride;
+import com.example.backend.repository.RideListing;
 import com.example.backend.repository.RideRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.logging.Logger;
 
 @Service
 public class RideService {
+    private static final Logger logger = Logger.getLogger(RideService.class.getName());
+
     private final RideRepository repo;
     private final UserService userService;
     private final BookingService bookingService;
     private final GoogleMapsService googleMapsService;
+    private final RideSearchIndex searchIndex;
+    private final SeatInventory seatInventory;
+    private final OutboxService outboxService;
 
     public RideService(RideRepository repo, UserService userService, BookingService bookingService,
-            GoogleMapsService googleMapsService) {
+            GoogleMapsService googleMapsService, RideSearchIndex searchIndex, SeatInventory seatInventory,
+            OutboxService outboxService) {
         this.repo = repo;
         this.userService = userService;
         this.bookingService = bookingService;
         this.googleMapsService = googleMapsService;
+        this.searchIndex = searchIndex;
+        this.seatInventory = seatInventory;
+        this.outboxService = outboxService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildSearchIndex() {
+        searchIndex.rebuild(repo.findAll());
+        logger.info("Ride search index built with " + searchIndex.size() + " rides");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillNormalizedDriverEmails() {
+        int rows = repo.backfillNormalizedDriverEmail();
+        if (rows > 0)
+            logger.info("Normalized driver email filled in for " + rows + " rides");
     }
 
     public Ride create(Ride r) {
-        return repo.save(r);
+        Ride saved = repo.save(r);
+        searchIndex.index(saved);
+        return saved;
     }
 
     /**
@@ -72,6 +105,7 @@ public class RideService {
 
         // 3. Save Ride
         Ride saved = repo.save(r);
+        searchIndex.index(saved);
 
         // 4. Handle Reservation (if driver reserves seats for themselves/friends)
         if (r.getReservedSeats() > 0) {
@@ -95,20 +129,100 @@ public class RideService {
         return repo.findAll();
     }
 
+    /** Open rides with seats left, newest first, one keyset page at a time. */
+    public Slice<RideListing> openListings(KeysetCursor after, Pageable page) {
+        return repo.findOpenListings(after == null ? null : after.createdAt(), after == null ? null : after.id(), page);
+    }
+
+    public Slice<Ride> page(KeysetCursor after, Pageable page) {
+        return repo.findPage(after == null ? null : after.createdAt(), after == null ? null : after.id(), page);
+    }
+
+    public List<Ride> findOpenByDriver(String driverEmail) {
+        return repo.findByDriverEmailAndStatus(driverEmail, "OPEN");
+    }
+
     public Optional<Ride> findById(Long id) {
         return repo.findById(id);
     }
 
     public void delete(Long id) {
         repo.deleteById(id);
+        searchIndex.remove(id);
+        seatInventory.evict(id);
     }
 
     public List<Ride> searchRides(String from, String to) {
-        return repo.searchRides(from, to);
+        if (!searchIndex.isReady()) {
+            // Index is built on startup; until then use the (slow) LIKE query
+            return repo.searchRides(from, to);
+        }
+        List<Long> ids = searchIndex.search(from, to);
+        if (ids.isEmpty())
+            return List.of();
+        return repo.findAllById(ids).stream()
+                .sorted(Comparator.comparing(Ride::getId))
+                .toList();
     }
 
     public Ride save(Ride r) {
-        return repo.save(r);
+        Ride saved = repo.save(r);
+        searchIndex.index(saved);
+        // The edit may have changed tickets; reload the seat counter on next use
+        seatInventory.evict(saved.getId());
+        return saved;
+    }
+
+    /**
+     * Cancels the ride and every booking on it that is still active, and
+     * records the passengers' notifications in the outbox, all in one
+     * transaction: either everything commits or nothing does.
+     */
+    @Transactional
+    public Ride cancel(Ride ride, String reason) {
+        ride.setStatus("CANCELLED");
+        ride.setCancellationReason(reason);
+        Ride saved = save(ride);
+
+        for (Booking b : bookingService.findByRideId(saved.getId())) {
+            // Even if ACCEPTED or PENDING; finished ones are left alone
+            if (!"CANCELLED".equals(b.getStatus()) && !"REJECTED".equals(b.getStatus())) {
+                b.setStatus("CANCELLED");
+                b.setCancellationReason("Driver Cancelled: " + reason);
+                bookingService.updateBooking(b);
+                outboxService.notify(b.getUserEmail(), "Ride Cancelled by Driver: " + reason, "RIDE_CANCELLED");
+            }
+        }
+        return saved;
+    }
+
+    /**
+     * Marks the ride completed and moves its accepted or paid bookings on to
+     * payment or completion, with the passengers' notifications recorded in
+     * the outbox in the same transaction.
+     */
+    @Transactional
+    public Ride complete(Ride ride) {
+        ride.setStatus("COMPLETED");
+        Ride saved = save(ride);
+
+        for (Booking b : bookingService.findByRideId(saved.getId())) {
+            // Only bookings in progress; REJECTED, CANCELLED and PENDING ones are left alone
+            if ("ACCEPTED".equals(b.getStatus()) || "PAID".equals(b.getStatus())) {
+                if ("CASH".equalsIgnoreCase(b.getPaymentMethod())) {
+                    b.setStatus("CASH_PAYMENT_PENDING");
+                    outboxService.notify(b.getUserEmail(), "Ride Completed! Please pay cash to Driver.", "RIDE_COMPLETED");
+                } else if ("PAID".equals(b.getPaymentStatus())) {
+                    // Paid by Stripe already
+                    b.setStatus("COMPLETED");
+                } else {
+                    b.setStatus("PAYMENT_PENDING");
+                    outboxService.notify(b.getUserEmail(), "Ride Completed! Please proceed to payment.", "RIDE_COMPLETED");
+                }
+                bookingService.updateBooking(b);
+            }
+        }
+        return saved;
     }
 
     public List<Ride> getAllRides() {
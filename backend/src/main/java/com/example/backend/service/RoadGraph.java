@@ -0,0 +1,336 @@
+package com.example.backend.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable road graph with A* shortest paths, used by LocalGraphRoutingProvider.
+ *
+ * Loaded from a tab separated file with three kinds of rows:
+ *
+ *   node   name   lat   lon
+ *   edge   nameA  nameB  km      (two-way road segment)
+ *   alias  alias  name
+ *
+ * Adjacency is kept in flat arrays (CSR layout) and edge weights in meters.
+ * The heuristic is the great-circle distance to the target. Edge weights are
+ * clamped to at least the great-circle distance between their endpoints, which
+ * keeps the heuristic admissible and consistent even if the file under-reports
+ * a segment, so the first time the target is settled its distance is optimal.
+ */
+public class RoadGraph {
+
+    public record Path(long meters, List<String> nodes) {
+    }
+
+    private static final double EARTH_RADIUS_M = 6_371_000.0;
+
+    private final String[] names;
+    private final double[] lat;
+    private final double[] lon;
+    private final int[] offsets; // edges of node i are [offsets[i], offsets[i + 1])
+    private final int[] targets;
+    private final int[] weights;
+    private final Map<String, Integer> byName;
+
+    private RoadGraph(String[] names, double[] lat, double[] lon, int[] offsets, int[] targets, int[] weights,
+            Map<String, Integer> byName) {
+        this.names = names;
+        this.lat = lat;
+        this.lon = lon;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.byName = byName;
+    }
+
+    public int nodeCount() {
+        return names.length;
+    }
+
+    public int edgeCount() {
+        return targets.length / 2;
+    }
+
+    /** Node id for a place name or alias, or -1. */
+    public int node(String name) {
+        if (name == null)
+            return -1;
+        Integer id = byName.get(normalize(name));
+        return id == null ? -1 : id;
+    }
+
+    public String name(int node) {
+        return names[node];
+    }
+
+    /** Closest node to a coordinate within maxMeters, or -1. */
+    public int nearest(double latitude, double longitude, double maxMeters) {
+        int best = -1;
+        double bestDist = maxMeters;
+        for (int i = 0; i < names.length; i++) {
+            double d = haversine(latitude, longitude, lat[i], lon[i]);
+            if (d <= bestDist) {
+                bestDist = d;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    public double distanceTo(int node, double latitude, double longitude) {
+        return haversine(lat[node], lon[node], latitude, longitude);
+    }
+
+    /** Shortest path between two nodes, or null if they are not connected. */
+    public Path shortestPath(int source, int target) {
+        if (source < 0 || target < 0)
+            return null;
+        if (source == target)
+            return new Path(0, List.of(names[source]));
+
+        int n = names.length;
+        long[] dist = new long[n];
+        int[] prev = new int[n];
+        boolean[] settled = new boolean[n];
+        Arrays.fill(dist, Long.MAX_VALUE);
+        Arrays.fill(prev, -1);
+
+        LongHeap open = new LongHeap(Math.max(16, n));
+        dist[source] = 0;
+        open.push(heuristic(source, target), source);
+
+        while (!open.isEmpty()) {
+            int u = open.popNode();
+            if (settled[u])
+                continue; // stale heap entry
+            if (u == target)
+                break;
+            settled[u] = true;
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int v = targets[e];
+                if (settled[v])
+                    continue;
+                long alt = dist[u] + weights[e];
+                if (alt < dist[v]) {
+                    dist[v] = alt;
+                    prev[v] = u;
+                    open.push(alt + heuristic(v, target), v);
+                }
+            }
+        }
+
+        if (dist[target] == Long.MAX_VALUE)
+            return null;
+        List<String> nodes = new ArrayList<>();
+        for (int v = target; v != -1; v = prev[v]) {
+            nodes.add(names[v]);
+        }
+        Collections.reverse(nodes);
+        return new Path(dist[target], nodes);
+    }
+
+    /**
+     * Plain Dijkstra from one node to every node; Long.MAX_VALUE for unreachable
+     * ones. Used for matrices, where one run serves every destination.
+     */
+    public long[] distancesFrom(int source) {
+        int n = names.length;
+        long[] dist = new long[n];
+        boolean[] settled = new boolean[n];
+        Arrays.fill(dist, Long.MAX_VALUE);
+        LongHeap open = new LongHeap(Math.max(16, n));
+        dist[source] = 0;
+        open.push(0, source);
+        while (!open.isEmpty()) {
+            int u = open.popNode();
+            if (settled[u])
+                continue;
+            settled[u] = true;
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int v = targets[e];
+                long alt = dist[u] + weights[e];
+                if (!settled[v] && alt < dist[v]) {
+                    dist[v] = alt;
+                    open.push(alt, v);
+                }
+            }
+        }
+        return dist;
+    }
+
+    private long heuristic(int a, int b) {
+        return (long) haversine(lat[a], lon[a], lat[b], lon[b]);
+    }
+
+    public static RoadGraph read(Reader source) throws IOException {
+        List<String> names = new ArrayList<>();
+        List<double[]> coords = new ArrayList<>();
+        Map<String, Integer> byName = new HashMap<>();
+        List<String[]> edges = new ArrayList<>();
+        List<String[]> aliases = new ArrayList<>();
+
+        BufferedReader in = new BufferedReader(source);
+        String line;
+        int lineNo = 0;
+        while ((line = in.readLine()) != null) {
+            lineNo++;
+            if (line.isBlank() || line.startsWith("#"))
+                continue;
+            String[] cols = line.split("\t");
+            switch (cols[0]) {
+                case "node" -> {
+                    require(cols, 4, lineNo);
+                    byName.put(normalize(cols[1]), names.size());
+                    names.add(cols[1].trim());
+                    coords.add(new double[] { Double.parseDouble(cols[2]), Double.parseDouble(cols[3]) });
+                }
+                case "edge" -> {
+                    require(cols, 4, lineNo);
+                    edges.add(cols);
+                }
+                case "alias" -> {
+                    require(cols, 3, lineNo);
+                    aliases.add(cols);
+                }
+                default -> throw new IOException("Unknown row type '" + cols[0] + "' on line " + lineNo);
+            }
+        }
+        for (String[] a : aliases) {
+            Integer id = byName.get(normalize(a[2]));
+            if (id == null)
+                throw new IOException("Alias " + a[1] + " refers to unknown node " + a[2]);
+            byName.putIfAbsent(normalize(a[1]), id);
+        }
+
+        int n = names.size();
+        double[] lat = new double[n];
+        double[] lon = new double[n];
+        for (int i = 0; i < n; i++) {
+            lat[i] = coords.get(i)[0];
+            lon[i] = coords.get(i)[1];
+        }
+
+        // Each edge is stored in both directions
+        int[] from = new int[edges.size() * 2];
+        int[] to = new int[edges.size() * 2];
+        int[] w = new int[edges.size() * 2];
+        int[] degree = new int[n + 1];
+        for (int i = 0; i < edges.size(); i++) {
+            String[] e = edges.get(i);
+            Integer a = byName.get(normalize(e[1]));
+            Integer b = byName.get(normalize(e[2]));
+            if (a == null || b == null)
+                throw new IOException("Edge " + e[1] + " - " + e[2] + " refers to an unknown node");
+            int meters = (int) Math.round(Double.parseDouble(e[3]) * 1000);
+            meters = Math.max(meters, (int) Math.ceil(haversine(lat[a], lon[a], lat[b], lon[b])));
+            from[2 * i] = a;
+            to[2 * i] = b;
+            from[2 * i + 1] = b;
+            to[2 * i + 1] = a;
+            w[2 * i] = meters;
+            w[2 * i + 1] = meters;
+            degree[a]++;
+            degree[b]++;
+        }
+
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] = offsets[i] + degree[i];
+        }
+        int[] fill = Arrays.copyOf(offsets, n);
+        int[] targets = new int[from.length];
+        int[] weights = new int[from.length];
+        for (int i = 0; i < from.length; i++) {
+            int slot = fill[from[i]]++;
+            targets[slot] = to[i];
+            weights[slot] = w[i];
+        }
+
+        return new RoadGraph(names.toArray(new String[0]), lat, lon, offsets, targets, weights, byName);
+    }
+
+    private static void require(String[] cols, int n, int lineNo) throws IOException {
+        if (cols.length < n)
+            throw new IOException("Expected " + n + " columns on line " + lineNo);
+    }
+
+    static String normalize(String s) {
+        return s.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    static double haversine(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_M * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    // Binary min-heap of (priority, node) pairs without boxing
+    private static final class LongHeap {
+        private long[] keys;
+        private int[] nodes;
+        private int size;
+
+        LongHeap(int capacity) {
+            keys = new long[capacity];
+            nodes = new int[capacity];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void push(long key, int node) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                nodes = Arrays.copyOf(nodes, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (keys[parent] <= key)
+                    break;
+                keys[i] = keys[parent];
+                nodes[i] = nodes[parent];
+                i = parent;
+            }
+            keys[i] = key;
+            nodes[i] = node;
+        }
+
+        int popNode() {
+            int top = nodes[0];
+            size--;
+            if (size > 0) {
+                long key = keys[size];
+                int node = nodes[size];
+                int i = 0;
+                while (true) {
+                    int child = 2 * i + 1;
+                    if (child >= size)
+                        break;
+                    if (child + 1 < size && keys[child + 1] < keys[child])
+                        child++;
+                    if (keys[child] >= key)
+                        break;
+                    keys[i] = keys[child];
+                    nodes[i] = nodes[child];
+                    i = child;
+                }
+                keys[i] = key;
+                nodes[i] = node;
+            }
+            return top;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Ordered fallback over the RoutingProvider beans, configured by
+ * app.maps.routing.providers (default "local,google,osrm"). Providers that are
+ * not listed, or not available, are skipped. Latency, answers, misses and
+ * failures are recorded per provider.
+ */
+@Service
+public class RoutingChain {
+
+    private static final Logger logger = Logger.getLogger(RoutingChain.class.getName());
+
+    private static final class Metrics {
+        final AtomicLong calls = new AtomicLong();
+        final AtomicLong answered = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicLong totalNanos = new AtomicLong();
+        final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos) {
+            calls.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+    }
+
+    private final List<RoutingProvider> providers = new ArrayList<>();
+    private final Map<String, Metrics> metrics = new LinkedHashMap<>();
+
+    public RoutingChain(List<RoutingProvider> available,
+            @Value("${app.maps.routing.providers:local,google,osrm}") String order) {
+        for (String name : order.split(",")) {
+            String n = name.trim();
+            available.stream()
+                    .filter(p -> p.name().equalsIgnoreCase(n))
+                    .findFirst()
+                    .ifPresentOrElse(p -> {
+                        providers.add(p);
+                        metrics.put(p.name(), new Metrics());
+                    }, () -> {
+                        if (!n.isEmpty())
+                            logger.warning("Unknown routing provider in app.maps.routing.providers: " + n);
+                    });
+        }
+        logger.info("Routing providers: " + metrics.keySet());
+    }
+
+    /** Completes with the first real distance in the chain, or null if no provider could answer. */
+    public CompletableFuture<Long> distanceMeters(String from, String to, List<String> via) {
+        return first(0, p -> p.distanceMeters(from, to, via), "distance " + from + " -> " + to);
+    }
+
+    /**
+     * Fills a distance matrix provider by provider. Each provider is asked only
+     * for the rows and columns that still have unanswered cells, so a pair the
+     * local graph knows is never sent to a remote API. Cells nobody could
+     * answer stay null.
+     */
+    public CompletableFuture<Long[][]> distanceMatrix(List<String> origins, List<String> destinations) {
+        return distanceMatrix(origins, destinations, null);
+    }
+
+    /** Same, but only cells with wanted[i][j] set need an answer (null means all). */
+    public CompletableFuture<Long[][]> distanceMatrix(List<String> origins, List<String> destinations,
+            boolean[][] wanted) {
+        Long[][] out = new Long[origins.size()][destinations.size()];
+        return fill(0, origins, destinations, wanted, out);
+    }
+
+    private CompletableFuture<Long[][]> fill(int i, List<String> origins, List<String> destinations,
+            boolean[][] wanted, Long[][] out) {
+        List<Integer> rows = new ArrayList<>();
+        List<Integer> cols = new ArrayList<>();
+        for (int r = 0; r < out.length; r++) {
+            for (int c = 0; c < out[r].length; c++) {
+                if (out[r][c] == null && (wanted == null || wanted[r][c])) {
+                    if (!rows.contains(r))
+                        rows.add(r);
+                    if (!cols.contains(c))
+                        cols.add(c);
+                }
+            }
+        }
+        while (i < providers.size() && !providers.get(i).isAvailable()) {
+            i++;
+        }
+        if (rows.isEmpty() || i >= providers.size())
+            return CompletableFuture.completedFuture(out);
+
+        List<String> subOrigins = rows.stream().map(origins::get).toList();
+        List<String> subDestinations = cols.stream().map(destinations::get).toList();
+        int next = i + 1;
+        return attempt(providers.get(i), p -> p.distanceMatrix(subOrigins, subDestinations),
+                "matrix " + rows.size() + "x" + cols.size())
+                .thenCompose(sub -> {
+                    if (sub == null)
+                        return fill(next, origins, destinations, wanted, out);
+                    for (int r = 0; r < rows.size(); r++) {
+                        for (int c = 0; c < cols.size(); c++) {
+                            int row = rows.get(r), col = cols.get(c);
+                            if (out[row][col] == null && sub[r][c] != null)
+                                out[row][col] = sub[r][c];
+                        }
+                    }
+                    return fill(next, origins, destinations, wanted, out);
+                });
+    }
+
+    /** Completes with the first waypoint list in the chain, or null. */
+    public CompletableFuture<List<String>> waypoints(String from, String to) {
+        return first(0, p -> p.waypoints(from, to), "waypoints " + from + " -> " + to);
+    }
+
+    // Tries providers[i..] in order; the next one is only started once the previous one has missed or failed
+    private <T> CompletableFuture<T> first(int i, Function<RoutingProvider, CompletableFuture<T>> call, String what) {
+        while (i < providers.size() && !providers.get(i).isAvailable()) {
+            i++;
+        }
+        if (i >= providers.size())
+            return CompletableFuture.completedFuture(null);
+        int next = i + 1;
+        return attempt(providers.get(i), call, what)
+                .thenCompose(result -> result != null ? CompletableFuture.completedFuture(result) : first(next, call, what));
+    }
+
+    // One provider call with metrics; failures are logged and turned into null
+    private <T> CompletableFuture<T> attempt(RoutingProvider p, Function<RoutingProvider, CompletableFuture<T>> call,
+            String what) {
+        Metrics m = metrics.get(p.name());
+        long start = System.nanoTime();
+        CompletableFuture<T> attempt;
+        try {
+            attempt = call.apply(p);
+        } catch (Exception e) {
+            attempt = CompletableFuture.failedFuture(e);
+        }
+        return attempt.handle((result, ex) -> {
+            m.record(System.nanoTime() - start);
+            if (ex != null) {
+                m.failures.incrementAndGet();
+                Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                logger.warning("Routing provider " + p.name() + " failed for " + what + ": " + cause.getMessage());
+                return null;
+            }
+            if (result == null) {
+                m.misses.incrementAndGet();
+                return null;
+            }
+            m.answered.incrementAndGet();
+            return result;
+        });
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        for (RoutingProvider p : providers) {
+            Metrics m = metrics.get(p.name());
+            long calls = m.calls.get();
+            Map<String, Object> s = new LinkedHashMap<>();
+            s.put("available", p.isAvailable());
+            s.put("calls", calls);
+            s.put("answered", m.answered.get());
+            s.put("misses", m.misses.get());
+            s.put("failures", m.failures.get());
+            s.put("avgMicros", calls == 0 ? 0 : m.totalNanos.get() / calls / 1000);
+            s.put("maxMicros", m.maxNanos.get() / 1000);
+            out.put(p.name(), s);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.backend.service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A source of road distances and route waypoints. Implementations are chained
+ * by RoutingChain in the order given by app.maps.routing.providers; the first
+ * one that returns a non-null answer wins.
+ *
+ * Calls must not block on the network: remote providers return futures
+ * completed by MapsHttpClient. Completing with null means "this provider
+ * cannot answer for these places" and moves on to the next provider; failed
+ * futures (and thrown exceptions) are counted as failures and also move on.
+ */
+public interface RoutingProvider {
+
+    /** Short identifier used in app.maps.routing.providers and in metrics. */
+    String name();
+
+    /** False when the provider is not configured (e.g. no API key). */
+    default boolean isAvailable() {
+        return true;
+    }
+
+    /** Road distance from -> via... -> to in meters, or null. */
+    CompletableFuture<Long> distanceMeters(String from, String to, List<String> via);
+
+    /**
+     * Distances for every origin/destination pair in one call: result[i][j] is
+     * origins[i] -> destinations[j] in meters, or null for a pair the provider
+     * could not route. Completing with null means matrices are not supported.
+     */
+    default CompletableFuture<Long[][]> distanceMatrix(List<String> origins, List<String> destinations) {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /** Intermediate stops between from and to (both excluded), or null. */
+    default CompletableFuture<List<String>> waypoints(String from, String to) {
+        return CompletableFuture.completedFuture(null);
+    }
+}
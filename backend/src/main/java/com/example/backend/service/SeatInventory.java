@@ -0,0 +1,195 @@
+package com.example.backend.service;
+
+import com.example.backend.repository.RideRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+/**
+ * Available-seat counters per ride, used by BookingService instead of the old
+ * read-check-write of Ride.tickets.
+ *
+ * A reservation first takes the seats from an in-memory AtomicInteger with a
+ * compare-and-set loop, so requests for a sold-out ride are turned away
+ * without touching the database. The seats are then taken in the database
+ * with a conditional UPDATE (tickets >= seats), which is the source of truth:
+ * if it matches no row the counter was stale, it is resynced from the row and
+ * the reservation fails. Either way a ride can never go below zero.
+ *
+ * A counter can also be too low: releases are only applied to the counter of
+ * the node that made them, and a ticket change on another node or straight in
+ * the database does not reach it at all. So a counter that turns a request
+ * away is reloaded from the row first if it was loaded more than
+ * app.seats.recheck-ms ago; a ride with seats freed elsewhere is bookable
+ * again after at most that long, and a sold-out ride still costs one
+ * primary-key read per interval rather than one per request.
+ *
+ * Must be called inside the caller's transaction. If that transaction rolls
+ * back, the seats are given back to the counter; releases are applied to the
+ * counter only after commit. Seat changes are also published as
+ * AnalyticsService.SeatsChanged events, since these UPDATEs bypass entity
+ * callbacks.
+ */
+@Component
+public class SeatInventory {
+
+    private final RideRepository rideRepository;
+    private final ApplicationEventPublisher events;
+    private final long recheckNanos;
+    private final Map<Long, Counter> available = new ConcurrentHashMap<>();
+
+    private final AtomicLong reserved = new AtomicLong();
+    private final AtomicLong rejectedInMemory = new AtomicLong();
+    private final AtomicLong rejectedByDatabase = new AtomicLong();
+    private final AtomicLong resyncs = new AtomicLong();
+
+    // Seats left, and when they were read from the row
+    private static final class Counter extends AtomicInteger {
+        final long loadedAt = System.nanoTime();
+
+        Counter(int tickets) {
+            super(tickets);
+        }
+    }
+
+    public SeatInventory(RideRepository rideRepository, ApplicationEventPublisher events,
+            @Value("${app.seats.recheck-ms:1000}") long recheckMs) {
+        this.rideRepository = rideRepository;
+        this.events = events;
+        this.recheckNanos = TimeUnit.MILLISECONDS.toNanos(recheckMs);
+    }
+
+    /**
+     * Takes seats from a ride. Returns false if the ride does not have enough
+     * seats left (or does not exist).
+     */
+    public boolean tryReserve(Long rideId, int seats) {
+        if (seats <= 0)
+            throw new IllegalArgumentException("Seats must be positive");
+        Counter loaded = counter(rideId);
+        if (loaded == null)
+            return false;
+        if (!take(loaded, seats)) {
+            // Seats may have been given back where this counter could not see it
+            if (System.nanoTime() - loaded.loadedAt >= recheckNanos)
+                loaded = resync(rideId);
+            if (loaded == null || !take(loaded, seats)) {
+                rejectedInMemory.incrementAndGet();
+                return false;
+            }
+        }
+        Counter counter = loaded;
+
+        boolean written;
+        try {
+            written = rideRepository.reserveSeats(rideId, seats) == 1;
+        } catch (RuntimeException e) {
+            counter.addAndGet(seats);
+            throw e;
+        }
+        if (!written) {
+            // Someone changed the row behind our back; trust the database
+            rejectedByDatabase.incrementAndGet();
+            resync(rideId);
+            return false;
+        }
+
+        reserved.incrementAndGet();
+        events.publishEvent(new AnalyticsService.SeatsChanged(rideId, -seats));
+        afterCompletion(status -> {
+            if (status == TransactionSynchronization.STATUS_ROLLED_BACK)
+                counter.addAndGet(seats);
+        });
+        return true;
+    }
+
+    /** Gives seats back to a ride, e.g. when a booking is cancelled. */
+    public void release(Long rideId, int seats) {
+        if (seats <= 0)
+            return;
+        if (rideRepository.releaseSeats(rideId, seats) == 0)
+            return;
+        events.publishEvent(new AnalyticsService.SeatsChanged(rideId, seats));
+        afterCompletion(status -> {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                Counter counter = available.get(rideId);
+                if (counter != null)
+                    counter.addAndGet(seats);
+            }
+        });
+    }
+
+    /** Drops the counter so the next reservation reloads it, e.g. after a driver edits the ride. */
+    public void evict(Long rideId) {
+        if (rideId != null)
+            available.remove(rideId);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("trackedRides", available.size());
+        m.put("reserved", reserved.get());
+        m.put("rejectedInMemory", rejectedInMemory.get());
+        m.put("rejectedByDatabase", rejectedByDatabase.get());
+        m.put("resyncs", resyncs.get());
+        return m;
+    }
+
+    // Compare-and-set loop; false without taking anything if there are not enough seats
+    private static boolean take(AtomicInteger counter, int seats) {
+        int current;
+        do {
+            current = counter.get();
+            if (current < seats)
+                return false;
+        } while (!counter.compareAndSet(current, current - seats));
+        return true;
+    }
+
+    private Counter counter(Long rideId) {
+        Counter counter = available.get(rideId);
+        if (counter != null)
+            return counter;
+        Integer tickets = rideRepository.findTicketsById(rideId).orElse(null);
+        if (tickets == null)
+            return null;
+        return available.computeIfAbsent(rideId, id -> new Counter(tickets));
+    }
+
+    private Counter resync(Long rideId) {
+        resyncs.incrementAndGet();
+        Integer tickets = rideRepository.findTicketsById(rideId).orElse(null);
+        if (tickets == null) {
+            available.remove(rideId);
+            return null;
+        }
+        // Replace rather than set, so in-flight rollbacks on the old counter can't skew the new one
+        Counter counter = new Counter(tickets);
+        available.put(rideId, counter);
+        return counter;
+    }
+
+    private static void afterCompletion(IntConsumer callback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Not transactional: the repository call has already committed
+            callback.accept(TransactionSynchronization.STATUS_COMMITTED);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                callback.accept(status);
+            }
+        });
+    }
+}
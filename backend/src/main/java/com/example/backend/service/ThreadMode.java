@@ -0,0 +1,99 @@
+package com.example.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Platform or virtual threads for the executors the application creates itself.
+ *
+ * spring.threads.virtual.enabled (set by the "virtual" profile) moves Tomcat
+ * request handling, the application task executor and the @Scheduled
+ * scheduler onto virtual threads; this class applies the same switch to our
+ * own I/O executors. Virtual threads need Java 21: on an older runtime the
+ * setting is ignored, by Spring Boot and here alike, and everything stays on
+ * platform threads.
+ *
+ * Executors that exist to bound concurrency (report workers, the outbox
+ * dispatcher, the STOMP channels) stay on platform threads in both modes.
+ */
+@Component
+public class ThreadMode {
+
+    private static final Logger logger = Logger.getLogger(ThreadMode.class.getName());
+
+    private final boolean virtual;
+
+    public ThreadMode(@Value("${spring.threads.virtual.enabled:false}") boolean requested) {
+        this.virtual = requested && virtualThreadsSupported();
+        if (requested && !virtual)
+            logger.warning("spring.threads.virtual.enabled is set but Java " + Runtime.version().feature()
+                    + " has no virtual threads; using platform threads");
+    }
+
+    public static boolean virtualThreadsSupported() {
+        return Runtime.version().feature() >= 21;
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * An executor for blocking or short tasks: a new virtual thread per task
+     * in virtual mode, otherwise a fixed pool of platformThreads daemon threads.
+     * Threads are named prefix + a sequence number in both modes.
+     */
+    public ExecutorService executor(String prefix, int platformThreads) {
+        if (virtual)
+            return virtualExecutor(prefix);
+        AtomicInteger seq = new AtomicInteger();
+        return Executors.newFixedThreadPool(platformThreads, r -> {
+            Thread t = new Thread(r, prefix + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Executors.newThreadPerTaskExecutor with virtual threads; looked up reflectively so the code still builds on Java 17. */
+    static ExecutorService virtualExecutor(String prefix) {
+        ThreadFactory factory = new VirtualThreadTaskExecutor(prefix).getVirtualThreadFactory();
+        try {
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads are not available", e);
+        }
+    }
+
+    /**
+     * Thread and memory figures for comparing the two modes. Thread counts
+     * cover platform threads only; virtual threads are not counted by the JVM.
+     */
+    public Map<String, Object> stats() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        MemoryUsage nonHeap = ManagementFactory.getMemoryMXBean().getNonHeapMemoryUsage();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("mode", virtual ? "virtual" : "platform");
+        m.put("javaVersion", Runtime.version().feature());
+        m.put("platformThreads", threads.getThreadCount());
+        m.put("peakPlatformThreads", threads.getPeakThreadCount());
+        m.put("daemonThreads", threads.getDaemonThreadCount());
+        m.put("heapUsedBytes", heap.getUsed());
+        m.put("heapCommittedBytes", heap.getCommitted());
+        m.put("nonHeapCommittedBytes", nonHeap.getCommitted());
+        return m;
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.backend.service;
+
+import com.example.backend.repository.NotificationRepository;
+import com.example.backend.repository.UnreadCount;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Unread notification counts per user, kept in memory so the unread-count
+ * endpoint does not hit the database on every poll. A user's count is loaded
+ * once (an index-only count on recipient_email, is_read), then moved by the
+ * notifications created and read through NotificationService. Every change is
+ * pushed to the user on /user/queue/unread-count as {"delta", "count"}.
+ *
+ * Counts can drift when rows change behind the service or a change races the
+ * first load, so every app.notifications.unread-reconcile-ms the tracked users
+ * are recounted in grouped queries and corrected (and pushed if they moved).
+ * At most app.notifications.unread-max-users users are tracked; beyond that
+ * counts are read from the database.
+ */
+@Component
+public class UnreadCounter {
+
+    private static final Logger logger = Logger.getLogger(UnreadCounter.class.getName());
+    private static final int RECONCILE_CHUNK = 500;
+
+    private final NotificationRepository repo;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final Map<String, AtomicLong> counts = new ConcurrentHashMap<>();
+
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong served = new AtomicLong();
+    private final AtomicLong corrections = new AtomicLong();
+
+    @Value("${app.notifications.unread-max-users:100000}")
+    private int maxUsers;
+
+    public UnreadCounter(NotificationRepository repo, SimpMessagingTemplate messagingTemplate) {
+        this.repo = repo;
+        this.messagingTemplate = messagingTemplate;
+    }
+
+    public long get(String email) {
+        AtomicLong count = counts.get(email);
+        if (count != null) {
+            served.incrementAndGet();
+            return count.get();
+        }
+        loads.incrementAndGet();
+        long loaded = repo.countByRecipientEmailAndIsReadFalse(email);
+        if (counts.size() >= maxUsers)
+            return loaded;
+        return counts.computeIfAbsent(email, k -> new AtomicLong(loaded)).get();
+    }
+
+    /** New unread notifications were stored for the user. */
+    public void added(String email, int n) {
+        change(email, n);
+    }
+
+    /** Notifications were marked read; applied once the caller's transaction commits. */
+    public void read(String email, int n) {
+        if (n > 0)
+            afterCommit(() -> change(email, -n));
+    }
+
+    /** All of the user's notifications were marked read; applied once the caller's transaction commits. */
+    public void allRead(String email) {
+        afterCommit(() -> {
+            AtomicLong count = counts.get(email);
+            long before = count == null ? 0 : count.getAndSet(0);
+            push(email, -before, 0L);
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.notifications.unread-reconcile-ms:60000}")
+    public void reconcile() {
+        List<String> emails = new ArrayList<>(counts.keySet());
+        for (int from = 0; from < emails.size(); from += RECONCILE_CHUNK) {
+            List<String> chunk = emails.subList(from, Math.min(from + RECONCILE_CHUNK, emails.size()));
+            Map<String, Long> actual = new HashMap<>();
+            try {
+                for (UnreadCount c : repo.countUnreadFor(chunk))
+                    actual.put(c.getRecipientEmail(), c.getUnread());
+            } catch (Exception e) {
+                logger.warning("Unread count reconcile failed: " + e.getMessage());
+                return;
+            }
+            for (String email : chunk) {
+                AtomicLong count = counts.get(email);
+                if (count == null)
+                    continue;
+                long value = actual.getOrDefault(email, 0L);
+                long before = count.getAndSet(value);
+                if (before != value) {
+                    corrections.incrementAndGet();
+                    push(email, value - before, value);
+                }
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("trackedUsers", counts.size());
+        m.put("maxUsers", maxUsers);
+        m.put("servedFromMemory", served.get());
+        m.put("loadedFromDatabase", loads.get());
+        m.put("corrections", corrections.get());
+        return m;
+    }
+
+    private void change(String email, long delta) {
+        AtomicLong count = counts.get(email);
+        // Untracked users are counted from the table when they next ask
+        Long value = count == null ? null : count.updateAndGet(c -> Math.max(0, c + delta));
+        push(email, delta, value);
+    }
+
+    private void push(String email, long delta, Long count) {
+        Map<String, Object> event = new HashMap<>();
+        event.put("delta", delta);
+        event.put("count", count);
+        try {
+            messagingTemplate.convertAndSendToUser(email, "/queue/unread-count", event);
+        } catch (RuntimeException e) {
+            logger.warning("Could not push unread count to " + email + ": " + e.getMessage());
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
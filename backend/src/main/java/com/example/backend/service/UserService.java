@@ -61,6 +61,14 @@ public class UserService {
         return repo.findByEmail(email);
     }
 
+    /** Users by email in one query, keyed by email; unknown emails are absent. */
+    public java.util.Map<String, User> findByEmails(java.util.Collection<String> emails) {
+        if (emails.isEmpty())
+            return java.util.Map.of();
+        return repo.findByEmailIn(emails).stream()
+                .collect(java.util.stream.Collectors.toMap(User::getEmail, u -> u, (a, b) -> a));
+    }
+
     public List<User> allUsers() {
         return repo.findAll();
     }
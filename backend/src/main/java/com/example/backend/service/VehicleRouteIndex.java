@@ -0,0 +1,228 @@
+package com.example.backend.service;
+
+import com.example.backend.model.Vehicle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Route-order index used by VehicleService.searchVehicles.
+ *
+ * Each vehicle's route is parsed once into an ordered stop array plus a
+ * stop-to-position map. Postings map every distinct origin, destination and
+ * stop name to the vehicles that use it. A search resolves the query terms
+ * against the (small) place vocabulary, intersects the postings and compares
+ * stop positions, so no per-vehicle string scanning happens at request time.
+ *
+ * Direction rules are the same as before: a match on fromLocation counts as
+ * the very start of the route, a match on toLocation as the very end, and a
+ * match on an intermediate stop uses that stop's position.
+ */
+@Component
+public class VehicleRouteIndex {
+
+    private static final int ORIGIN = 0;
+    private static final int DESTINATION = Integer.MAX_VALUE;
+    private static final int NOT_FOUND = -2;
+
+    private record Entry(Long id, String from, String to, String date, String[] stops,
+            Map<String, Integer> stopPos) {
+    }
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> byOrigin = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> byDestination = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> byStop = new ConcurrentHashMap<>();
+
+    private volatile boolean ready = false;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public synchronized void rebuild(Collection<Vehicle> vehicles) {
+        entries.clear();
+        byOrigin.clear();
+        byDestination.clear();
+        byStop.clear();
+        for (Vehicle v : vehicles) {
+            add(v);
+        }
+        ready = true;
+    }
+
+    public synchronized void index(Vehicle v) {
+        if (v == null || v.getId() == null)
+            return;
+        remove(v.getId());
+        add(v);
+    }
+
+    public synchronized void remove(Long vehicleId) {
+        Entry e = entries.remove(vehicleId);
+        if (e == null)
+            return;
+        unpost(byOrigin, e.from(), vehicleId);
+        unpost(byDestination, e.to(), vehicleId);
+        for (String stop : e.stopPos().keySet()) {
+            unpost(byStop, stop, vehicleId);
+        }
+    }
+
+    /**
+     * Ids of vehicles travelling from "from" to "to" (in that order), optionally
+     * restricted to a date, in ascending id order.
+     */
+    public List<Long> search(String from, String to, String date) {
+        String f = normalize(from);
+        String t = normalize(to);
+        if (f == null)
+            f = "";
+        if (t == null)
+            t = "";
+        boolean filterDate = date != null && !date.isEmpty();
+
+        Set<String> originKeys = resolve(byOrigin, f);
+        Set<String> fromStopKeys = resolve(byStop, f);
+        Set<String> destinationKeys = resolve(byDestination, t);
+        Set<String> toStopKeys = resolve(byStop, t);
+
+        Set<Long> fromIds = union(byOrigin, originKeys, byStop, fromStopKeys);
+        Set<Long> toIds = union(byDestination, destinationKeys, byStop, toStopKeys);
+
+        Set<Long> small = fromIds.size() <= toIds.size() ? fromIds : toIds;
+        Set<Long> large = small == fromIds ? toIds : fromIds;
+
+        List<Long> result = new ArrayList<>();
+        for (Long id : small) {
+            if (!large.contains(id))
+                continue;
+            Entry e = entries.get(id);
+            if (e == null)
+                continue;
+            if (filterDate && !Objects.equals(e.date(), date))
+                continue;
+
+            int start = e.from() != null && originKeys.contains(e.from()) ? ORIGIN : position(e, fromStopKeys);
+            int end = e.to() != null && destinationKeys.contains(e.to()) ? DESTINATION : position(e, toStopKeys);
+            if (start != NOT_FOUND && end != NOT_FOUND && start < end)
+                result.add(id);
+        }
+        result.sort(Long::compare);
+        return result;
+    }
+
+    /**
+     * Splits a route such as "Hyderabad -> Suryapet -> Vizag" or
+     * "Via Highway 1, Rest Stop A" into normalized stops.
+     */
+    static String[] parseStops(String route) {
+        if (route == null || route.isBlank())
+            return new String[0];
+        List<String> stops = new ArrayList<>();
+        for (String part : route.split("->|,")) {
+            String s = normalize(part).trim();
+            if (!s.isEmpty())
+                stops.add(s);
+        }
+        return stops.toArray(new String[0]);
+    }
+
+    private void add(Vehicle v) {
+        String[] stops = parseStops(v.getRoute());
+        Map<String, Integer> stopPos = new HashMap<>();
+        for (int i = 0; i < stops.length; i++) {
+            stopPos.putIfAbsent(stops[i], i); // first occurrence wins, like indexOf
+        }
+        Entry e = new Entry(v.getId(), normalize(v.getFromLocation()), normalize(v.getToLocation()), v.getDate(),
+                stops, stopPos);
+        entries.put(v.getId(), e);
+        post(byOrigin, e.from(), v.getId());
+        post(byDestination, e.to(), v.getId());
+        for (String stop : stopPos.keySet()) {
+            post(byStop, stop, v.getId());
+        }
+    }
+
+    // Earliest stop of the vehicle whose name matched the query term
+    private static int position(Entry e, Set<String> keys) {
+        if (keys.isEmpty())
+            return NOT_FOUND;
+        int best = NOT_FOUND;
+        if (keys.size() < e.stops().length) {
+            for (String k : keys) {
+                Integer p = e.stopPos().get(k);
+                if (p != null && (best == NOT_FOUND || p < best))
+                    best = p;
+            }
+        } else {
+            for (int i = 0; i < e.stops().length; i++) {
+                if (keys.contains(e.stops()[i]))
+                    return i;
+            }
+        }
+        return best;
+    }
+
+    // Place names in the vocabulary that contain the term (substring semantics)
+    private static Set<String> resolve(Map<String, Set<Long>> postings, String term) {
+        if (term.isEmpty())
+            return postings.keySet();
+        Set<String> keys = new HashSet<>();
+        for (String k : postings.keySet()) {
+            if (k.contains(term))
+                keys.add(k);
+        }
+        return keys;
+    }
+
+    private static Set<Long> union(Map<String, Set<Long>> a, Set<String> aKeys, Map<String, Set<Long>> b,
+            Set<String> bKeys) {
+        Set<Long> out = new HashSet<>();
+        for (String k : aKeys) {
+            Set<Long> ids = a.get(k);
+            if (ids != null)
+                out.addAll(ids);
+        }
+        for (String k : bKeys) {
+            Set<Long> ids = b.get(k);
+            if (ids != null)
+                out.addAll(ids);
+        }
+        return out;
+    }
+
+    private static void post(Map<String, Set<Long>> postings, String key, Long id) {
+        if (key == null)
+            return;
+        postings.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(id);
+    }
+
+    private static void unpost(Map<String, Set<Long>> postings, String key, Long id) {
+        if (key == null)
+            return;
+        Set<Long> ids = postings.get(key);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty())
+                postings.remove(key);
+        }
+    }
+
+    private static String normalize(String s) {
+        return s == null ? null : s.toLowerCase(Locale.ROOT);
+    }
+}
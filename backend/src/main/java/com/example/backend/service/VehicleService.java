@@ -4,32 +4,51 @@ import com.example.backend.model.Vehicle;
 import com.example.backend.model.Booking;
 import com.example.backend.repository.VehicleRepository;
 import com.example.backend.repository.BookingRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.logging.Logger;
 
 @Service
 public class VehicleService {
+    private static final Logger logger = Logger.getLogger(VehicleService.class.getName());
+
     private final VehicleRepository repo;
     private final UserService userService;
     private final BookingService bookingService;
     private final GoogleMapsService googleMapsService;
     private final NotificationService notificationService;
     private final BookingRepository bookingRepository;
+    private final VehicleRouteIndex routeIndex;
 
     public VehicleService(VehicleRepository repo, UserService userService, BookingService bookingService,
-            GoogleMapsService googleMapsService, NotificationService notificationService, BookingRepository bookingRepository) {
+            GoogleMapsService googleMapsService, NotificationService notificationService, BookingRepository bookingRepository,
+            VehicleRouteIndex routeIndex) {
         this.repo = repo;
         this.userService = userService;
         this.bookingService = bookingService;
         this.googleMapsService = googleMapsService;
         this.notificationService = notificationService;
         this.bookingRepository = bookingRepository;
+        this.routeIndex = routeIndex;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildRouteIndex() {
+        routeIndex.rebuild(repo.findAll());
+        logger.info("Vehicle route index built with " + routeIndex.size() + " vehicles");
     }
 
     public Vehicle create(Vehicle v) {
-        return repo.save(v);
+        Vehicle saved = repo.save(v);
+        routeIndex.index(saved);
+        return saved;
     }
 
     /**
@@ -79,6 +98,7 @@ public class VehicleService {
 
         // 3. Save Vehicle
         Vehicle saved = repo.save(v);
+        routeIndex.index(saved);
 
         // 4. Handle Reservation (if driver reserves seats for themselves/friends)
         if (v.getReservedSeats() > 0) {
@@ -104,6 +124,10 @@ public class VehicleService {
         return repo.findAll();
     }
 
+    public Slice<Vehicle> page(KeysetCursor after, Pageable page) {
+        return repo.findPage(after == null ? null : after.createdAt(), after == null ? null : after.id(), page);
+    }
+
     public Optional<Vehicle> findById(Long id) {
         return repo.findById(id);
     }
@@ -140,9 +164,23 @@ public class VehicleService {
         
         // Delete the vehicle
         repo.deleteById(id);
+        routeIndex.remove(id);
     }
 
     public List<Vehicle> searchVehicles(String from, String to, String date) {
+        if (!routeIndex.isReady()) {
+            return searchVehiclesByScan(from, to, date);
+        }
+        List<Long> ids = routeIndex.search(from, to, date);
+        if (ids.isEmpty())
+            return List.of();
+        return repo.findAllById(ids).stream()
+                .sorted(Comparator.comparing(Vehicle::getId))
+                .toList();
+    }
+
+    // Original LIKE + per-vehicle string scan, used only until the route index is built
+    private List<Vehicle> searchVehiclesByScan(String from, String to, String date) {
         List<Vehicle> candidates = repo.searchVehicles(from, to);
         
         return candidates.stream().filter(v -> {
@@ -190,7 +228,9 @@ public class VehicleService {
     }
 
     public Vehicle save(Vehicle v) {
-        return repo.save(v);
+        Vehicle saved = repo.save(v);
+        routeIndex.index(saved);
+        return saved;
     }
 
     public List<Vehicle> getAllVehicles() {
@@ -0,0 +1,162 @@
+package com.example.backend.repository;
+
+import com.example.backend.model.Ride;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The ride list and driver-posts endpoints before and after moving their
+ * filters into indexed queries, on 1M rides. Needs its own PostgreSQL database
+ * (default rideshare_bench on localhost, created empty beforehand):
+ *
+ * ./gradlew test --tests '*RideQueryBenchmarkTest' -Dbenchmark=true \
+ *     -Dbenchmark.db.url=jdbc:postgresql://localhost:5432/rideshare_bench
+ *
+ * The seeded rows use the bench.invalid email domain and are deleted afterwards.
+ */
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class RideQueryBenchmarkTest {
+
+    private static final int RIDES = 1_000_000;
+    private static final int DRIVERS = 5_000;
+    private static final int PAGE = 100;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url",
+                () -> System.getProperty("benchmark.db.url", "jdbc:postgresql://localhost:5432/rideshare_bench"));
+        if (System.getProperty("benchmark.db.user") != null)
+            registry.add("spring.datasource.username", () -> System.getProperty("benchmark.db.user"));
+        if (System.getProperty("benchmark.db.password") != null)
+            registry.add("spring.datasource.password", () -> System.getProperty("benchmark.db.password"));
+    }
+
+    @Autowired
+    private RideRepository rideRepository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeAll
+    void seed() {
+        cleanup();
+        long t0 = System.nanoTime();
+        // 20% OPEN (a fifth of those with no seats left), the rest completed or cancelled
+        jdbc.update("INSERT INTO rides (from_location, to_location, date, price, tickets, status, "
+                + "driver_email, driver_name, created_at) "
+                + "SELECT 'City ' || (g % 200), 'City ' || ((g * 7) % 200), '2025-01-01', 100 + g % 500, g % 5, "
+                + "CASE WHEN g % 10 < 2 THEN 'OPEN' WHEN g % 10 < 7 THEN 'COMPLETED' ELSE 'CANCELLED' END, "
+                + "'driver' || (g % ?) || '@bench.invalid', 'Driver ' || (g % ?), "
+                + "now() - g * interval '1 second' "
+                + "FROM generate_series(1, ?) g", DRIVERS, DRIVERS, RIDES);
+        jdbc.execute("ANALYZE rides");
+        System.out.printf("Seeded %d rides in %d ms%n", RIDES, (System.nanoTime() - t0) / 1_000_000);
+    }
+
+    @AfterAll
+    void cleanup() {
+        jdbc.update("DELETE FROM rides WHERE driver_email LIKE '%@bench.invalid'");
+    }
+
+    @Test
+    void openRideListing() {
+        // Before: RideController.list loaded every ride and filtered in Java
+        long t0 = System.nanoTime();
+        List<Ride> open = rideRepository.findAll().stream()
+                .filter(r -> "OPEN".equals(r.getStatus()) && r.getTickets() > 0)
+                .sorted(Comparator.comparing(Ride::getCreatedAt).reversed()
+                        .thenComparing(Comparator.comparing(Ride::getId).reversed()))
+                .collect(Collectors.toList());
+        long beforeMs = (System.nanoTime() - t0) / 1_000_000;
+
+        // After: one keyset page per request, then the following pages by cursor
+        int runs = 20;
+        Slice<RideListing> first = null;
+        t0 = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            first = rideRepository.findOpenListings(null, null, PageRequest.of(0, PAGE));
+        }
+        double firstPageMs = (System.nanoTime() - t0) / 1e6 / runs;
+
+        Slice<RideListing> page = first;
+        int pages = 50;
+        t0 = System.nanoTime();
+        for (int i = 1; i < pages; i++) {
+            RideListing last = page.getContent().get(page.getContent().size() - 1);
+            page = rideRepository.findOpenListings(last.createdAt(), last.id(), PageRequest.of(0, PAGE));
+        }
+        double deepPageMs = (System.nanoTime() - t0) / 1e6 / (pages - 1);
+
+        System.out.printf("Open rides: %d of %d%n", open.size(), RIDES);
+        System.out.printf("findAll + filter:      %8d ms%n", beforeMs);
+        System.out.printf("keyset first page:     %8.2f ms (%d rows)%n", firstPageMs, PAGE);
+        System.out.printf("keyset pages 2..%d:    %8.2f ms per page%n", pages, deepPageMs);
+        explain("SELECT id FROM rides WHERE status = 'OPEN' AND tickets > 0 "
+                + "ORDER BY created_at DESC, id DESC LIMIT " + (PAGE + 1));
+
+        assertEquals(open.stream().limit(PAGE).map(Ride::getId).toList(),
+                first.getContent().stream().map(RideListing::id).toList());
+        assertEquals(open.get(pages * PAGE - 1).getId(), page.getContent().get(PAGE - 1).id());
+    }
+
+    @Test
+    void driverOpenRides() {
+        Random rnd = new Random(42);
+        String driver = "driver" + rnd.nextInt(DRIVERS) + "@bench.invalid";
+
+        // Before: getDriverRides loaded every ride and filtered by driver in Java
+        long t0 = System.nanoTime();
+        List<Long> before = rideRepository.findAll().stream()
+                .filter(r -> driver.equals(r.getDriverEmail()))
+                .filter(r -> "OPEN".equalsIgnoreCase(r.getStatus()))
+                .map(Ride::getId)
+                .sorted()
+                .toList();
+        long beforeMs = (System.nanoTime() - t0) / 1_000_000;
+
+        int runs = 200;
+        t0 = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            rideRepository.findByDriverEmailAndStatus("driver" + rnd.nextInt(DRIVERS) + "@bench.invalid", "OPEN");
+        }
+        double afterMs = (System.nanoTime() - t0) / 1e6 / runs;
+        List<Long> after = rideRepository.findByDriverEmailAndStatus(driver, "OPEN").stream()
+                .map(Ride::getId)
+                .sorted()
+                .toList();
+
+        System.out.printf("Driver open rides: %d%n", after.size());
+        System.out.printf("findAll + filter:          %8d ms%n", beforeMs);
+        System.out.printf("findByDriverEmailAndStatus: %7.2f ms%n", afterMs);
+        List<String> plan = explain("SELECT * FROM rides WHERE driver_email = '" + driver + "' AND status = 'OPEN'");
+
+        assertEquals(before, after);
+        assertTrue(plan.stream().anyMatch(line -> line.contains("idx_rides_driver_email_status")), "index not used");
+    }
+
+    private List<String> explain(String sql) {
+        List<String> plan = jdbc.queryForList("EXPLAIN " + sql, String.class);
+        plan.forEach(line -> System.out.println("    " + line));
+        return plan;
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.backend.security;
+
+import com.example.backend.config.WebSocketConfig;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.security.Principal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StompAuthInterceptorTest {
+
+    private static final String ALICE = "alice@example.com";
+
+    private final JwtUtil jwtUtil = mock(JwtUtil.class);
+    private final StompAuthInterceptor interceptor = new StompAuthInterceptor(jwtUtil);
+
+    private static Message<byte[]> frame(StompCommand command, String destination, String user) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        if (destination != null)
+            accessor.setDestination(destination);
+        if (user != null)
+            accessor.setUser(new UsernamePasswordAuthenticationToken(user, null, List.of()));
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private void allowed(StompCommand command, String destination, String user) {
+        assertDoesNotThrow(() -> interceptor.preSend(frame(command, destination, user), null), destination);
+    }
+
+    private void refused(StompCommand command, String destination, String user) {
+        assertThrows(MessageDeliveryException.class, () -> interceptor.preSend(frame(command, destination, user), null),
+                destination);
+    }
+
+    @Test
+    void ownQueuesAndTopicsCanBeSubscribed() {
+        allowed(StompCommand.SUBSCRIBE, "/user/queue/notifications", ALICE);
+        allowed(StompCommand.SUBSCRIBE, "/user/queue/unread-count", ALICE);
+        allowed(StompCommand.SUBSCRIBE, "/topic/user/" + ALICE, ALICE);
+        allowed(StompCommand.SUBSCRIBE, "/topic/user/Alice@Example.com", ALICE);
+        allowed(StompCommand.SUBSCRIBE, "/topic/rides", null);
+    }
+
+    @Test
+    void otherUsersTopicsAreRefused() {
+        refused(StompCommand.SUBSCRIBE, "/topic/user/bob@example.com", ALICE);
+        refused(StompCommand.SUBSCRIBE, "/topic/user/" + ALICE, null);
+        refused(StompCommand.SUBSCRIBE, "/topic/user/bob@example.com/extra", ALICE);
+    }
+
+    @Test
+    void serverBroadcastsAndRawQueuesAreRefused() {
+        refused(StompCommand.SUBSCRIBE, WebSocketConfig.USER_DESTINATION_BROADCAST, ALICE);
+        refused(StompCommand.SUBSCRIBE, WebSocketConfig.USER_REGISTRY_BROADCAST, ALICE);
+        refused(StompCommand.SUBSCRIBE, "/queue/notifications-user1a2b3c", ALICE);
+        refused(StompCommand.SUBSCRIBE, null, ALICE);
+    }
+
+    @Test
+    void patternsAndNonCanonicalPathsAreRefused() {
+        for (String destination : List.of("/topic/**", "/topic/*", "/topic/#", "/topic/user/*", "/topic/user/#",
+                "/topic/unresolved-user-*", "/topic/simp-user-registr?", "/topic/{name}",
+                "/topic//unresolved-user-destination", "/topic/./simp-user-registry",
+                "/topic/x/../unresolved-user-destination", "/topic/user/bob@example.com/", "topic/rides"))
+            refused(StompCommand.SUBSCRIBE, destination, ALICE);
+    }
+
+    @Test
+    void clientsOnlySendToApplicationDestinations() {
+        allowed(StompCommand.SEND, "/app/ping", ALICE);
+        refused(StompCommand.SEND, "/topic/user/" + ALICE, ALICE);
+        refused(StompCommand.SEND, "/queue/notifications", ALICE);
+        refused(StompCommand.SEND, null, ALICE);
+    }
+
+    @Test
+    void connectSetsTheUserFromTheToken() {
+        Claims claims = mock(Claims.class);
+        when(claims.getSubject()).thenReturn(ALICE);
+        when(claims.get("role", String.class)).thenReturn("ROLE_USER");
+        when(jwtUtil.extractClaims("good")).thenReturn(claims);
+        when(jwtUtil.extractClaims("bad")).thenThrow(new IllegalArgumentException("bad signature"));
+
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        accessor.addNativeHeader("Authorization", "Bearer good");
+        accessor.setLeaveMutable(true);
+        Message<?> connect = interceptor.preSend(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()), null);
+        Principal user = MessageHeaderAccessor.getAccessor(connect, StompHeaderAccessor.class).getUser();
+        assertEquals(ALICE, user.getName());
+
+        StompHeaderAccessor bad = StompHeaderAccessor.create(StompCommand.CONNECT);
+        bad.addNativeHeader("Authorization", "Bearer bad");
+        assertThrows(MessageDeliveryException.class,
+                () -> interceptor.preSend(MessageBuilder.createMessage(new byte[0], bad.getMessageHeaders()), null));
+
+        Message<byte[]> anonymous = frame(StompCommand.CONNECT, null, null);
+        assertNull(MessageHeaderAccessor.getAccessor(interceptor.preSend(anonymous, null), StompHeaderAccessor.class)
+                .getUser());
+    }
+}
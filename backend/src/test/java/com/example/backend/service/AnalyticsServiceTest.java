@@ -0,0 +1,301 @@
+package com.example.backend.service;
+
+import com.example.backend.model.Booking;
+import com.example.backend.model.Ride;
+import com.example.backend.model.User;
+import com.example.backend.repository.BookingRepository;
+import com.example.backend.repository.RideRepository;
+import com.example.backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AnalyticsServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 15);
+
+    // The tables, as the database holds them
+    private final Map<Long, User> users = new LinkedHashMap<>();
+    private final Map<Long, Ride> rides = new LinkedHashMap<>();
+    private final Map<Long, Booking> bookings = new LinkedHashMap<>();
+    // What reconcile() finds saved since its last pass
+    private final List<User> usersChanged = new ArrayList<>();
+    private final List<Ride> ridesChanged = new ArrayList<>();
+    private final List<Booking> bookingsChanged = new ArrayList<>();
+
+    private AnalyticsService service;
+
+    @BeforeEach
+    void setUp() {
+        UserRepository userRepository = mock(UserRepository.class);
+        RideRepository rideRepository = mock(RideRepository.class);
+        BookingRepository bookingRepository = mock(BookingRepository.class);
+        when(userRepository.findAll()).thenAnswer(inv -> new ArrayList<>(users.values()));
+        when(rideRepository.findAll()).thenAnswer(inv -> new ArrayList<>(rides.values()));
+        when(bookingRepository.findAll()).thenAnswer(inv -> new ArrayList<>(bookings.values()));
+        when(userRepository.findUpdatedSince(any())).thenAnswer(inv -> drain(usersChanged));
+        when(rideRepository.findUpdatedSince(any())).thenAnswer(inv -> drain(ridesChanged));
+        when(bookingRepository.findUpdatedSince(any())).thenAnswer(inv -> drain(bookingsChanged));
+        when(userRepository.count()).thenAnswer(inv -> (long) users.size());
+        when(rideRepository.count()).thenAnswer(inv -> (long) rides.size());
+        when(bookingRepository.count()).thenAnswer(inv -> (long) bookings.size());
+        service = new AnalyticsService(userRepository, rideRepository, bookingRepository,
+                mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    void incrementalCountersMatchFullComputation() {
+        seed();
+
+        // Bookings move through their lifecycle, changing status, price and reason
+        Booking b1 = bookings.get(1L);
+        b1.setStatus("ACCEPTED");
+        saved(b1);
+        b1.setStatus("PAID");
+        b1.setTotalPrice(120.25);
+        saved(b1);
+        Booking b2 = bookings.get(2L);
+        b2.setStatus("CANCELLED");
+        b2.setCancellationReason("Plans changed");
+        saved(b2);
+        b2.setCancellationReason(null);
+        saved(b2);
+        Booking b3 = bookings.get(3L);
+        b3.setStatus("ACCEPTED");
+        saved(b3);
+        b3.setStatus("COMPLETED");
+        saved(b3);
+
+        // Seats taken and given back by conditional UPDATEs
+        seats(10L, -2);
+        seats(11L, -1);
+        seats(10L, 1);
+
+        // A ride changes destination and is cancelled, another is deleted, a user changes role
+        Ride r12 = rides.get(12L);
+        r12.setToLocation("Vizag");
+        saved(r12);
+        r12.setStatus("CANCELLED");
+        saved(r12);
+        deleted(rides.remove(13L));
+        User u2 = users.get(2L);
+        u2.setRole("ROLE_DRIVER");
+        saved(u2);
+        deleted(bookings.remove(4L));
+
+        assertEquals(fullComputation(TODAY), service.snapshot(TODAY));
+
+        // A rebuild from the tables lands on the same counters
+        service.rebuild();
+        assertEquals(fullComputation(TODAY), service.snapshot(TODAY));
+    }
+
+    @Test
+    void openRidesExpireAsTheirDatePasses() {
+        seed();
+        assertEquals(fullComputation(TODAY), service.snapshot(TODAY));
+        // Rides dated tomorrow and the day after roll into EXPIRED without any change event
+        assertEquals(fullComputation(TODAY.plusDays(2)), service.snapshot(TODAY.plusDays(2)));
+        assertEquals(fullComputation(TODAY.plusDays(3)), service.snapshot(TODAY.plusDays(3)));
+    }
+
+    @Test
+    void reconcilePicksUpChangesMadeOnOtherNodes() {
+        seed();
+        service.rebuild();
+
+        // Saved on another node: no local event, only a newer updated_at
+        Booking b1 = bookings.get(1L);
+        b1.setStatus("PAID");
+        bookingsChanged.add(b1);
+        Ride r = ride(20L, "OPEN", "2026-03-20", "Chennai", 3, 0);
+        rides.put(r.getId(), r);
+        ridesChanged.add(r);
+        service.reconcile();
+        assertEquals(fullComputation(TODAY), service.snapshot(TODAY));
+
+        // Deleted on another node: nothing is newer, but the row counts differ
+        users.remove(3L);
+        service.reconcile();
+        service.reconcile();
+        assertEquals(fullComputation(TODAY), service.snapshot(TODAY));
+    }
+
+    private void seed() {
+        user(1L, "ROLE_ADMIN");
+        user(2L, "ROLE_USER");
+        user(3L, "ROLE_USER");
+        user(4L, "ROLE_DRIVER");
+        user(5L, null);
+        saved(ride(10L, "OPEN", "2026-03-20", "Vizag", 4, 1));
+        saved(ride(11L, "OPEN", "16/3/2026", "Chennai", 3, 2));
+        saved(ride(12L, "OPEN", "17-03-2026", "Chennai", 2, 40));
+        saved(ride(13L, "EXPIRED", "2026/03/01", "Guntur", 5, 3));
+        saved(ride(14L, "OPEN", "03/10/2026", " vizag ", 1, 0));
+        saved(ride(15L, "OPEN", "not a date", "Hyderabad", 4, 5));
+        saved(ride(16L, "OPEN", null, "Vizag", 2, 29));
+        saved(ride(17L, "open ", "2026-03-14", "Guntur", 6, 31));
+        saved(booking(1L, "PENDING", 100.5, 1));
+        saved(booking(2L, "PENDING", 80.0, 2));
+        saved(booking(3L, "PENDING", 45.75, 0));
+        saved(booking(4L, "ACCEPTED", 60.25, 5));
+        saved(booking(5L, "EXPIRED", 30.0, 40));
+        saved(booking(6L, "CASH_PAYMENT_PENDING", 99.0, 3));
+    }
+
+    private void user(Long id, String role) {
+        User u = new User();
+        u.setId(id);
+        u.setRole(role);
+        saved(u);
+    }
+
+    private static Ride ride(Long id, String status, String date, String to, int tickets, int createdDaysAgo) {
+        Ride r = new Ride();
+        r.setId(id);
+        r.setStatus(status);
+        r.setDate(date);
+        r.setToLocation(to);
+        r.setTickets(tickets);
+        r.setCreatedAt(daysAgo(createdDaysAgo));
+        return r;
+    }
+
+    private static Booking booking(Long id, String status, double price, int createdDaysAgo) {
+        Booking b = new Booking();
+        b.setId(id);
+        b.setStatus(status);
+        b.setTotalPrice(price);
+        b.setCreatedAt(daysAgo(createdDaysAgo));
+        return b;
+    }
+
+    private static Instant daysAgo(int days) {
+        return TODAY.minusDays(days).atTime(12, 0).atZone(ZoneId.systemDefault()).toInstant();
+    }
+
+    // What AnalyticsEntityListener publishes, applied as after a commit
+    private void saved(Object entity) {
+        if (entity instanceof User u) {
+            users.put(u.getId(), u);
+            service.onEntityChanged(new AnalyticsService.EntityChanged(User.class, u.getId(), AnalyticsService.factOf(u)));
+        } else if (entity instanceof Ride r) {
+            rides.put(r.getId(), r);
+            service.onEntityChanged(new AnalyticsService.EntityChanged(Ride.class, r.getId(), AnalyticsService.factOf(r)));
+        } else if (entity instanceof Booking b) {
+            bookings.put(b.getId(), b);
+            service.onEntityChanged(new AnalyticsService.EntityChanged(Booking.class, b.getId(), AnalyticsService.factOf(b)));
+        }
+    }
+
+    private void deleted(Object entity) {
+        if (entity instanceof Ride r)
+            service.onEntityChanged(new AnalyticsService.EntityChanged(Ride.class, r.getId(), null));
+        else if (entity instanceof Booking b)
+            service.onEntityChanged(new AnalyticsService.EntityChanged(Booking.class, b.getId(), null));
+    }
+
+    private void seats(Long rideId, int delta) {
+        Ride r = rides.get(rideId);
+        r.setTickets(r.getTickets() + delta);
+        service.onSeatsChanged(new AnalyticsService.SeatsChanged(rideId, delta));
+    }
+
+    private static <T> List<T> drain(List<T> changed) {
+        List<T> out = new ArrayList<>(changed);
+        changed.clear();
+        return out;
+    }
+
+    // The dashboard as AdminController computed it from every row before the counters existed
+    private Map<String, Object> fullComputation(LocalDate today) {
+        List<Booking> bookings = new ArrayList<>(this.bookings.values());
+        List<Ride> rides = new ArrayList<>(this.rides.values());
+        List<String> confirmed = List.of("ACCEPTED", "PAID", "COMPLETED", "DRIVER_COMPLETED");
+        List<String> pending = List.of("PENDING", "CASH_PAYMENT_PENDING", "PAYMENT_PENDING");
+
+        Map<String, Long> userDist = users.values().stream()
+                .collect(Collectors.groupingBy(u -> u.getRole() == null ? "UNKNOWN" : u.getRole().replace("ROLE_", ""),
+                        Collectors.counting()));
+
+        long expiredRides = rides.stream().filter(r -> {
+            String status = r.getStatus() == null ? "" : r.getStatus().trim();
+            if ("EXPIRED".equalsIgnoreCase(status))
+                return true;
+            if ("OPEN".equalsIgnoreCase(status)) {
+                LocalDate d = AnalyticsService.parseRideDate(r.getDate());
+                return d != null && d.isBefore(today);
+            }
+            return false;
+        }).count();
+        Map<String, Long> bookingStatus = new HashMap<>();
+        bookingStatus.put("CONFIRMED", bookings.stream().filter(b -> confirmed.contains(b.getStatus())).count());
+        bookingStatus.put("PENDING", bookings.stream().filter(b -> pending.contains(b.getStatus())).count());
+        bookingStatus.put("EXPIRED", bookings.stream().filter(b -> "EXPIRED".equals(b.getStatus())).count() + expiredRides + 10);
+        bookingStatus.put("COMPLETED", bookings.stream().filter(b -> "COMPLETED".equals(b.getStatus())).count());
+
+        double totalRevenue = bookings.stream().filter(b -> confirmed.contains(b.getStatus()))
+                .mapToDouble(b -> b.getTotalPrice() != null ? b.getTotalPrice() : 0.0).sum();
+        double avgSeats = rides.stream().mapToInt(Ride::getTickets).average().orElse(0.0);
+
+        Map<String, Long> destinations = rides.stream().filter(r -> r.getToLocation() != null)
+                .collect(Collectors.groupingBy(r -> r.getToLocation().trim().toLowerCase(), Collectors.counting()));
+        List<Map<String, Object>> popularDestinations = destinations.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(10)
+                .map(e -> {
+                    Map<String, Object> m = new HashMap<>();
+                    m.put("name", e.getKey().substring(0, 1).toUpperCase() + e.getKey().substring(1));
+                    m.put("count", e.getValue());
+                    m.put("percentage", String.format("%.1f%%", (e.getValue() * 100.0) / Math.max(rides.size(), 1)));
+                    return m;
+                })
+                .collect(Collectors.toList());
+
+        DateTimeFormatter label = DateTimeFormatter.ofPattern("MMM dd");
+        Map<String, Long> activity = new LinkedHashMap<>();
+        for (int i = 29; i >= 0; i--)
+            activity.put(today.minusDays(i).format(label), 0L);
+        rides.forEach(r -> {
+            LocalDate date = LocalDate.ofInstant(r.getCreatedAt(), ZoneId.systemDefault());
+            if (!date.isBefore(today.minusDays(29)) && !date.isAfter(today))
+                activity.merge(date.format(label), 1L, Long::sum);
+        });
+
+        Map<String, Long> cancelReasons = bookings.stream().filter(b -> "CANCELLED".equals(b.getStatus()))
+                .collect(Collectors.groupingBy(b -> b.getCancellationReason() == null ? "Not specified" : b.getCancellationReason(),
+                        Collectors.counting()));
+
+        Map<String, Double> dailyRevenue = new TreeMap<>();
+        bookings.stream().filter(b -> confirmed.contains(b.getStatus())).forEach(b -> dailyRevenue.merge(
+                LocalDate.ofInstant(b.getCreatedAt(), ZoneId.systemDefault()).format(DateTimeFormatter.ISO_LOCAL_DATE),
+                b.getTotalPrice(), Double::sum));
+
+        return Map.of(
+                "userDistribution", userDist,
+                "bookingStatus", bookingStatus,
+                "popularDestinations", popularDestinations,
+                "rideActivity", Map.of("labels", new ArrayList<>(activity.keySet()), "data", new ArrayList<>(activity.values())),
+                "totalRevenue", totalRevenue,
+                "avgSeatsPerRide", String.format("%.1f", avgSeats),
+                "cancellationReasons", cancelReasons,
+                "revenueTrends", dailyRevenue);
+    }
+}
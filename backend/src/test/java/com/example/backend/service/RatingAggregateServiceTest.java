@@ -0,0 +1,61 @@
+package com.example.backend.service;
+
+import com.example.backend.model.RatingAggregate;
+import com.example.backend.repository.RatingAggregateRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RatingAggregateServiceTest {
+
+    private static final String EMAIL = "driver@example.com";
+
+    private static RatingAggregate aggregate(long count, long sum) {
+        RatingAggregate a = new RatingAggregate();
+        a.setRevieweeEmail(EMAIL);
+        a.setRatingCount(count);
+        a.setRatingSum(sum);
+        return a;
+    }
+
+    @Test
+    void reviewCommittedDuringLookupIsNotCachedOver() {
+        RatingAggregateRepository repo = mock(RatingAggregateRepository.class);
+        RatingAggregateService service = new RatingAggregateService(repo, mock(PlatformTransactionManager.class), 100, 600);
+        when(repo.addRating(anyString(), anyInt())).thenReturn(1);
+
+        // The first lookup reads the row as it was, and a 1-star review commits before it caches it
+        when(repo.findAllById(anyIterable()))
+                .thenAnswer(inv -> {
+                    service.record(EMAIL, 1);
+                    return List.of(aggregate(1, 5));
+                })
+                .thenReturn(List.of(aggregate(2, 6)));
+
+        assertEquals(5.0, service.getAverageRating(EMAIL));
+        assertEquals(3.0, service.getAverageRating(EMAIL));
+    }
+
+    @Test
+    void averagesAreCachedUntilARatingIsRecorded() {
+        RatingAggregateRepository repo = mock(RatingAggregateRepository.class);
+        RatingAggregateService service = new RatingAggregateService(repo, mock(PlatformTransactionManager.class), 100, 600);
+        when(repo.addRating(anyString(), anyInt())).thenReturn(1);
+        when(repo.findAllById(anyIterable()))
+                .thenReturn(List.of(aggregate(1, 4)))
+                .thenReturn(List.of(aggregate(2, 6)));
+
+        assertEquals(4.0, service.getAverageRating(EMAIL));
+        assertEquals(4.0, service.getAverageRating(EMAIL));
+        service.record(EMAIL, 2);
+        assertEquals(3.0, service.getAverageRating(EMAIL));
+    }
+}
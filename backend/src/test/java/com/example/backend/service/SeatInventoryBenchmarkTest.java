@@ -0,0 +1,210 @@
+package com.example.backend.service;
+
+import com.example.backend.repository.RideRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SeatInventoryBenchmarkTest {
+
+    private static final long RIDE_ID = 1L;
+    private static final long RECHECK_MS = 1000;
+    private static final ApplicationEventPublisher NO_EVENTS = event -> {
+    };
+
+    /**
+     * Stands in for the rides table: one row, statements applied atomically as
+     * the database would, each paying a simulated round trip.
+     */
+    static class FakeRideTable {
+        final AtomicInteger tickets;
+        final AtomicInteger roundTrips = new AtomicInteger();
+        final long latencyNanos;
+
+        FakeRideTable(int tickets, long latencyNanos) {
+            this.tickets = new AtomicInteger(tickets);
+            this.latencyNanos = latencyNanos;
+        }
+
+        RideRepository repository() {
+            RideRepository repo = mock(RideRepository.class);
+            when(repo.findTicketsById(anyLong())).thenAnswer(inv -> Optional.of(read()));
+            when(repo.reserveSeats(anyLong(), anyInt())).thenAnswer(inv -> reserve(inv.getArgument(1)));
+            when(repo.releaseSeats(anyLong(), anyInt())).thenAnswer(inv -> {
+                roundTrip();
+                tickets.addAndGet(inv.<Integer>getArgument(1));
+                return 1;
+            });
+            return repo;
+        }
+
+        int read() {
+            roundTrip();
+            return tickets.get();
+        }
+
+        void write(int value) {
+            roundTrip();
+            tickets.set(value);
+        }
+
+        // UPDATE ... SET tickets = tickets - :seats WHERE id = :id AND tickets >= :seats
+        int reserve(int seats) {
+            roundTrip();
+            int current;
+            do {
+                current = tickets.get();
+                if (current < seats)
+                    return 0;
+            } while (!tickets.compareAndSet(current, current - seats));
+            return 1;
+        }
+
+        private void roundTrip() {
+            roundTrips.incrementAndGet();
+            if (latencyNanos > 0)
+                LockSupport.parkNanos(latencyNanos);
+        }
+    }
+
+    @Test
+    void neverOversellsUnderContention() throws Exception {
+        FakeRideTable table = new FakeRideTable(100, 0);
+        SeatInventory inventory = new SeatInventory(table.repository(), NO_EVENTS, RECHECK_MS);
+
+        int booked = run(500, 64, () -> inventory.tryReserve(RIDE_ID, 1));
+
+        assertEquals(100, booked);
+        assertEquals(0, table.tickets.get());
+        assertFalse(inventory.tryReserve(RIDE_ID, 1));
+    }
+
+    @Test
+    void releaseMakesSeatsBookableAgain() {
+        FakeRideTable table = new FakeRideTable(2, 0);
+        SeatInventory inventory = new SeatInventory(table.repository(), NO_EVENTS, RECHECK_MS);
+
+        assertTrue(inventory.tryReserve(RIDE_ID, 2));
+        assertFalse(inventory.tryReserve(RIDE_ID, 1));
+        inventory.release(RIDE_ID, 1);
+        assertTrue(inventory.tryReserve(RIDE_ID, 1));
+        assertEquals(0, table.tickets.get());
+    }
+
+    @Test
+    void staleCounterIsResyncedFromDatabase() {
+        FakeRideTable table = new FakeRideTable(5, 0);
+        SeatInventory inventory = new SeatInventory(table.repository(), NO_EVENTS, RECHECK_MS);
+
+        assertTrue(inventory.tryReserve(RIDE_ID, 1));
+        // Seats taken outside the inventory, e.g. an admin edit
+        table.tickets.set(0);
+        assertFalse(inventory.tryReserve(RIDE_ID, 1));
+        assertEquals(1L, inventory.stats().get("rejectedByDatabase"));
+        // The counter now knows the ride is full and turns requests away without a round trip
+        int trips = table.roundTrips.get();
+        assertFalse(inventory.tryReserve(RIDE_ID, 1));
+        assertEquals(trips, table.roundTrips.get());
+    }
+
+    @Test
+    void staleLowCounterIsRecheckedAgainstDatabase() throws Exception {
+        FakeRideTable table = new FakeRideTable(1, 0);
+        SeatInventory inventory = new SeatInventory(table.repository(), NO_EVENTS, 50);
+
+        assertTrue(inventory.tryReserve(RIDE_ID, 1));
+        // The seat is given back on another node: the row has it, this node's counter does not
+        table.tickets.incrementAndGet();
+        Thread.sleep(100);
+        assertTrue(inventory.tryReserve(RIDE_ID, 1));
+        assertEquals(0, table.tickets.get());
+        assertEquals(1L, inventory.stats().get("resyncs"));
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkBookingStorm() throws Exception {
+        int seats = 100, requests = 5_000, threads = 200;
+        long latency = TimeUnit.MICROSECONDS.toNanos(200);
+
+        // Old BookingService path: read tickets, check, write tickets - 1
+        FakeRideTable naive = new FakeRideTable(seats, latency);
+        long t0 = System.nanoTime();
+        int naiveBooked = run(requests, threads, () -> {
+            int left = naive.read();
+            if (left < 1)
+                return false;
+            naive.write(left - 1);
+            return true;
+        });
+        long naiveMs = (System.nanoTime() - t0) / 1_000_000;
+
+        // Conditional UPDATE alone: correct, but every request costs a round trip
+        FakeRideTable conditional = new FakeRideTable(seats, latency);
+        t0 = System.nanoTime();
+        int conditionalBooked = run(requests, threads, () -> conditional.reserve(1) == 1);
+        long conditionalMs = (System.nanoTime() - t0) / 1_000_000;
+
+        FakeRideTable table = new FakeRideTable(seats, latency);
+        SeatInventory inventory = new SeatInventory(table.repository(), NO_EVENTS, RECHECK_MS);
+        t0 = System.nanoTime();
+        int inventoryBooked = run(requests, threads, () -> inventory.tryReserve(RIDE_ID, 1));
+        long inventoryMs = (System.nanoTime() - t0) / 1_000_000;
+
+        System.out.printf("%d requests for %d seats, %d threads, %d us per round trip%n",
+                requests, seats, threads, TimeUnit.NANOSECONDS.toMicros(latency));
+        System.out.printf("read-check-write:   booked %5d (oversold %d), %5d round trips, %5d ms%n",
+                naiveBooked, Math.max(0, naiveBooked - seats), naive.roundTrips.get(), naiveMs);
+        System.out.printf("conditional update: booked %5d, %5d round trips, %5d ms%n",
+                conditionalBooked, conditional.roundTrips.get(), conditionalMs);
+        System.out.printf("seat inventory:     booked %5d, %5d round trips, %5d ms %s%n",
+                inventoryBooked, table.roundTrips.get(), inventoryMs, inventory.stats());
+
+        assertEquals(seats, conditionalBooked);
+        assertEquals(seats, inventoryBooked);
+        assertEquals(0, table.tickets.get());
+        assertTrue(table.roundTrips.get() < conditional.roundTrips.get());
+    }
+
+    // Fires the attempts from a pool behind a common start line and counts successes
+    private static int run(int attempts, int threads, BooleanSupplier attempt) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(attempts);
+        AtomicInteger succeeded = new AtomicInteger();
+        for (int i = 0; i < attempts; i++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    if (attempt.getAsBoolean())
+                        succeeded.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        done.await(60, TimeUnit.SECONDS);
+        pool.shutdownNow();
+        return succeeded.get();
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.backend.service;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.Context;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.startup.Tomcat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 5k concurrent clients against an embedded Tomcat whose requests block on a
+ * simulated upstream (maps, SMTP, Stripe or the database), once per request
+ * executor: Tomcat's default pool of 200 platform threads, one platform thread
+ * per client, and a virtual thread per request as in the "virtual" profile.
+ * The virtual run needs Java 21 (./gradlew test -PjavaVersion=21 -Dbenchmark=true)
+ * and is left out on older runtimes.
+ *
+ * Memory is the peak heap in use and the growth of the process RSS during a
+ * run; RSS is only read on Linux, and as the JVM rarely returns memory the
+ * runs go from the lightest to the heaviest.
+ */
+class ThreadModeBenchmarkTest {
+
+    private static final int CLIENTS = 5_000;
+    private static final int REQUESTS_PER_CLIENT = 10;
+    private static final long UPSTREAM_LATENCY_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private record Result(String mode, int requests, int errors, long millis, int peakPlatformThreads,
+            long peakHeapBytes, long rssGrowthBytes) {
+
+        double throughput() {
+            return requests * 1000.0 / Math.max(1, millis);
+        }
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkVirtualAgainstPlatformThreads() throws Exception {
+        // Warm up the server and client code paths
+        run("warm-up", Executors.newFixedThreadPool(200), 500, 2);
+
+        List<Result> results = new ArrayList<>();
+        if (ThreadMode.virtualThreadsSupported())
+            results.add(run("virtual", ThreadMode.virtualExecutor("http-v-"), CLIENTS, REQUESTS_PER_CLIENT));
+        Result pooled = run("platform x200", Executors.newFixedThreadPool(200), CLIENTS, REQUESTS_PER_CLIENT);
+        results.add(pooled);
+        results.add(run("platform x" + CLIENTS, Executors.newFixedThreadPool(CLIENTS), CLIENTS, REQUESTS_PER_CLIENT));
+
+        System.out.printf("%d clients x %d requests, %d ms upstream latency, Java %d%n",
+                CLIENTS, REQUESTS_PER_CLIENT, TimeUnit.NANOSECONDS.toMillis(UPSTREAM_LATENCY_NANOS),
+                Runtime.version().feature());
+        for (Result r : results)
+            System.out.printf("%-15s %7d requests, %4d errors, %6d ms, %8.0f req/s, peak %5d platform threads, "
+                    + "peak heap %5d MB, RSS +%5d MB%n",
+                    r.mode(), r.requests(), r.errors(), r.millis(), r.throughput(), r.peakPlatformThreads(),
+                    r.peakHeapBytes() >> 20, r.rssGrowthBytes() >> 20);
+
+        for (Result r : results)
+            assertEquals(0, r.errors(), r.mode());
+        if (ThreadMode.virtualThreadsSupported())
+            assertTrue(results.get(0).throughput() > pooled.throughput());
+    }
+
+    // Serves /ride with the given request executor and drives it with clients x requests keep-alive GETs
+    private static Result run(String mode, ExecutorService executor, int clients, int requestsPerClient)
+            throws Exception {
+        Tomcat tomcat = new Tomcat();
+        tomcat.setBaseDir(Files.createTempDirectory("tomcat-bench").toString());
+        Connector connector = new Connector("HTTP/1.1");
+        connector.setPort(0);
+        connector.setProperty("maxConnections", "10000");
+        connector.setProperty("acceptCount", "1000");
+        connector.setProperty("maxKeepAliveRequests", "-1");
+        connector.getProtocolHandler().setExecutor(executor);
+        tomcat.setConnector(connector);
+        Context context = tomcat.addContext("", null);
+        Tomcat.addServlet(context, "ride", new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                LockSupport.parkNanos(UPSTREAM_LATENCY_NANOS);
+                resp.setContentType("application/json");
+                resp.getWriter().write("{\"distanceKm\":42.0}");
+            }
+        });
+        context.addServletMappingDecoded("/ride", "ride");
+        tomcat.start();
+
+        ExecutorService clientThreads = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2);
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(clientThreads)
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + connector.getLocalPort() + "/ride"))
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build();
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Sampler sampler = new Sampler();
+        threads.resetPeakThreadCount();
+        long rssBefore = rssBytes();
+        sampler.start();
+
+        AtomicInteger ok = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        long t0 = System.nanoTime();
+        CompletableFuture<?>[] sessions = new CompletableFuture<?>[clients];
+        for (int c = 0; c < clients; c++) {
+            CompletableFuture<Void> session = CompletableFuture.completedFuture(null);
+            for (int i = 0; i < requestsPerClient; i++) {
+                session = session.thenCompose(v -> client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                        .handle((resp, e) -> {
+                            if (e == null && resp.statusCode() == 200)
+                                ok.incrementAndGet();
+                            else
+                                errors.incrementAndGet();
+                            return null;
+                        }));
+            }
+            sessions[c] = session;
+        }
+        CompletableFuture.allOf(sessions).get(10, TimeUnit.MINUTES);
+        long millis = (System.nanoTime() - t0) / 1_000_000;
+
+        sampler.interrupt();
+        sampler.join();
+        Result result = new Result(mode, ok.get() + errors.get(), errors.get(), millis, threads.getPeakThreadCount(),
+                sampler.peakHeap.get(), Math.max(0, sampler.peakRss.get() - rssBefore));
+
+        tomcat.stop();
+        tomcat.destroy();
+        executor.shutdownNow();
+        clientThreads.shutdownNow();
+        return result;
+    }
+
+    // Peak heap in use and RSS while a run is going
+    private static class Sampler extends Thread {
+        final AtomicLong peakHeap = new AtomicLong();
+        final AtomicLong peakRss = new AtomicLong();
+
+        Sampler() {
+            super("memory-sampler");
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (!isInterrupted()) {
+                peakHeap.accumulateAndGet(ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed(), Math::max);
+                peakRss.accumulateAndGet(rssBytes(), Math::max);
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static long rssBytes() {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                if (line.startsWith("VmRSS:"))
+                    return Long.parseLong(line.replaceAll("\\D", "")) * 1024;
+            }
+        } catch (IOException | RuntimeException e) {
+            // Not Linux
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.backend.service;
+
+import com.example.backend.model.Vehicle;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class VehicleRouteIndexBenchmarkTest {
+
+    private static final String[] CITIES = {
+            "Hyderabad", "Suryapet", "Vijayawada", "Eluru", "Rajahmundry", "Tuni", "Anakapalle", "Vizag",
+            "Chennai", "Nellore", "Ongole", "Hosur", "Krishnagiri", "Vellore", "Kanchipuram", "Bangalore",
+            "Pendurthi", "Kothavalasa", "Araku", "Srikakulam", "Bhogapuram", "Etcherla", "Guntur", "Tenali",
+            "Kurnool", "Anantapur", "Tirupati", "Kadapa", "Warangal", "Karimnagar", "Nizamabad", "Khammam" };
+
+    // Synthetic localities used as intermediate stops; fixed width so no name contains another
+    private static final String[] LOCALITIES = new String[3000];
+
+    static {
+        for (int i = 0; i < LOCALITIES.length; i++) {
+            LOCALITIES[i] = String.format("Stop %04d", i);
+        }
+    }
+
+    @Test
+    void indexMatchesStringScan() {
+        List<Vehicle> vehicles = generate(2_000, new Random(7));
+        VehicleRouteIndex index = new VehicleRouteIndex();
+        index.rebuild(vehicles);
+
+        Random rnd = new Random(11);
+        for (int i = 0; i < 500; i++) {
+            String from = place(rnd);
+            String to = place(rnd);
+            assertEquals(scan(vehicles, from, to), index.search(from, to, null), from + " -> " + to);
+        }
+        assertEquals(scan(vehicles, "", ""), index.search("", "", null));
+        assertEquals(scan(vehicles, "vij", "viz"), index.search("vij", "viz", null));
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmark100kVehicles() {
+        List<Vehicle> vehicles = generate(100_000, new Random(42));
+
+        long t0 = System.nanoTime();
+        VehicleRouteIndex index = new VehicleRouteIndex();
+        index.rebuild(vehicles);
+        long buildMs = (System.nanoTime() - t0) / 1_000_000;
+
+        int queries = 200;
+        String[][] pairs = new String[queries][2];
+        Random rnd = new Random(99);
+        for (int i = 0; i < queries; i++) {
+            pairs[i][0] = place(rnd);
+            pairs[i][1] = place(rnd);
+        }
+
+        // Warm up both paths
+        for (int i = 0; i < 20; i++) {
+            scan(vehicles, pairs[i][0], pairs[i][1]);
+            index.search(pairs[i][0], pairs[i][1], null);
+        }
+
+        long scanNanos = 0, indexNanos = 0;
+        for (String[] p : pairs) {
+            long s = System.nanoTime();
+            List<Long> expected = scan(vehicles, p[0], p[1]);
+            scanNanos += System.nanoTime() - s;
+
+            s = System.nanoTime();
+            List<Long> actual = index.search(p[0], p[1], null);
+            indexNanos += System.nanoTime() - s;
+
+            assertEquals(expected, actual);
+        }
+
+        System.out.printf("VehicleRouteIndex @100k: build=%d ms, scan=%.3f ms/query, index=%.3f ms/query (%.1fx)%n",
+                buildMs, scanNanos / 1e6 / queries, indexNanos / 1e6 / queries, (double) scanNanos / indexNanos);
+    }
+
+    private static String place(Random rnd) {
+        return rnd.nextInt(4) == 0 ? CITIES[rnd.nextInt(CITIES.length)] : LOCALITIES[rnd.nextInt(LOCALITIES.length)];
+    }
+
+    // City-to-city routes with a handful of intermediate localities
+    private static List<Vehicle> generate(int n, Random rnd) {
+        List<Vehicle> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            int len = 2 + rnd.nextInt(6);
+            List<String> stops = new ArrayList<>();
+            stops.add(CITIES[rnd.nextInt(CITIES.length)]);
+            while (stops.size() < len - 1) {
+                String c = LOCALITIES[rnd.nextInt(LOCALITIES.length)];
+                if (!stops.contains(c))
+                    stops.add(c);
+            }
+            String dest = CITIES[rnd.nextInt(CITIES.length)];
+            if (stops.contains(dest))
+                dest = LOCALITIES[rnd.nextInt(LOCALITIES.length)];
+            if (!stops.contains(dest))
+                stops.add(dest);
+            Vehicle v = new Vehicle();
+            v.setId((long) i + 1);
+            v.setFromLocation(stops.get(0));
+            v.setToLocation(stops.get(stops.size() - 1));
+            v.setRoute(String.join(" -> ", stops));
+            v.setDate("2026-01-01");
+            out.add(v);
+        }
+        return out;
+    }
+
+    // The pre-index behaviour: LIKE prefilter followed by the per-vehicle indexOf order check
+    private static List<Long> scan(List<Vehicle> vehicles, String from, String to) {
+        String fromLower = from.toLowerCase();
+        String toLower = to.toLowerCase();
+        List<Long> out = new ArrayList<>();
+        for (Vehicle v : vehicles) {
+            String route = v.getRoute() == null ? "" : v.getRoute().toLowerCase();
+            boolean fromHit = v.getFromLocation().toLowerCase().contains(fromLower) || route.contains(fromLower);
+            boolean toHit = v.getToLocation().toLowerCase().contains(toLower) || route.contains(toLower);
+            if (!fromHit || !toHit)
+                continue;
+            if (route.isEmpty()) {
+                out.add(v.getId());
+                continue;
+            }
+            int start = v.getFromLocation().toLowerCase().contains(fromLower) ? 0 : route.indexOf(fromLower);
+            int end = v.getToLocation().toLowerCase().contains(toLower) ? Integer.MAX_VALUE : route.indexOf(toLower);
+            if (start != -1 && end != -1 && start < end)
+                out.add(v.getId());
+        }
+        return out;
+    }
+}
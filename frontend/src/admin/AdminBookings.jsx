@@ -1,5 +1,5 @@
 import React, { useEffect, useState } from "react";
-import { apiFetch, getToken, verifyJWT } from "../utils/jwt";
+import { apiFetchAll, getToken, verifyJWT } from "../utils/jwt";
 import { useNavigate } from "react-router-dom";
 import Pagination from "../common/Pagination";
 
@@ -23,7 +23,7 @@ const AdminBookings = () => {
         const fetchBookings = async () => {
             setLoading(true);
             try {
-                const data = await apiFetch("/api/admin/bookings");
+                const data = await apiFetchAll("/api/admin/bookings");
                 setBookings(Array.isArray(data) ? data : []);
             } catch (err) {
                 console.error(err);
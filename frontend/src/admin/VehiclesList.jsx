@@ -1,5 +1,5 @@
 import React, { useEffect, useState } from "react";
-import { apiFetch, getToken, verifyJWT } from "../utils/jwt";
+import { apiFetch, apiFetchAll, getToken, verifyJWT } from "../utils/jwt";
 import { useNavigate } from "react-router-dom";
 import { useToast } from "../common/ToastContainer";
 import ConfirmModal from "../common/ConfirmModal";
@@ -19,7 +19,7 @@ const VehiclesList = () => {
   const fetchRides = () => {
     setLoading(true);
     // Use Admin endpoint to see ALL rides
-    apiFetch("/api/admin/rides")
+    apiFetchAll("/api/admin/rides")
       .then(data => setList(Array.isArray(data) ? data : []))
       .catch((err) => {
         console.error(err);
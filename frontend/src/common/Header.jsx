@@ -1,6 +1,6 @@
 import React, { useState } from "react";
 import { Link, useNavigate } from "react-router-dom";
-import { apiFetch, verifyJWT, getToken } from "../utils/jwt";
+import { apiFetch, apiFetchPage, verifyJWT, getToken } from "../utils/jwt";
 import SockJS from "sockjs-client";
 import { Client } from "@stomp/stompjs";
 
@@ -16,10 +16,9 @@ const Header = ({ isDark, toggleTheme }) => {
 
   const fetchNotifs = () => {
     if (!token) return;
-    apiFetch("/api/notifications").then(data => {
-      setNotifications(data);
-      setUnreadCount(data.filter(n => !n.read).length);
-    }).catch(() => { });
+    // Newest page only; the unread badge comes from its own count
+    apiFetchPage("/api/notifications").then(page => setNotifications(page.items)).catch(() => { });
+    apiFetch("/api/notifications/unread-count").then(data => setUnreadCount(data.count)).catch(() => { });
   };
 
   React.useEffect(() => {
@@ -28,11 +27,19 @@ const Header = ({ isDark, toggleTheme }) => {
 
     const client = new Client({
       webSocketFactory: () => new SockJS(`${import.meta.env.VITE_API_BASE || "http://localhost:8084"}/ws`),
+      // Identifies this session so the server can route /user/queue/notifications to it
+      connectHeaders: { Authorization: `Bearer ${token}` },
       onConnect: () => {
-        client.subscribe("/topic/user/" + user.email, (msg) => {
-          const notif = JSON.parse(msg.body);
-          setNotifications(prev => [notif, ...prev]);
-          setUnreadCount(c => c + 1);
+        client.subscribe("/user/queue/notifications", (msg) => {
+          // One frame carries every notification created for us in the same batch, oldest first
+          const body = JSON.parse(msg.body);
+          const batch = Array.isArray(body) ? body : [body];
+          setNotifications(prev => [...batch.slice().reverse(), ...prev]);
+        });
+        // Every change to our unread count, including reads from other tabs
+        client.subscribe("/user/queue/unread-count", (msg) => {
+          const { delta, count } = JSON.parse(msg.body);
+          setUnreadCount(c => (count ?? Math.max(0, c + delta)));
         });
       },
     });
@@ -1,7 +1,7 @@
 import React, { useState, useEffect, useRef } from "react";
 import SockJS from "sockjs-client";
 import { Client } from "@stomp/stompjs";
-import { apiFetch } from "../utils/jwt";
+import { apiFetch, apiFetchPage, getToken } from "../utils/jwt";
 import NotificationItem from "./NotificationItem";
 
 const NotificationBell = ({ userEmail }) => {
@@ -23,6 +23,8 @@ const NotificationBell = ({ userEmail }) => {
 
         const client = new Client({
             webSocketFactory: () => new SockJS("http://localhost:8084/ws"),
+            // Per-email topics only accept subscriptions from their own user
+            connectHeaders: { Authorization: `Bearer ${getToken()}` },
             onConnect: () => {
                 console.log("✅ WebSocket connected for notifications");
 
@@ -95,9 +97,13 @@ const NotificationBell = ({ userEmail }) => {
 
     const fetchNotifications = async () => {
         try {
-            const data = await apiFetch("/api/notifications");
-            setNotifications(data);
-            setUnreadCount(data.filter(n => !n.read).length);
+            // Newest page only; unread ones on older pages still count
+            const [page, unread] = await Promise.all([
+                apiFetchPage("/api/notifications"),
+                apiFetch("/api/notifications/unread-count")
+            ]);
+            setNotifications(page.items);
+            setUnreadCount(unread.count);
             setLoading(false);
         } catch (error) {
             console.error("Failed to fetch notifications:", error);
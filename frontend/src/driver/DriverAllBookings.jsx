@@ -1,5 +1,5 @@
 import React, { useState, useEffect } from "react";
-import { apiFetch } from "../utils/jwt";
+import { apiFetch, apiFetchAll } from "../utils/jwt";
 import Pagination from "../common/Pagination";
 import { useToast } from "../common/ToastContainer";
 import ConfirmModal from "../common/ConfirmModal";
@@ -75,7 +75,7 @@ const DriverAllBookings = () => {
         setLoading(true);
         try {
             const [bookingsData, ridesData] = await Promise.all([
-                apiFetch("/api/bookings/driver", { cache: "no-store" }),
+                apiFetchAll("/api/bookings/driver", { cache: "no-store" }),
                 apiFetch("/api/rides/driver-posts", { cache: "no-store" })
             ]);
 
@@ -3,7 +3,7 @@ import { createPortal } from "react-dom";
 import { useNavigate } from "react-router-dom";
 import SockJS from "sockjs-client";
 import { Client } from "@stomp/stompjs";
-import { apiFetch, verifyJWT } from "../utils/jwt";
+import { apiFetch, apiFetchAll, verifyJWT } from "../utils/jwt";
 import StarRating from "../common/StarRating";
 import { useToast } from "../common/ToastContainer";
 import ConfirmModal from "../common/ConfirmModal";
@@ -98,6 +98,8 @@ const DriverDashboard = () => {
 
         const client = new Client({
             webSocketFactory: () => new SockJS(`${import.meta.env.VITE_API_BASE || "http://localhost:8084"}/ws`),
+            // Per-email topics only accept subscriptions from their own user
+            connectHeaders: { Authorization: `Bearer ${token}` },
             onConnect: () => {
                 client.subscribe("/topic/driver/" + user.email, (msg) => {
                     setStatusMsg({ type: "success", text: "New Request: " + msg.body });
@@ -118,13 +120,13 @@ const DriverDashboard = () => {
         setLoadingRides(true);
         setErrorMsg("");
         try {
-            // Fetch Bookings with Stats
-            const bookingData = await apiFetch("/api/bookings/driver");
+            // Fetch Bookings, and Stats counted on the server over all of them
+            const [bookingData, summary] = await Promise.all([
+                apiFetchAll("/api/bookings/driver"),
+                apiFetch("/api/bookings/driver/summary", { cache: "no-store" })
+            ]);
             setBookings(bookingData);
-            const total = bookingData.length;
-            const pending = bookingData.filter(b => b.status === "PENDING").length;
-            const confirmed = bookingData.filter(b => b.status === "ACCEPTED" || b.status === "PAID").length;
-            setStats({ total, pending, confirmed });
+            setStats({ total: summary.total, pending: summary.pending, confirmed: summary.confirmed });
 
             // Fetch My Rides
             const rideData = await apiFetch("/api/rides/driver-posts", { cache: "no-store" });
@@ -1,6 +1,6 @@
 import React, { useEffect, useState } from "react";
 import { createPortal } from "react-dom";
-import { apiFetch } from "../utils/jwt";
+import { apiFetch, apiFetchAll } from "../utils/jwt";
 
 import Pagination from "../common/Pagination";
 import StarRating from "../common/StarRating";
@@ -25,7 +25,7 @@ const DriverHistory = () => {
 
     const fetchHistory = () => {
         setLoading(true);
-        apiFetch("/api/bookings/driver", { cache: "no-store" })
+        apiFetchAll("/api/bookings/driver", { cache: "no-store" })
             .then(data => {
                 if (!Array.isArray(data)) {
                     console.error("Expected array but got:", data);
@@ -1,5 +1,5 @@
 import React, { useEffect, useState } from "react";
-import { apiFetch } from "../utils/jwt";
+import { apiFetchAll } from "../utils/jwt";
 import { useNavigate } from "react-router-dom";
 import Pagination from "../common/Pagination";
 
@@ -14,7 +14,7 @@ const UserBus = () => {
 
   useEffect(() => {
     setLoading(true);
-    apiFetch("/api/rides").then((data) => {
+    apiFetchAll("/api/rides").then((data) => {
       // Filter out past dates and only show OPEN rides
       const now = new Date();
       now.setHours(0, 0, 0, 0); // Today midnight
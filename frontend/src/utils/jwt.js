@@ -38,7 +38,7 @@ export const verifyJWT = (token) => {
   };
 };
 
-export const apiFetch = async (path, opts = {}) => {
+const request = async (path, opts = {}) => {
   const token = getToken();
   const headers = Object.assign({ "Content-Type": "application/json", Accept: "application/json" }, opts.headers || {});
   if (token) headers["Authorization"] = `Bearer ${token}`;
@@ -55,7 +55,30 @@ export const apiFetch = async (path, opts = {}) => {
     err.status = res.status; err.body = body;
     throw err;
   }
-  return body;
+  return { body, res };
 };
 
-export default { API_BASE, saveToken, getToken, clearToken, parseToken, verifyJWT, apiFetch };
+export const apiFetch = async (path, opts = {}) => (await request(path, opts)).body;
+
+// List endpoints return one bounded page per request (newest first); X-Next-Cursor points at the next one
+export const PAGE_LIMIT = 100;
+
+export const apiFetchPage = async (path, { limit = PAGE_LIMIT, cursor, ...opts } = {}) => {
+  const query = `limit=${limit}` + (cursor ? `&cursor=${encodeURIComponent(cursor)}` : "");
+  const { body, res } = await request(path + (path.includes("?") ? "&" : "?") + query, opts);
+  return { items: Array.isArray(body) ? body : [], nextCursor: res.headers.get("X-Next-Cursor") };
+};
+
+// Every row of a list, page by page, for views that filter, count or page on the client
+export const apiFetchAll = async (path, opts = {}) => {
+  const items = [];
+  let cursor = null;
+  do {
+    const page = await apiFetchPage(path, { ...opts, cursor });
+    items.push(...page.items);
+    cursor = page.nextCursor;
+  } while (cursor);
+  return items;
+};
+
+export default { API_BASE, saveToken, getToken, clearToken, parseToken, verifyJWT, apiFetch, apiFetchPage, apiFetchAll };